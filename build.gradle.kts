@@ -2,6 +2,7 @@ plugins {
     id("java")
     id("application")
     id("com.gradleup.shadow") version "8.3.1"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "dev.soncresityindustries"
@@ -18,6 +19,7 @@ repositories {
 dependencies {
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     implementation("net.dv8tion:JDA:6.1.1")
     implementation("org.yaml:snakeyaml:2.5")
     implementation("ch.qos.logback:logback-classic:1.5.19")
@@ -25,6 +27,41 @@ dependencies {
     implementation("com.fasterxml.jackson.core:jackson-databind:2.15.2")
 }
 
+sourceSets {
+    create("loadtest") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+configurations["loadtestImplementation"].extendsFrom(configurations.implementation.get())
+configurations["loadtestRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+
+// ./gradlew loadTest -PloadTestArgs="--commands 5000 --rate 200"
+tasks.register<JavaExec>("loadTest") {
+    description = "Runs the bot against a local fake Discord and reports update latency and REST usage."
+    group = "verification"
+    classpath = sourceSets["loadtest"].runtimeClasspath
+    mainClass.set("dev.soncresityindustries.StatusBot.loadtest.LoadGenerator")
+    val dir = layout.buildDirectory.dir("loadtest")
+    workingDir = dir.get().asFile
+    args = (findProperty("loadTestArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+    doFirst {
+        // Start every run with fresh status and journal files
+        delete(dir)
+        dir.get().asFile.mkdirs()
+    }
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    // Short runs, enough to spot regressions between two commits
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+}
+
 tasks.test {
     useJUnitPlatform()
 }
@@ -0,0 +1,61 @@
+package dev.soncresityindustries.StatusBot;
+
+import dev.soncresityindustries.StatusBot.bench.ServiceFixtures;
+import dev.soncresityindustries.StatusBot.storage.Service;
+import dev.soncresityindustries.StatusBot.storage.ServiceCatalog;
+import dev.soncresityindustries.StatusBot.storage.Severity;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering the status channel from a catalog, without sending anything to Discord.
+ *
+ * @author SkyKing_PX
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int services;
+
+    private ServiceCatalog catalog;
+    private Service root;
+
+    @Setup
+    public void setUp() {
+        catalog = ServiceFixtures.catalog(services);
+        root = catalog.getRoots().get(0);
+    }
+
+    /** Renders a single top-level service and its sub-services */
+    @Benchmark
+    public List<MessageEmbed> buildStatusEmbeds() {
+        return StatusUpdateManager.buildStatusEmbeds(root, catalog, null, System.currentTimeMillis());
+    }
+
+    /** Renders and packs the embeds of every top-level service, like a full refresh pass */
+    @Benchmark
+    public List<List<MessageEmbed>> renderStatusMessages() {
+        return StatusUpdateManager.renderStatusMessages(catalog, null);
+    }
+
+    @Benchmark
+    public void determineColor(Blackhole blackhole) {
+        for (Severity severity : Severity.values()) {
+            blackhole.consume(StatusUpdateManager.determineColor(severity));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package dev.soncresityindustries.StatusBot.bench;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.emoji.RichCustomEmoji;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory stand-ins for JDA, so code taking a {@link JDA} can be benchmarked without connecting to Discord.
+ * Only the lookups the benchmarks need are answered; anything else fails loudly, so a benchmark
+ * never silently measures a code path that would talk to Discord.
+ *
+ * @author SkyKing_PX
+ */
+public class FakeJda {
+
+    private FakeJda() {
+    }
+
+    /**
+     * Creates a JDA instance that only knows a set of custom emojis.
+     *
+     * @param emojis Emoji IDs by name
+     * @return The JDA stand-in
+     */
+    public static JDA withEmojis(Map<String, Long> emojis) {
+        List<RichCustomEmoji> known = new ArrayList<>();
+        emojis.forEach((name, id) -> known.add(emoji(name, id)));
+
+        return proxy(JDA.class, "FakeJda", (method, args) -> switch (method) {
+            case "getEmojisByName" -> known.stream()
+                    .filter(emoji -> (Boolean) args[1] ? emoji.getName().equalsIgnoreCase((String) args[0]) : emoji.getName().equals(args[0]))
+                    .toList();
+            case "getEmojis" -> known;
+            default -> null;
+        });
+    }
+
+    private static RichCustomEmoji emoji(String name, long id) {
+        return proxy(RichCustomEmoji.class, name, (method, args) -> switch (method) {
+            case "getName" -> name;
+            case "getIdLong" -> id;
+            case "getId" -> Long.toString(id);
+            case "getAsMention" -> "<:" + name + ":" + id + ">";
+            default -> null;
+        });
+    }
+
+    /**
+     * Implements an interface with a handler. Methods the handler returns null for throw, except {@link Object} methods.
+     */
+    private static <T> T proxy(Class<T> type, String name, Handler handler) {
+        Object instance = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "toString" -> {
+                    return name;
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(self);
+                }
+                case "equals" -> {
+                    return self == args[0];
+                }
+            }
+            Object result = handler.handle(method.getName(), args);
+            if (result == null) {
+                throw new UnsupportedOperationException(name + " does not support " + method.getName());
+            }
+            return result;
+        });
+        return type.cast(instance);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+}
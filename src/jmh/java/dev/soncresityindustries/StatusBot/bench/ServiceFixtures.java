@@ -0,0 +1,72 @@
+package dev.soncresityindustries.StatusBot.bench;
+
+import dev.soncresityindustries.StatusBot.storage.Service;
+import dev.soncresityindustries.StatusBot.storage.ServiceCatalog;
+import dev.soncresityindustries.StatusBot.storage.Severity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates service trees for the benchmarks.
+ * Services are grouped in trees of 100: a top-level service with 9 sub-services, each with 10 sub-services of its own.
+ * A few services are degraded or down, so the rollups and colors are not all the same.
+ *
+ * @author SkyKing_PX
+ */
+public class ServiceFixtures {
+
+    /** Number of services in each tree */
+    public static final int TREE_SIZE = 100;
+
+    private ServiceFixtures() {
+    }
+
+    /**
+     * Creates a catalog of generated services.
+     *
+     * @param size The number of services
+     * @return The catalog
+     */
+    public static ServiceCatalog catalog(int size) {
+        Map<String, Service> services = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            Service service = service(i);
+            services.put(service.getServiceId(), service);
+        }
+        return ServiceCatalog.of(services);
+    }
+
+    /**
+     * Creates the generated service with the given index.
+     *
+     * @param index The index of the service
+     * @return The service
+     */
+    public static Service service(int index) {
+        return new Service("Service " + index, serviceId(index), severity(index), "",
+                "Handles :gear: requests for region " + index % 7, parentId(index));
+    }
+
+    /**
+     * @param index The index of a service
+     * @return The ID of the generated service with the given index
+     */
+    public static String serviceId(int index) {
+        return "service-" + index;
+    }
+
+    private static String parentId(int index) {
+        int tree = index / TREE_SIZE;
+        int offset = index % TREE_SIZE;
+        if (offset == 0) return null;
+        if (offset < 10) return serviceId(tree * TREE_SIZE);
+        return serviceId(tree * TREE_SIZE + offset / 10);
+    }
+
+    private static Severity severity(int index) {
+        if (index % 101 == 0 && index > 0) return Severity.MAJOR_OUTAGE;
+        if (index % 37 == 0 && index > 0) return Severity.DEGRADED;
+        return Severity.OPERATIONAL;
+    }
+}
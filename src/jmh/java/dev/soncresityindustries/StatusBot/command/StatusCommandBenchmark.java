@@ -0,0 +1,49 @@
+package dev.soncresityindustries.StatusBot.command;
+
+import dev.soncresityindustries.StatusBot.bench.ServiceFixtures;
+import dev.soncresityindustries.StatusBot.storage.ServiceCatalog;
+import dev.soncresityindustries.StatusBot.util.EmbedLayout;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering the pages of {@code /status list}.
+ *
+ * @author SkyKing_PX
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatusCommandBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int services;
+
+    private ServiceCatalog catalog;
+
+    @Setup
+    public void setUp() {
+        catalog = ServiceFixtures.catalog(services);
+    }
+
+    @Benchmark
+    public List<String> buildHierarchicalList() {
+        return StatusCommand.buildHierarchicalList(catalog);
+    }
+
+    /** The list as rendered on a cache miss: entries plus pagination */
+    @Benchmark
+    public List<String> listPages() {
+        return EmbedLayout.paginate(StatusCommand.buildHierarchicalList(catalog), MessageEmbed.DESCRIPTION_MAX_LENGTH);
+    }
+}
@@ -0,0 +1,90 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import dev.soncresityindustries.StatusBot.Config;
+import dev.soncresityindustries.StatusBot.bench.ServiceFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures loading, saving and updating a {@link StatusStorage} in a temporary directory.
+ * Updates include the journal fsync, so they depend on the disk the benchmark runs on.
+ * The storages use default settings, so no configuration file is read or created.
+ *
+ * @author SkyKing_PX
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatusStorageBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int services;
+
+    private Path directory;
+    private File file;
+    private StatusStorage storage;
+    private ServiceCatalog catalog;
+    private int nextUpdate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("status-bench");
+        file = directory.resolve("status.json").toFile();
+        catalog = ServiceFixtures.catalog(services);
+
+        // Write the snapshot and the initial history once, so every load reads the same files
+        StatusStorage initial = openStorage();
+        initial.save(catalog);
+        initial.close();
+        openStorage().close();
+
+        storage = openStorage();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private StatusStorage openStorage() throws IOException {
+        return new StatusStorage(file, new Config.Storage(), new Config.Refresh());
+    }
+
+    @Benchmark
+    public ServiceCatalog load() throws IOException {
+        StatusStorage loaded = openStorage();
+        loaded.close();
+        return loaded.getCatalog();
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        storage.save(catalog);
+    }
+
+    @Benchmark
+    public boolean update() throws IOException {
+        int index = nextUpdate++ % services;
+        Severity severity = (nextUpdate / services) % 2 == 0 ? Severity.DEGRADED : Severity.OPERATIONAL;
+        return storage.applyUpdate(ServiceFixtures.serviceId(index), severity, "Updated by benchmark", "");
+    }
+}
@@ -0,0 +1,54 @@
+package dev.soncresityindustries.StatusBot.util;
+
+import dev.soncresityindustries.StatusBot.bench.FakeJda;
+import net.dv8tion.jda.api.JDA;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replacing emoji names with mentions, against a guild with a realistic number of custom emojis.
+ *
+ * @author SkyKing_PX
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageHandlerBenchmark {
+
+    @Param({"0", "3", "30"})
+    private int emojisInText;
+
+    private JDA jda;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Map<String, Long> emojis = new LinkedHashMap<>();
+        for (int i = 0; i < 250; i++) {
+            emojis.put("emoji_" + i, 1_200_000_000_000_000_000L + i);
+        }
+        jda = FakeJda.withEmojis(emojis);
+
+        StringBuilder builder = new StringBuilder("All systems are running normally. ");
+        for (int i = 0; i < emojisInText; i++) {
+            // Every other name is unknown, so misses are measured as well
+            builder.append(i % 2 == 0 ? ":emoji_" + (i * 7 % 250) + ":" : ":unknown_" + i + ":").append(" status ");
+        }
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public String parseEmojis() {
+        return MessageHandler.parseEmojis(jda, text);
+    }
+}
@@ -0,0 +1,512 @@
+package dev.soncresityindustries.StatusBot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local stand-in for Discord: one guild with a status channel, a chat channel, a voice channel,
+ * an administrator role and the bot user.
+ * Holds the state shared by the {@link FakeRestServer} and the {@link FakeGateway}, and builds the
+ * JSON entities both send, following the shapes documented in the Discord API reference.
+ *
+ * @author SkyKing_PX
+ */
+public class FakeDiscord {
+
+    /** First second of 2015, the epoch of Discord snowflakes */
+    private static final long DISCORD_EPOCH = 1420070400000L;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSxxx");
+    /** Bits of the gateway intents that decide what the fake sends */
+    public static final int INTENT_GUILD_EXPRESSIONS = 3;
+    public static final int INTENT_GUILD_VOICE_STATES = 7;
+    public static final int INTENT_GUILD_MESSAGES = 9;
+    public static final int INTENT_MESSAGE_CONTENT = 15;
+    public static final int INTENT_GUILD_SCHEDULED_EVENTS = 16;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final long botUserId = nextSnowflake();
+    private final long adminUserId = nextSnowflake();
+    private final long guildId = nextSnowflake();
+    private final long statusChannelId = nextSnowflake();
+    private final long logChannelId = nextSnowflake();
+    private final long chatChannelId = nextSnowflake();
+    private final long voiceChannelId = nextSnowflake();
+    private final long adminRoleId = nextSnowflake();
+
+    private volatile String statusChannelName = "status";
+    /** What the guild holds besides the bot and the administrator, to compare the caches of startup profiles */
+    private GuildSize size = new GuildSize(0, 0, 0, 0, 0);
+    private long[] memberIds = new long[0];
+    /** Messages per channel, by message ID */
+    private final Map<Long, NavigableMap<Long, ObjectNode>> messages = new ConcurrentHashMap<>();
+
+    private final LoadStats stats = new LoadStats();
+    private final FakeRestServer rest;
+    private final FakeGateway gateway;
+
+    /**
+     * Creates the fake Discord without starting it.
+     *
+     * @param limits Rate limits and latency of the REST API
+     */
+    public FakeDiscord(RateLimiter.Limits limits) throws IOException {
+        this.gateway = new FakeGateway(this);
+        this.rest = new FakeRestServer(this, new RateLimiter(limits));
+    }
+
+    /**
+     * Contents of the guild sent on login.
+     *
+     * @param members Members besides the bot and the administrator
+     * @param emojis Custom emojis
+     * @param stickers Custom stickers
+     * @param scheduledEvents Scheduled events in the voice channel
+     * @param voiceMembers Members connected to the voice channel, at most {@code members}
+     */
+    public record GuildSize(int members, int emojis, int stickers, int scheduledEvents, int voiceMembers) {
+    }
+
+    /**
+     * Populates the guild sent on login. Must be called before the bot connects.
+     */
+    public void setGuildSize(GuildSize size) {
+        if (size.voiceMembers() > size.members()) {
+            throw new IllegalArgumentException("Only " + size.members() + " members can join the voice channel");
+        }
+        this.size = size;
+        this.memberIds = new long[size.members()];
+        for (int i = 0; i < memberIds.length; i++) {
+            memberIds[i] = nextSnowflake();
+        }
+    }
+
+    public void start() throws IOException {
+        gateway.start();
+        rest.start();
+    }
+
+    public void stop() {
+        rest.stop();
+        gateway.stop();
+    }
+
+    /** @return Base URL of the REST API, to be passed to JDA's RestConfig */
+    public String getRestBaseUrl() {
+        return rest.getBaseUrl();
+    }
+
+    /** @return URL of the gateway, as returned by GET /gateway */
+    public String getGatewayUrl() {
+        return gateway.getUrl();
+    }
+
+    public FakeGateway getGateway() { return gateway; }
+    public LoadStats getStats() { return stats; }
+    public ObjectMapper getJson() { return json; }
+    public long getBotUserId() { return botUserId; }
+    public long getGuildId() { return guildId; }
+    public long getStatusChannelId() { return statusChannelId; }
+    public long getLogChannelId() { return logChannelId; }
+    public long getChatChannelId() { return chatChannelId; }
+    public long getAdminRoleId() { return adminRoleId; }
+
+    /**
+     * Generates a snowflake for the current time. Snowflakes are unique and increasing, like Discord's.
+     *
+     * @return The snowflake
+     */
+    public long nextSnowflake() {
+        return ((System.currentTimeMillis() - DISCORD_EPOCH) << 22) | (sequence.incrementAndGet() & 0xFFF);
+    }
+
+    /** @return The current time as a Discord ISO-8601 timestamp */
+    public static String timestamp() {
+        return OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC).format(TIMESTAMP);
+    }
+
+    // --- Messages ---
+
+    /**
+     * Stores a new message sent by the bot.
+     *
+     * @param channelId The channel the message is sent to
+     * @param body The request body with the message content and embeds
+     * @return The created message
+     */
+    public ObjectNode createMessage(long channelId, ObjectNode body) {
+        ObjectNode message = json.createObjectNode();
+        long id = nextSnowflake();
+        message.put("id", Long.toString(id));
+        message.put("type", 0);
+        message.put("channel_id", Long.toString(channelId));
+        message.put("guild_id", Long.toString(guildId));
+        message.set("author", user(botUserId, "StatusBot", true));
+        message.put("content", body.path("content").asText(""));
+        message.set("embeds", embeds(body));
+        message.set("components", body.has("components") ? body.get("components") : json.createArrayNode());
+        message.put("timestamp", timestamp());
+        message.putNull("edited_timestamp");
+        message.put("tts", false);
+        message.put("mention_everyone", false);
+        message.set("mentions", json.createArrayNode());
+        message.set("mention_roles", json.createArrayNode());
+        message.set("attachments", json.createArrayNode());
+        message.put("pinned", false);
+        message.put("flags", body.path("flags").asInt(0));
+
+        messages.computeIfAbsent(channelId, key -> new ConcurrentSkipListMap<>()).put(id, message);
+        return message.deepCopy();
+    }
+
+    /**
+     * Copies the embeds of a request body the way Discord returns them, with the type it fills in.
+     *
+     * @param body The request body
+     * @return The embeds of the message
+     */
+    private ArrayNode embeds(ObjectNode body) {
+        ArrayNode embeds = json.createArrayNode();
+        for (JsonNode embed : body.path("embeds")) {
+            ObjectNode copy = embed.deepCopy();
+            if (!copy.has("type")) copy.put("type", "rich");
+            embeds.add(copy);
+        }
+        return embeds;
+    }
+
+    /**
+     * Replaces the content and embeds of a stored message.
+     *
+     * @return The edited message, or null if it does not exist
+     */
+    public ObjectNode editMessage(long channelId, long messageId, ObjectNode body) {
+        ObjectNode message = getMessage(channelId, messageId);
+        if (message == null) return null;
+
+        synchronized (message) {
+            if (body.has("content")) message.put("content", body.get("content").asText(""));
+            if (body.has("embeds")) message.set("embeds", embeds(body));
+            if (body.has("components")) message.set("components", body.get("components"));
+            message.put("edited_timestamp", timestamp());
+            return message.deepCopy();
+        }
+    }
+
+    /** @return Whether the message existed */
+    public boolean deleteMessage(long channelId, long messageId) {
+        NavigableMap<Long, ObjectNode> channel = messages.get(channelId);
+        return channel != null && channel.remove(messageId) != null;
+    }
+
+    public ObjectNode getMessage(long channelId, long messageId) {
+        NavigableMap<Long, ObjectNode> channel = messages.get(channelId);
+        return channel != null ? channel.get(messageId) : null;
+    }
+
+    /**
+     * Lists the newest messages of a channel, newest first, like GET /channels/{id}/messages.
+     */
+    public ArrayNode getHistory(long channelId, int limit) {
+        ArrayNode history = json.createArrayNode();
+        NavigableMap<Long, ObjectNode> channel = messages.get(channelId);
+        if (channel == null) return history;
+
+        for (ObjectNode message : channel.descendingMap().values()) {
+            if (history.size() >= limit) break;
+            synchronized (message) {
+                history.add(message.deepCopy());
+            }
+        }
+        return history;
+    }
+
+    /** @return Number of messages currently in the status channel */
+    public int getStatusMessageCount() {
+        NavigableMap<Long, ObjectNode> channel = messages.get(statusChannelId);
+        return channel != null ? channel.size() : 0;
+    }
+
+    public void renameStatusChannel(String name) {
+        this.statusChannelName = name;
+    }
+
+    /**
+     * Builds a message a member sent to the chat channel, as in a MESSAGE_CREATE dispatch.
+     * The message is not stored, the bot never reads the chat channel.
+     *
+     * @param sequence Number of the message, picks its author
+     * @param withContent Whether the receiving client has the message content intent; Discord sends empty content otherwise
+     * @return The message
+     */
+    public ObjectNode chatMessage(long sequence, boolean withContent) {
+        int index = memberIds.length > 0 ? (int) (sequence % memberIds.length) : -1;
+        long authorId = index >= 0 ? memberIds[index] : adminUserId;
+        String name = index >= 0 ? "Member " + index : "LoadTester";
+
+        ObjectNode message = json.createObjectNode();
+        message.put("id", Long.toString(nextSnowflake()));
+        message.put("type", 0);
+        message.put("channel_id", Long.toString(chatChannelId));
+        message.put("guild_id", Long.toString(guildId));
+        message.set("author", user(authorId, name, false));
+        // Discord sends the author's member without its user
+        ObjectNode member = member(authorId, name, false);
+        member.remove("user");
+        message.set("member", member);
+        message.put("content", withContent ? "Chat message " + sequence + " from " + name : "");
+        message.set("embeds", json.createArrayNode());
+        message.set("components", json.createArrayNode());
+        message.put("timestamp", timestamp());
+        message.putNull("edited_timestamp");
+        message.put("tts", false);
+        message.put("mention_everyone", false);
+        message.set("mentions", json.createArrayNode());
+        message.set("mention_roles", json.createArrayNode());
+        message.set("attachments", json.createArrayNode());
+        message.put("pinned", false);
+        message.put("flags", 0);
+        return message;
+    }
+
+    // --- Entities ---
+
+    public ObjectNode user(long id, String name, boolean bot) {
+        ObjectNode user = json.createObjectNode();
+        user.put("id", Long.toString(id));
+        user.put("username", name);
+        user.put("discriminator", "0000");
+        user.putNull("global_name");
+        user.putNull("avatar");
+        user.put("bot", bot);
+        user.put("system", false);
+        user.put("public_flags", 0);
+        user.put("flags", 0);
+        return user;
+    }
+
+    /** @return The bot user, as returned by GET /users/@me and in READY */
+    public ObjectNode selfUser() {
+        ObjectNode user = user(botUserId, "StatusBot", true);
+        user.put("verified", true);
+        user.put("mfa_enabled", false);
+        return user;
+    }
+
+    public ObjectNode channel(long id) {
+        ObjectNode channel = json.createObjectNode();
+        channel.put("id", Long.toString(id));
+        channel.put("type", id == voiceChannelId ? 2 : 0);
+        channel.put("guild_id", Long.toString(guildId));
+        channel.put("name", id == statusChannelId ? statusChannelName : id == logChannelId ? "logs" : id == chatChannelId ? "general" : "Voice");
+        channel.put("position", id == statusChannelId ? 0 : id == logChannelId ? 1 : id == chatChannelId ? 2 : 3);
+        if (id == voiceChannelId) {
+            channel.put("bitrate", 64000);
+            channel.put("user_limit", 0);
+            channel.putNull("rtc_region");
+            channel.put("video_quality_mode", 1);
+        }
+        channel.set("permission_overwrites", json.createArrayNode());
+        channel.putNull("topic");
+        channel.put("nsfw", false);
+        channel.putNull("last_message_id");
+        channel.put("rate_limit_per_user", 0);
+        channel.putNull("parent_id");
+        channel.put("flags", 0);
+        return channel;
+    }
+
+    private ObjectNode role(long id, String name, long permissions, int position) {
+        ObjectNode role = json.createObjectNode();
+        role.put("id", Long.toString(id));
+        role.put("name", name);
+        role.put("color", 0);
+        ObjectNode colors = role.putObject("colors");
+        colors.put("primary_color", 0);
+        colors.putNull("secondary_color");
+        colors.putNull("tertiary_color");
+        role.put("hoist", false);
+        role.putNull("icon");
+        role.putNull("unicode_emoji");
+        role.put("position", position);
+        role.put("permissions", Long.toString(permissions));
+        role.put("managed", false);
+        role.put("mentionable", false);
+        role.put("flags", 0);
+        return role;
+    }
+
+    public ObjectNode member(long userId, String name, boolean bot, long... roleIds) {
+        ObjectNode member = json.createObjectNode();
+        member.set("user", user(userId, name, bot));
+        ArrayNode roles = member.putArray("roles");
+        for (long roleId : roleIds) {
+            roles.add(Long.toString(roleId));
+        }
+        member.putNull("nick");
+        member.putNull("avatar");
+        member.put("joined_at", "2024-01-01T00:00:00.000000+00:00");
+        member.put("deaf", false);
+        member.put("mute", false);
+        member.put("flags", 0);
+        member.put("pending", false);
+        return member;
+    }
+
+    /** @return The member that invokes the synthetic slash commands */
+    public ObjectNode adminMember() {
+        ObjectNode member = member(adminUserId, "LoadTester", false, adminRoleId);
+        member.put("permissions", "8");
+        return member;
+    }
+
+    /**
+     * Builds the GUILD_CREATE dispatch sent after READY. Like Discord, it leaves out what the
+     * intents of the client do not cover.
+     *
+     * @param intents The intents the client identified with
+     * @return The data of the dispatch
+     */
+    public ObjectNode guildCreate(long intents) {
+        ObjectNode guild = json.createObjectNode();
+        guild.put("id", Long.toString(guildId));
+        guild.put("name", "Load Test");
+        guild.putNull("icon");
+        guild.putNull("splash");
+        guild.putNull("discovery_splash");
+        guild.put("owner_id", Long.toString(adminUserId));
+        guild.putNull("afk_channel_id");
+        guild.put("afk_timeout", 300);
+        guild.put("verification_level", 0);
+        guild.put("default_message_notifications", 0);
+        guild.put("explicit_content_filter", 0);
+        guild.put("mfa_level", 0);
+        guild.put("nsfw_level", 0);
+        guild.putNull("application_id");
+        guild.putNull("system_channel_id");
+        guild.put("system_channel_flags", 0);
+        guild.putNull("rules_channel_id");
+        guild.putNull("public_updates_channel_id");
+        guild.putNull("safety_alerts_channel_id");
+        guild.put("max_members", 500000);
+        guild.putNull("vanity_url_code");
+        guild.putNull("description");
+        guild.putNull("banner");
+        guild.put("premium_tier", 0);
+        guild.put("premium_subscription_count", 0);
+        guild.put("premium_progress_bar_enabled", false);
+        guild.put("preferred_locale", "en-US");
+        guild.put("max_video_channel_users", 25);
+        guild.set("features", json.createArrayNode());
+        boolean expressions = hasIntent(intents, INTENT_GUILD_EXPRESSIONS);
+        ArrayNode emojiArray = guild.putArray("emojis");
+        for (int i = 0; expressions && i < size.emojis(); i++) {
+            ObjectNode emoji = emojiArray.addObject();
+            emoji.put("id", Long.toString(nextSnowflake()));
+            emoji.put("name", "emoji_" + i);
+            emoji.set("roles", json.createArrayNode());
+            emoji.put("require_colons", true);
+            emoji.put("managed", false);
+            emoji.put("animated", false);
+            emoji.put("available", true);
+        }
+        ArrayNode stickers = guild.putArray("stickers");
+        for (int i = 0; expressions && i < size.stickers(); i++) {
+            ObjectNode sticker = stickers.addObject();
+            sticker.put("id", Long.toString(nextSnowflake()));
+            sticker.put("name", "sticker_" + i);
+            sticker.put("tags", "load");
+            sticker.put("type", 2);
+            sticker.put("format_type", 1);
+            sticker.put("description", "Sticker " + i + " of the load test guild");
+            sticker.put("available", true);
+            sticker.put("guild_id", Long.toString(guildId));
+        }
+        guild.put("joined_at", "2024-01-01T00:00:00.000000+00:00");
+        guild.put("large", size.members() + 2 > 250);
+        guild.put("unavailable", false);
+        guild.put("member_count", size.members() + 2);
+
+        ArrayNode roles = guild.putArray("roles");
+        roles.add(role(guildId, "@everyone", 104324673L, 0));
+        roles.add(role(adminRoleId, "Status Admin", 8L, 1));
+
+        ArrayNode members = guild.putArray("members");
+        members.add(member(botUserId, "StatusBot", true));
+        members.add(member(adminUserId, "LoadTester", false, adminRoleId));
+        for (int i = 0; i < memberIds.length; i++) {
+            members.add(member(memberIds[i], "Member " + i, false));
+        }
+
+        ArrayNode channels = guild.putArray("channels");
+        channels.add(channel(statusChannelId));
+        channels.add(channel(logChannelId));
+        channels.add(channel(chatChannelId));
+        channels.add(channel(voiceChannelId));
+
+        guild.set("threads", json.createArrayNode());
+        ArrayNode voiceStates = guild.putArray("voice_states");
+        for (int i = 0; hasIntent(intents, INTENT_GUILD_VOICE_STATES) && i < size.voiceMembers(); i++) {
+            ObjectNode voiceState = voiceStates.addObject();
+            voiceState.put("channel_id", Long.toString(voiceChannelId));
+            voiceState.put("user_id", Long.toString(memberIds[i]));
+            voiceState.put("session_id", "voice-session-" + i);
+            voiceState.put("deaf", false);
+            voiceState.put("mute", false);
+            voiceState.put("self_deaf", false);
+            voiceState.put("self_mute", i % 2 == 0);
+            voiceState.put("self_video", false);
+            voiceState.put("suppress", false);
+            voiceState.putNull("request_to_speak_timestamp");
+        }
+        guild.set("presences", json.createArrayNode());
+        guild.set("stage_instances", json.createArrayNode());
+        ArrayNode events = guild.putArray("guild_scheduled_events");
+        for (int i = 0; hasIntent(intents, INTENT_GUILD_SCHEDULED_EVENTS) && i < size.scheduledEvents(); i++) {
+            ObjectNode event = events.addObject();
+            event.put("id", Long.toString(nextSnowflake()));
+            event.put("guild_id", Long.toString(guildId));
+            event.put("channel_id", Long.toString(voiceChannelId));
+            event.put("creator_id", Long.toString(adminUserId));
+            event.put("name", "Maintenance window " + i);
+            event.put("description", "Planned maintenance " + i + " of the load test services");
+            event.put("scheduled_start_time", "2030-01-01T00:00:00.000000+00:00");
+            event.putNull("scheduled_end_time");
+            event.put("privacy_level", 2);
+            event.put("status", 1);
+            event.put("entity_type", 2);
+            event.putNull("entity_id");
+            event.putNull("entity_metadata");
+            event.put("user_count", i);
+            event.putNull("image");
+            event.putNull("recurrence_rule");
+        }
+        guild.set("soundboard_sounds", json.createArrayNode());
+        return guild;
+    }
+
+    // --- Intents ---
+
+    /**
+     * @param intents The intents a client identified with
+     * @param offset The bit of an intent, see the INTENT_ constants
+     * @return Whether the intents include it
+     */
+    public static boolean hasIntent(long intents, int offset) {
+        return (intents & (1L << offset)) != 0;
+    }
+}
@@ -0,0 +1,371 @@
+package dev.soncresityindustries.StatusBot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal Discord gateway on localhost. It speaks just enough of the WebSocket protocol and
+ * gateway opcodes for JDA to log in: HELLO, IDENTIFY, READY with a single guild, heartbeats and
+ * member chunks. Synthetic slash commands are sent as INTERACTION_CREATE dispatches, chat in the
+ * guild as MESSAGE_CREATE dispatches if the intents of the client ask for it.
+ * Payloads are plain JSON, so JDA must be configured without gateway compression.
+ *
+ * @author SkyKing_PX
+ */
+public class FakeGateway {
+
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int HEARTBEAT_INTERVAL = 41250;
+
+    private final FakeDiscord discord;
+    private final ServerSocket serverSocket;
+    private final Map<Socket, Session> sessions = new ConcurrentHashMap<>();
+    private final CountDownLatch guildSent = new CountDownLatch(1);
+    private volatile Session current;
+
+    public FakeGateway(FakeDiscord discord) throws IOException {
+        this.discord = discord;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    public void start() {
+        Thread.ofVirtual().name("FakeGateway").start(this::acceptLoop);
+    }
+
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {}
+        for (Socket socket : sessions.keySet()) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /** @return The URL JDA connects to */
+    public String getUrl() {
+        return "ws://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    /**
+     * Waits until a client identified and received the guild.
+     *
+     * @return Whether the guild was sent in time
+     */
+    public boolean awaitGuild(long timeout, TimeUnit unit) throws InterruptedException {
+        return guildSent.await(timeout, unit);
+    }
+
+    /**
+     * Sends a slash command to the connected client as if the administrator invoked it.
+     *
+     * @param interactionId The ID of the interaction
+     * @param subcommand The subcommand of /status
+     * @param options The string options of the subcommand
+     */
+    public void dispatchStatusCommand(long interactionId, String subcommand, Map<String, String> options) throws IOException {
+        Session session = current;
+        if (session == null) throw new IOException("No client connected to the gateway");
+
+        ObjectNode interaction = discord.getJson().createObjectNode();
+        interaction.put("id", Long.toString(interactionId));
+        interaction.put("application_id", Long.toString(discord.getBotUserId()));
+        interaction.put("type", 2);
+        interaction.put("token", "fake-token-" + interactionId);
+        interaction.put("version", 1);
+        interaction.put("guild_id", Long.toString(discord.getGuildId()));
+        // JDA resolves the guild of an interaction from this partial guild, not from guild_id
+        ObjectNode guild = interaction.putObject("guild");
+        guild.put("id", Long.toString(discord.getGuildId()));
+        guild.put("locale", "en-US");
+        guild.putArray("features");
+        interaction.put("channel_id", Long.toString(discord.getLogChannelId()));
+        interaction.set("channel", discord.channel(discord.getLogChannelId()));
+        interaction.set("member", discord.adminMember());
+        interaction.put("app_permissions", "8");
+        interaction.put("locale", "en-US");
+        interaction.put("guild_locale", "en-US");
+        interaction.put("context", 0);
+        interaction.set("entitlements", discord.getJson().createArrayNode());
+        interaction.putObject("authorizing_integration_owners").put("0", Long.toString(discord.getGuildId()));
+
+        ObjectNode data = interaction.putObject("data");
+        data.put("id", Long.toString(discord.getBotUserId() + 1));
+        data.put("name", "status");
+        data.put("type", 1);
+        data.put("guild_id", Long.toString(discord.getGuildId()));
+        ObjectNode sub = data.putArray("options").addObject();
+        sub.put("name", subcommand);
+        sub.put("type", 1);
+        ArrayNode subOptions = sub.putArray("options");
+        options.forEach((name, value) -> {
+            ObjectNode option = subOptions.addObject();
+            option.put("name", name);
+            option.put("type", 3);
+            option.put("value", value);
+        });
+
+        session.dispatch("INTERACTION_CREATE", interaction);
+    }
+
+    /**
+     * Sends a message of a member in the chat channel to the connected client, unless it identified
+     * without the guild messages intent and Discord would not send it either.
+     *
+     * @param sequence Number of the message
+     * @return Whether the message was sent
+     */
+    public boolean dispatchChatMessage(long sequence) throws IOException {
+        Session session = current;
+        if (session == null) throw new IOException("No client connected to the gateway");
+        if (!FakeDiscord.hasIntent(session.intents, FakeDiscord.INTENT_GUILD_MESSAGES)) return false;
+
+        session.dispatch("MESSAGE_CREATE", discord.chatMessage(sequence, FakeDiscord.hasIntent(session.intents, FakeDiscord.INTENT_MESSAGE_CONTENT)));
+        return true;
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Session session = new Session(socket);
+                sessions.put(socket, session);
+                Thread.ofVirtual().name("FakeGateway-session").start(session::run);
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Fake gateway failed to accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * One WebSocket connection and its gateway session.
+     */
+    private class Session {
+        private final Socket socket;
+        private final AtomicInteger sequence = new AtomicInteger();
+        private OutputStream out;
+        /** Intents sent with IDENTIFY */
+        private volatile long intents;
+
+        private Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        private void run() {
+            try (socket) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = socket.getOutputStream();
+                handshake(in);
+                send(payload(10, discord.getJson().createObjectNode().put("heartbeat_interval", HEARTBEAT_INTERVAL)));
+
+                String message;
+                while ((message = readMessage(in)) != null) {
+                    onPayload(discord.getJson().readTree(message));
+                }
+            } catch (IOException e) {
+                // Client disconnected
+            } finally {
+                sessions.remove(socket);
+                if (current == this) current = null;
+            }
+        }
+
+        private void onPayload(JsonNode payload) throws IOException {
+            switch (payload.path("op").asInt(-1)) {
+                case 1 -> send(payload(11, null));
+                case 2 -> {
+                    intents = payload.path("d").path("intents").asLong();
+                    send(dispatchPayload("READY", ready()));
+                    send(dispatchPayload("GUILD_CREATE", discord.guildCreate(intents)));
+                    current = this;
+                    guildSent.countDown();
+                }
+                case 6 -> send(payload(9, BooleanNode.FALSE));
+                case 8 -> {
+                    ObjectNode chunk = discord.getJson().createObjectNode();
+                    chunk.put("guild_id", Long.toString(discord.getGuildId()));
+                    chunk.putArray("members").add(discord.member(discord.getBotUserId(), "StatusBot", true));
+                    chunk.put("chunk_index", 0);
+                    chunk.put("chunk_count", 1);
+                    JsonNode nonce = payload.path("d").get("nonce");
+                    if (nonce != null) chunk.set("nonce", nonce);
+                    send(dispatchPayload("GUILD_MEMBERS_CHUNK", chunk));
+                }
+                default -> {
+                    // Presence updates and other opcodes need no answer
+                }
+            }
+        }
+
+        private ObjectNode ready() {
+            ObjectNode ready = discord.getJson().createObjectNode();
+            ready.put("v", 10);
+            ready.set("user", discord.selfUser());
+            ObjectNode guild = ready.putArray("guilds").addObject();
+            guild.put("id", Long.toString(discord.getGuildId()));
+            guild.put("unavailable", true);
+            ready.put("session_id", "fake-session");
+            ready.put("resume_gateway_url", getUrl());
+            ready.putArray("shard").add(0).add(1);
+            ObjectNode application = ready.putObject("application");
+            application.put("id", Long.toString(discord.getBotUserId()));
+            application.put("flags", 0);
+            ready.set("private_channels", discord.getJson().createArrayNode());
+            ready.set("presences", discord.getJson().createArrayNode());
+            ready.set("relationships", discord.getJson().createArrayNode());
+            ready.set("guild_join_requests", discord.getJson().createArrayNode());
+            ready.putArray("_trace").add("fake-gateway");
+            return ready;
+        }
+
+        private void dispatch(String type, JsonNode data) throws IOException {
+            send(dispatchPayload(type, data));
+        }
+
+        private ObjectNode payload(int op, JsonNode data) {
+            ObjectNode payload = discord.getJson().createObjectNode();
+            payload.put("op", op);
+            payload.set("d", data);
+            payload.putNull("s");
+            payload.putNull("t");
+            return payload;
+        }
+
+        private ObjectNode dispatchPayload(String type, JsonNode data) {
+            ObjectNode payload = payload(0, data);
+            payload.put("s", sequence.incrementAndGet());
+            payload.put("t", type);
+            return payload;
+        }
+
+        // --- WebSocket framing (RFC 6455) ---
+
+        private void handshake(DataInputStream in) throws IOException {
+            String key = null;
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                    key = line.substring(colon + 1).trim();
+                }
+            }
+            if (key == null) throw new IOException("Not a WebSocket upgrade request");
+
+            String accept;
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII));
+                accept = Base64.getEncoder().encodeToString(digest);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+
+            String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n";
+            synchronized (this) {
+                out.write(response.getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+            }
+        }
+
+        /**
+         * Reads the next text message, answering pings and reassembling fragments.
+         *
+         * @return The message, or null once the client closed the connection
+         */
+        private String readMessage(DataInputStream in) throws IOException {
+            ByteArrayOutputStream message = new ByteArrayOutputStream();
+            while (true) {
+                int first = in.readUnsignedByte();
+                int second = in.readUnsignedByte();
+                boolean fin = (first & 0x80) != 0;
+                int opcode = first & 0x0F;
+
+                long length = second & 0x7F;
+                if (length == 126) length = in.readUnsignedShort();
+                else if (length == 127) length = in.readLong();
+
+                byte[] mask = new byte[4];
+                if ((second & 0x80) != 0) in.readFully(mask);
+                byte[] data = new byte[(int) length];
+                in.readFully(data);
+                for (int i = 0; i < data.length; i++) {
+                    data[i] ^= mask[i % 4];
+                }
+
+                switch (opcode) {
+                    case 0x8 -> {
+                        writeFrame(0x8, data);
+                        return null;
+                    }
+                    case 0x9 -> writeFrame(0xA, data);
+                    case 0xA -> {
+                        // Pong, nothing to do
+                    }
+                    default -> {
+                        message.write(data);
+                        if (fin) return message.toString(StandardCharsets.UTF_8);
+                    }
+                }
+            }
+        }
+
+        private void send(JsonNode payload) throws IOException {
+            writeFrame(0x1, discord.getJson().writeValueAsBytes(payload));
+        }
+
+        private synchronized void writeFrame(int opcode, byte[] data) throws IOException {
+            out.write(0x80 | opcode);
+            if (data.length < 126) {
+                out.write(data.length);
+            } else if (data.length <= 0xFFFF) {
+                out.write(126);
+                out.write(data.length >>> 8);
+                out.write(data.length);
+            } else {
+                out.write(127);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    out.write((int) ((long) data.length >>> shift));
+                }
+            }
+            out.write(data);
+            out.flush();
+        }
+
+        private String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '\n') break;
+                if (c != '\r') line.append((char) c);
+            }
+            return c == -1 && line.isEmpty() ? null : line.toString();
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package dev.soncresityindustries.StatusBot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the parts of Discord's REST API the bot uses, on localhost.
+ * Every response is delayed by the configured latency and carries Discord's rate limit headers;
+ * requests over a bucket's limit are answered with 429 like Discord does.
+ *
+ * @author SkyKing_PX
+ */
+public class FakeRestServer {
+
+    private static final String PREFIX = "/api/v10/";
+
+    private final FakeDiscord discord;
+    private final RateLimiter rateLimiter;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Route> routes;
+
+    public FakeRestServer(FakeDiscord discord, RateLimiter rateLimiter) throws IOException {
+        this.discord = discord;
+        this.rateLimiter = rateLimiter;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.routes = List.of(
+                new Route("GET", "gateway(?:/bot)?", "GET gateway", false, this::gateway),
+                new Route("GET", "users/@me", "GET users/@me", false, (m, body) -> ok(discord.selfUser())),
+                new Route("PUT", "applications/(\\d+)/commands", "PUT applications/{id}/commands", true, (m, body) -> ok(discord.getJson().createArrayNode())),
+                new Route("GET", "channels/(\\d+)", "GET channels/{id}", true, (m, body) -> ok(discord.channel(Long.parseLong(m.group(1))))),
+                new Route("PATCH", "channels/(\\d+)", "PATCH channels/{id}", true, this::renameChannel),
+                new Route("GET", "channels/(\\d+)/messages", "GET channels/{id}/messages", true, this::getHistory),
+                new Route("POST", "channels/(\\d+)/messages", "POST channels/{id}/messages", true, this::createMessage),
+                new Route("POST", "channels/(\\d+)/messages/bulk-delete", "POST channels/{id}/messages/bulk-delete", true, (m, body) -> noContent()),
+                new Route("POST", "channels/(\\d+)/messages/(\\d+)/crosspost", "POST channels/{id}/messages/{id}/crosspost", true, this::getMessage),
+                new Route("GET", "channels/(\\d+)/messages/(\\d+)", "GET channels/{id}/messages/{id}", true, this::getMessage),
+                new Route("PATCH", "channels/(\\d+)/messages/(\\d+)", "PATCH channels/{id}/messages/{id}", true, this::editMessage),
+                new Route("DELETE", "channels/(\\d+)/messages/(\\d+)", "DELETE channels/{id}/messages/{id}", true, this::deleteMessage),
+                // Interaction responses are not rate limited by Discord
+                new Route("POST", "interactions/(\\d+)/([^/]+)/callback", "POST interactions/{id}/{token}/callback", false, this::acknowledge),
+                new Route("POST", "webhooks/(\\d+)/([^/]+)", "POST webhooks/{id}/{token}", true, this::followUp),
+                new Route("PATCH", "webhooks/(\\d+)/([^/]+)/messages/([^/]+)", "PATCH webhooks/{id}/{token}/messages/{id}", true, this::followUp),
+                new Route("DELETE", "webhooks/(\\d+)/([^/]+)/messages/([^/]+)", "DELETE webhooks/{id}/{token}/messages/{id}", true, (m, body) -> noContent()));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /** @return The base URL to configure JDA with */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PREFIX;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            delay();
+
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            path = path.startsWith(PREFIX) ? path.substring(PREFIX.length()) : path;
+            String rawBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+            for (Route route : routes) {
+                Matcher matcher = route.match(method, path);
+                if (matcher == null) continue;
+
+                discord.getStats().recordRequest(route.name());
+                if (route.limited()) {
+                    String bucket = route.name() + " " + majorParameter(route, matcher);
+                    RateLimiter.Decision decision = rateLimiter.acquire(bucket, route.name().equals("PATCH channels/{id}"));
+                    writeRateLimitHeaders(exchange, decision);
+                    if (!decision.allowed()) {
+                        discord.getStats().recordRateLimited();
+                        writeRateLimited(exchange, decision);
+                        return;
+                    }
+                }
+
+                ObjectNode body = parseBody(exchange, rawBody);
+                if (isStatusChannelMessage(route, matcher)) {
+                    discord.getStats().recordStatusMessage(rawBody);
+                }
+                Response response = route.handler().handle(matcher, body);
+                write(exchange, response.status(), response.body());
+                return;
+            }
+
+            discord.getStats().recordRequest("UNKNOWN " + method + " " + path);
+            discord.getStats().recordUnknownRoute();
+            write(exchange, 404, error("404: Not Found", 0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            write(exchange, 500, error(String.valueOf(e.getMessage()), 0));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // --- Routes ---
+
+    private Response gateway(Matcher matcher, ObjectNode body) {
+        ObjectNode gateway = discord.getJson().createObjectNode();
+        gateway.put("url", discord.getGatewayUrl());
+        gateway.put("shards", 1);
+        ObjectNode limit = gateway.putObject("session_start_limit");
+        limit.put("total", 1000);
+        limit.put("remaining", 1000);
+        limit.put("reset_after", 0);
+        limit.put("max_concurrency", 1);
+        return ok(gateway);
+    }
+
+    private Response renameChannel(Matcher matcher, ObjectNode body) {
+        long channelId = Long.parseLong(matcher.group(1));
+        if (channelId == discord.getStatusChannelId() && body.hasNonNull("name")) {
+            discord.renameStatusChannel(body.get("name").asText());
+        }
+        return ok(discord.channel(channelId));
+    }
+
+    private Response getHistory(Matcher matcher, ObjectNode body) {
+        return ok(discord.getHistory(Long.parseLong(matcher.group(1)), 100));
+    }
+
+    private Response createMessage(Matcher matcher, ObjectNode body) {
+        return ok(discord.createMessage(Long.parseLong(matcher.group(1)), body));
+    }
+
+    private Response getMessage(Matcher matcher, ObjectNode body) {
+        ObjectNode message = discord.getMessage(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)));
+        if (message == null) return unknownMessage();
+        synchronized (message) {
+            return ok(message.deepCopy());
+        }
+    }
+
+    private Response editMessage(Matcher matcher, ObjectNode body) {
+        ObjectNode message = discord.editMessage(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), body);
+        return message != null ? ok(message) : unknownMessage();
+    }
+
+    private Response deleteMessage(Matcher matcher, ObjectNode body) {
+        return discord.deleteMessage(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))) ? noContent() : unknownMessage();
+    }
+
+    private Response acknowledge(Matcher matcher, ObjectNode body) {
+        discord.getStats().recordAck(Long.parseLong(matcher.group(1)));
+        return noContent();
+    }
+
+    /**
+     * Follow-up messages of interactions are not kept, they never show up in the status channel.
+     */
+    private Response followUp(Matcher matcher, ObjectNode body) {
+        ObjectNode message = discord.createMessage(discord.getLogChannelId(), body);
+        discord.deleteMessage(discord.getLogChannelId(), message.get("id").asLong());
+        message.put("webhook_id", matcher.group(1));
+        return ok(message);
+    }
+
+    // --- Helpers ---
+
+    private boolean isStatusChannelMessage(Route route, Matcher matcher) {
+        return (route.name().equals("POST channels/{id}/messages") || route.name().equals("PATCH channels/{id}/messages/{id}"))
+                && Long.parseLong(matcher.group(1)) == discord.getStatusChannelId();
+    }
+
+    private void delay() throws InterruptedException {
+        RateLimiter.Limits limits = rateLimiter.getLimits();
+        long delay = limits.latencyMillis() + (limits.jitterMillis() > 0 ? ThreadLocalRandom.current().nextLong(limits.jitterMillis() + 1) : 0);
+        if (delay > 0) Thread.sleep(delay);
+    }
+
+    /**
+     * Reads a JSON body, or the payload_json part of a multipart body.
+     */
+    private ObjectNode parseBody(HttpExchange exchange, String rawBody) throws IOException {
+        if (rawBody.isBlank()) return discord.getJson().createObjectNode();
+
+        String contentType = String.valueOf(exchange.getRequestHeaders().getFirst("Content-Type"));
+        String json = rawBody;
+        if (contentType.startsWith("multipart/form-data")) {
+            int part = rawBody.indexOf("name=\"payload_json\"");
+            if (part < 0) return discord.getJson().createObjectNode();
+            int start = rawBody.indexOf("\r\n\r\n", part) + 4;
+            int end = rawBody.indexOf("\r\n--", start);
+            json = rawBody.substring(start, end < 0 ? rawBody.length() : end);
+        }
+
+        JsonNode node = discord.getJson().readTree(json);
+        return node instanceof ObjectNode object ? object : discord.getJson().createObjectNode();
+    }
+
+    private void writeRateLimitHeaders(HttpExchange exchange, RateLimiter.Decision decision) {
+        double resetAfter = decision.resetAfterMillis() / 1000.0;
+        var headers = exchange.getResponseHeaders();
+        headers.set("X-RateLimit-Limit", Integer.toString(decision.limit()));
+        headers.set("X-RateLimit-Remaining", Integer.toString(Math.max(0, decision.remaining())));
+        headers.set("X-RateLimit-Reset", String.format(Locale.ROOT, "%.3f", System.currentTimeMillis() / 1000.0 + resetAfter));
+        headers.set("X-RateLimit-Reset-After", String.format(Locale.ROOT, "%.3f", resetAfter));
+        headers.set("X-RateLimit-Bucket", decision.bucket());
+    }
+
+    private void writeRateLimited(HttpExchange exchange, RateLimiter.Decision decision) throws IOException {
+        double retryAfter = decision.resetAfterMillis() / 1000.0;
+        var headers = exchange.getResponseHeaders();
+        headers.set("Retry-After", Long.toString((long) Math.ceil(retryAfter)));
+        headers.set("X-RateLimit-Scope", decision.global() ? "global" : "user");
+        if (decision.global()) headers.set("X-RateLimit-Global", "true");
+
+        ObjectNode body = discord.getJson().createObjectNode();
+        body.put("message", "You are being rate limited.");
+        body.put("retry_after", retryAfter);
+        body.put("global", decision.global());
+        write(exchange, 429, body);
+    }
+
+    private void write(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = discord.getJson().writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private ObjectNode error(String message, int code) {
+        ObjectNode error = discord.getJson().createObjectNode();
+        error.put("message", message);
+        error.put("code", code);
+        return error;
+    }
+
+    private static Response ok(JsonNode body) {
+        return new Response(200, body);
+    }
+
+    private static Response noContent() {
+        return new Response(204, null);
+    }
+
+    private Response unknownMessage() {
+        return new Response(404, error("Unknown Message", 10008));
+    }
+
+    private record Response(int status, JsonNode body) {
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(Matcher matcher, ObjectNode body) throws IOException;
+    }
+
+    /**
+     * @return The part of the path that separates the buckets of a route: the ID of the channel, or of a
+     *         webhook together with its token, since every interaction token has its own webhook buckets
+     */
+    private static String majorParameter(Route route, Matcher matcher) {
+        if (matcher.groupCount() == 0) return "";
+        if (route.name().contains("webhooks/") && matcher.groupCount() >= 2) return matcher.group(1) + "/" + matcher.group(2);
+        return matcher.group(1);
+    }
+
+    /**
+     * A REST route: method, path pattern, name used for statistics and buckets, and whether it is rate limited.
+     */
+    private record Route(String method, Pattern pattern, String name, boolean limited, Handler handler) {
+        private Route(String method, String pattern, String name, boolean limited, Handler handler) {
+            this(method, Pattern.compile(pattern), name, limited, handler);
+        }
+
+        private Matcher match(String requestMethod, String path) {
+            if (!method.equals(requestMethod)) return null;
+            Matcher matcher = pattern.matcher(path);
+            return matcher.matches() ? matcher : null;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package dev.soncresityindustries.StatusBot.loadtest;
+
+import dev.soncresityindustries.StatusBot.Bot;
+import dev.soncresityindustries.StatusBot.storage.GuildTenants;
+import dev.soncresityindustries.StatusBot.storage.Service;
+import dev.soncresityindustries.StatusBot.storage.Severity;
+import dev.soncresityindustries.StatusBot.storage.StatusStorage;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.api.utils.ConcurrentSessionController;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the bot against a {@link FakeDiscord} and fires synthetic {@code /status update} commands at it,
+ * then reports the update-to-visible latency and the REST calls needed per update.
+ * <p>
+ * Run with {@code ./gradlew loadTest -PloadTestArgs="--commands 5000 --rate 200"}. The bot's files
+ * (config.yml, guilds/&lt;id&gt;/status.json, ...) are written to the working directory, {@code build/loadtest}.
+ * <p>
+ * To compare the heap of the startup profiles, run once with {@code --profile lean} and once with
+ * {@code --profile default} against a populated guild, e.g. {@code --members 5000 --emojis 200
+ * --stickers 60 --events 50 --voice-members 500 --chat-rate 50}. The chat messages are sent while the
+ * commands run, to clients whose intents include guild messages.
+ *
+ * @author SkyKing_PX
+ */
+public class LoadGenerator {
+
+    private static final String[] STATUSES = {
+            Severity.DEGRADED.getKey(), Severity.OPERATIONAL.getKey(), Severity.MAJOR_OUTAGE.getKey(), Severity.PARTIAL_OUTAGE.getKey()
+    };
+
+    /**
+     * Options of a load test run.
+     */
+    private record Options(int commands, double rate, int services, RateLimiter.Limits limits,
+                           long debounceMillis, long maxLatencyMillis, boolean editInPlace, long timeoutSeconds,
+                           String profile, FakeDiscord.GuildSize guild, double chatRate) {
+
+        private static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < args.length; i++) {
+                if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Expected --option value, got: " + args[i]);
+                }
+                values.put(args[i].substring(2), args[++i]);
+            }
+
+            Options options = new Options(
+                    integer(values, "commands", 1000),
+                    Double.parseDouble(string(values, "rate", "100")),
+                    integer(values, "services", 50),
+                    new RateLimiter.Limits(
+                            integer(values, "bucket-limit", 5),
+                            integer(values, "bucket-window-ms", 5000),
+                            integer(values, "rename-limit", 2),
+                            integer(values, "rename-window-ms", 600_000),
+                            integer(values, "global-limit", 50),
+                            integer(values, "latency-ms", 40),
+                            integer(values, "jitter-ms", 20)),
+                    integer(values, "debounce-ms", 2000),
+                    integer(values, "max-latency-ms", 10000),
+                    Boolean.parseBoolean(string(values, "edit-in-place", "true")),
+                    integer(values, "timeout-s", 120),
+                    string(values, "profile", "lean"),
+                    new FakeDiscord.GuildSize(
+                            integer(values, "members", 0),
+                            integer(values, "emojis", 0),
+                            integer(values, "stickers", 0),
+                            integer(values, "events", 0),
+                            integer(values, "voice-members", 0)),
+                    Double.parseDouble(string(values, "chat-rate", "0")));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + values.keySet());
+            }
+            return options;
+        }
+
+        /** Reads and removes an option, so leftovers can be reported as unknown */
+        private static String string(Map<String, String> values, String name, String defaultValue) {
+            String value = values.remove(name);
+            return value != null ? value : defaultValue;
+        }
+
+        private static int integer(Map<String, String> values, String name, int defaultValue) {
+            return Integer.parseInt(string(values, name, Integer.toString(defaultValue)));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        FakeDiscord discord = new FakeDiscord(options.limits());
+        discord.setGuildSize(options.guild());
+        discord.start();
+        writeConfig(discord, options);
+
+        JDA jda = Bot.createBuilder("fake-token")
+                .setRestConfig(new RestConfig().setBaseUrl(discord.getRestBaseUrl()))
+                .setCompression(Compression.NONE)
+                .setSessionController(new ConcurrentSessionController() {
+                    // A single JDA instance takes its gateway URL from the session controller, not from GET /gateway
+                    @Override
+                    public String getGateway() {
+                        return discord.getGatewayUrl();
+                    }
+                })
+                .build();
+        int exitCode = 1;
+        try {
+            if (!discord.getGateway().awaitGuild(30, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("The bot did not log in to the fake gateway");
+            }
+            CompletableFuture.runAsync(() -> {
+                try {
+                    jda.awaitReady();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }).get(30, TimeUnit.SECONDS);
+
+            String[] serviceIds = seed(jda, Long.toString(discord.getGuildId()), options.services());
+            awaitQuiet(discord, options.debounceMillis() + 2000);
+            discord.getStats().reset();
+            long startupHeap = usedHeapAfterGc();
+
+            System.out.println("Dispatching " + options.commands() + " commands at " + options.rate() + "/s to " + serviceIds.length + " services...");
+            long started = System.nanoTime();
+            Chat chat = Chat.start(discord, options.chatRate());
+            Map<String, Long> lastSequence = run(discord, options, serviceIds);
+            awaitVisible(discord, lastSequence, options.timeoutSeconds());
+            long chatMessages = chat.stop();
+            long elapsed = System.nanoTime() - started;
+
+            System.out.println();
+            System.out.print(discord.getStats().report(options.commands(), elapsed));
+            System.out.println("Status messages in channel: " + discord.getStatusMessageCount());
+            System.out.println("Chat messages sent to the bot: " + chatMessages);
+            Guild guild = jda.getGuildById(discord.getGuildId());
+            System.out.printf("Cached by the bot: %d members, %d voice states, %d emojis, %d stickers, %d scheduled events%n",
+                    guild.getMemberCache().size(), guild.getVoiceStates().size(), guild.getEmojiCache().size(),
+                    guild.getStickerCache().size(), guild.getScheduledEventCache().size());
+            System.out.printf(Locale.ROOT, "Heap in use with the %s profile (after GC): %.1f MiB after startup, %.1f MiB after the run%n",
+                    options.profile(), startupHeap / 1048576.0, usedHeapAfterGc() / 1048576.0);
+            exitCode = 0;
+        } finally {
+            jda.shutdownNow();
+            GuildTenants.getInstance().close();
+            discord.stop();
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Adds the services the commands update, in trees of ten.
+     */
+    private static String[] seed(JDA jda, String guildId, int count) throws IOException {
+        StatusStorage storage = GuildTenants.getInstance().get(guildId);
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "load-service-" + i;
+            String parentId = i % 10 == 0 ? null : ids[i - i % 10];
+            if (storage.getService(ids[i]) == null) {
+                storage.addService(new Service("Load Service " + i, ids[i], Severity.OPERATIONAL, "", "Seeded", parentId), jda);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Dispatches the commands at the configured rate, round-robin over the services.
+     *
+     * @return The sequence number of the last command per service
+     */
+    private static Map<String, Long> run(FakeDiscord discord, Options options, String[] serviceIds) throws IOException {
+        Map<String, Long> lastSequence = new LinkedHashMap<>();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(0.001, options.rate()));
+        long next = System.nanoTime();
+
+        for (long sequence = 0; sequence < options.commands(); sequence++) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            next += intervalNanos;
+
+            String serviceId = serviceIds[(int) (sequence % serviceIds.length)];
+            Map<String, String> commandOptions = new LinkedHashMap<>();
+            commandOptions.put("serviceid", serviceId);
+            commandOptions.put("status", STATUSES[(int) (sequence / serviceIds.length % STATUSES.length)]);
+            commandOptions.put("description", LoadStats.marker(sequence));
+
+            long interactionId = discord.nextSnowflake();
+            discord.getStats().recordDispatch(sequence, interactionId);
+            discord.getGateway().dispatchStatusCommand(interactionId, "update", commandOptions);
+            lastSequence.put(serviceId, sequence);
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Sends chat messages of the guild's members at a steady rate on a virtual thread.
+     */
+    private static final class Chat {
+        private final AtomicLong sent = new AtomicLong();
+        private volatile boolean running = true;
+        private Thread thread;
+
+        /**
+         * @param rate Messages per second, 0 to send none
+         */
+        private static Chat start(FakeDiscord discord, double rate) {
+            Chat chat = new Chat();
+            if (rate > 0) {
+                chat.thread = Thread.ofVirtual().name("LoadGenerator-chat").start(() -> chat.send(discord, rate));
+            }
+            return chat;
+        }
+
+        private void send(FakeDiscord discord, double rate) {
+            long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            long next = System.nanoTime();
+            for (long sequence = 0; running; sequence++) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+                next += intervalNanos;
+                try {
+                    // A client without the guild messages intent gets none, like from Discord
+                    if (!discord.getGateway().dispatchChatMessage(sequence)) return;
+                    sent.incrementAndGet();
+                } catch (IOException e) {
+                    System.err.println("Failed to send a chat message: " + e.getMessage());
+                    return;
+                }
+            }
+        }
+
+        /** @return Number of messages sent */
+        private long stop() throws InterruptedException {
+            running = false;
+            if (thread != null) thread.join();
+            return sent.get();
+        }
+    }
+
+    /**
+     * Waits until the final update of every service is visible. Earlier updates may never be,
+     * if a later one to the same service arrived before the status channel was refreshed.
+     */
+    private static void awaitVisible(FakeDiscord discord, Map<String, Long> lastSequence, long timeoutSeconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (System.nanoTime() < deadline) {
+            if (lastSequence.values().stream().allMatch(discord.getStats()::isVisible)) return;
+            Thread.sleep(100);
+        }
+        System.out.println("Timed out waiting for all updates to become visible");
+    }
+
+    /**
+     * Waits until no REST request was made for a while, e.g. after seeding.
+     */
+    private static void awaitQuiet(FakeDiscord discord, long quietMillis) throws InterruptedException {
+        long lastCount = -1;
+        long quietSince = System.nanoTime();
+        while (System.nanoTime() - quietSince < TimeUnit.MILLISECONDS.toNanos(quietMillis)) {
+            long count = discord.getStats().getTotalRequests();
+            if (count != lastCount) {
+                lastCount = count;
+                quietSince = System.nanoTime();
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    /**
+     * Measures the heap the bot retains. The harness itself is included, but is the same for every profile.
+     */
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Writes the config.yml the bot reads, pointing it at the fake guild.
+     */
+    private static void writeConfig(FakeDiscord discord, Options options) throws IOException {
+        String config = """
+                bot:
+                  token: "fake-token"
+                  activity: "Load test"
+                  administratorRoleIDs: ["%d"]
+                  profile: "%s"
+
+                guilds:
+                  "%d":
+                    statusChannelId: "%d"
+
+                status:
+                  operationalChannelName: "operational"
+                  partialOutageChannelName: "partial-outage"
+                  majorOutageChannelName: "major-outage"
+                  maintenanceChannelName: "maintenance"
+                  editInPlace: %b
+                  renameLimit: %d
+                  renameWindowSeconds: %d
+                  showUptime: false
+
+                refresh:
+                  debounceMillis: %d
+                  maxLatencyMillis: %d
+
+                storage:
+                  compactionThreshold: 500
+                  snapshotGenerations: 3
+
+                healthChecks:
+                  enabled: false
+
+                metrics:
+                  enabled: false
+
+                logging:
+                  logChannelId: "%d"
+                  fatalLogChannelId: "%d"
+
+                embeds:
+                  defaultColor: "#2073cb"
+                  successColor: "#00ff33"
+                  errorColor: "#ff0000"
+                  warningColor: "#ff9900"
+                  infoColor: "#ffcc33"
+                  footerText: "SI: Status Bot | Load test"
+                """.formatted(discord.getAdminRoleId(), options.profile(), discord.getGuildId(), discord.getStatusChannelId(), options.editInPlace(),
+                options.limits().renameLimit(), options.limits().renameWindowMillis() / 1000,
+                options.debounceMillis(), options.maxLatencyMillis(), discord.getLogChannelId(), discord.getLogChannelId());
+        Files.writeString(Path.of("config.yml"), config);
+    }
+}
@@ -0,0 +1,162 @@
+package dev.soncresityindustries.StatusBot.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects what the fake Discord observed during a load test.
+ * Every synthetic command writes a unique marker into the description of a service; the time from
+ * dispatching the command until the marker first shows up in a status channel message is the
+ * update-to-visible latency.
+ *
+ * @author SkyKing_PX
+ */
+public class LoadStats {
+
+    private static final Pattern MARKER = Pattern.compile("load-(\\d+)\\b");
+
+    private final Map<String, LongAdder> requestsByRoute = new ConcurrentSkipListMap<>();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder unknownRoutes = new LongAdder();
+
+    private final Map<Long, Long> dispatchedAt = new ConcurrentHashMap<>();
+    private final Map<Long, Long> visibleAt = new ConcurrentHashMap<>();
+    private final Map<Long, Long> interactionDispatchedAt = new ConcurrentHashMap<>();
+    private final Map<Long, Long> interactionAckedAt = new ConcurrentHashMap<>();
+
+    /**
+     * @param sequence The number of a synthetic command
+     * @return The marker the command writes into a service description
+     */
+    public static String marker(long sequence) {
+        return "load-" + sequence;
+    }
+
+    public void recordRequest(String route) {
+        requestsByRoute.computeIfAbsent(route, key -> new LongAdder()).increment();
+    }
+
+    public void recordRateLimited() {
+        rateLimited.increment();
+    }
+
+    public void recordUnknownRoute() {
+        unknownRoutes.increment();
+    }
+
+    /**
+     * Records that a synthetic command was sent over the gateway.
+     */
+    public void recordDispatch(long sequence, long interactionId) {
+        long now = System.nanoTime();
+        dispatchedAt.put(sequence, now);
+        interactionDispatchedAt.put(interactionId, now);
+    }
+
+    /**
+     * Records that the bot acknowledged an interaction.
+     */
+    public void recordAck(long interactionId) {
+        interactionAckedAt.putIfAbsent(interactionId, System.nanoTime());
+    }
+
+    /**
+     * Records the markers contained in a message sent to or edited in the status channel.
+     *
+     * @param body The request body
+     */
+    public void recordStatusMessage(String body) {
+        long now = System.nanoTime();
+        Matcher matcher = MARKER.matcher(body);
+        while (matcher.find()) {
+            visibleAt.putIfAbsent(Long.parseLong(matcher.group(1)), now);
+        }
+    }
+
+    /**
+     * Forgets everything recorded so far, e.g. the requests made while seeding services.
+     */
+    public void reset() {
+        requestsByRoute.clear();
+        rateLimited.reset();
+        unknownRoutes.reset();
+        dispatchedAt.clear();
+        visibleAt.clear();
+        interactionDispatchedAt.clear();
+        interactionAckedAt.clear();
+    }
+
+    /** @return Whether the marker of a command reached the status channel */
+    public boolean isVisible(long sequence) {
+        return visibleAt.containsKey(sequence);
+    }
+
+    /** @return Number of dispatched commands whose marker reached the status channel */
+    public int getVisibleCount() {
+        int visible = 0;
+        for (Long sequence : dispatchedAt.keySet()) {
+            if (visibleAt.containsKey(sequence)) visible++;
+        }
+        return visible;
+    }
+
+    public long getTotalRequests() {
+        return requestsByRoute.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Summarizes the run.
+     *
+     * @param commands Number of commands dispatched
+     * @param elapsedNanos Time from the first dispatch until the run ended
+     * @return A human-readable report
+     */
+    public String report(int commands, long elapsedNanos) {
+        StringBuilder out = new StringBuilder();
+        double seconds = (double) elapsedNanos / TimeUnit.SECONDS.toNanos(1);
+        out.append(String.format(Locale.ROOT, "Commands dispatched: %d in %.1fs (%.1f/s)%n", commands, seconds, commands / seconds));
+        out.append(String.format(Locale.ROOT, "Commands acknowledged: %d%n", interactionAckedAt.size()));
+        out.append(String.format(Locale.ROOT, "Updates visible: %d%n", getVisibleCount()));
+        out.append("Update-to-visible latency (ms): ").append(describe(latencies(dispatchedAt, visibleAt))).append('\n');
+        out.append("Acknowledge latency (ms):       ").append(describe(latencies(interactionDispatchedAt, interactionAckedAt))).append('\n');
+
+        long total = getTotalRequests();
+        out.append(String.format(Locale.ROOT, "REST requests: %d (%.2f per update), rate limited: %d, unknown routes: %d%n",
+                total, commands > 0 ? (double) total / commands : 0, rateLimited.sum(), unknownRoutes.sum()));
+        requestsByRoute.forEach((route, count) ->
+                out.append(String.format(Locale.ROOT, "  %-48s %8d (%.2f per update)%n", route, count.sum(),
+                        commands > 0 ? (double) count.sum() / commands : 0)));
+        return out.toString();
+    }
+
+    private static long[] latencies(Map<Long, Long> start, Map<Long, Long> end) {
+        List<Long> values = new ArrayList<>();
+        start.forEach((key, startedAt) -> {
+            Long endedAt = end.get(key);
+            if (endedAt != null) values.add(TimeUnit.NANOSECONDS.toMillis(endedAt - startedAt));
+        });
+        long[] sorted = values.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static String describe(long[] sorted) {
+        if (sorted.length == 0) return "no samples";
+        return String.format(Locale.ROOT, "p50 %d, p90 %d, p99 %d, max %d",
+                percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99), sorted[sorted.length - 1]);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
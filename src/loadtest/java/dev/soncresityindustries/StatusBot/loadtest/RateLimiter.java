@@ -0,0 +1,94 @@
+package dev.soncresityindustries.StatusBot.loadtest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emulates Discord's per-route rate limits: every bucket allows a number of requests per window,
+ * and answers with the same headers Discord sends, so JDA's rate limiter reacts as it would in production.
+ * A global limit across all buckets can be added on top.
+ *
+ * @author SkyKing_PX
+ */
+public class RateLimiter {
+
+    /**
+     * Rate limits and latency of the fake REST API.
+     *
+     * @param bucketLimit Requests allowed per bucket and window
+     * @param bucketWindowMillis Length of a bucket window
+     * @param renameLimit Channel renames allowed per window
+     * @param renameWindowMillis Length of the channel rename window
+     * @param globalLimit Requests allowed per second across all buckets, 0 for no global limit
+     * @param latencyMillis Time every response is delayed by
+     * @param jitterMillis Random additional delay of up to this many milliseconds
+     */
+    public record Limits(int bucketLimit, long bucketWindowMillis, int renameLimit, long renameWindowMillis,
+                         int globalLimit, long latencyMillis, long jitterMillis) {
+    }
+
+    /**
+     * The verdict for a request.
+     *
+     * @param allowed Whether the request may be served
+     * @param bucket The hash of the bucket, sent as X-RateLimit-Bucket
+     * @param limit Requests allowed in the window
+     * @param remaining Requests left in the window after this one
+     * @param resetAfterMillis Time until the window resets
+     * @param global Whether the global limit was hit
+     */
+    public record Decision(boolean allowed, String bucket, int limit, int remaining, long resetAfterMillis, boolean global) {
+    }
+
+    private final Limits limits;
+    private final Map<String, Window> buckets = new ConcurrentHashMap<>();
+    private final Window global = new Window();
+
+    public RateLimiter(Limits limits) {
+        this.limits = limits;
+    }
+
+    public Limits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Counts a request against its bucket.
+     *
+     * @param bucket The bucket of the route and its major parameter, e.g. "POST channels/123/messages"
+     * @param rename Whether the request renames a channel, which has its own, much lower limit
+     * @return Whether the request may be served, with the rate limit headers to send
+     */
+    public Decision acquire(String bucket, boolean rename) {
+        long now = System.currentTimeMillis();
+        if (limits.globalLimit() > 0) {
+            Decision decision = global.acquire("global", limits.globalLimit(), 1000, now);
+            if (!decision.allowed()) {
+                return new Decision(false, decision.bucket(), decision.limit(), 0, decision.resetAfterMillis(), true);
+            }
+        }
+
+        int limit = rename ? limits.renameLimit() : limits.bucketLimit();
+        long window = rename ? limits.renameWindowMillis() : limits.bucketWindowMillis();
+        String hash = Integer.toHexString(bucket.hashCode());
+        return buckets.computeIfAbsent(bucket, key -> new Window()).acquire(hash, limit, window, now);
+    }
+
+    /**
+     * A fixed window of requests, like Discord's buckets.
+     */
+    private static class Window {
+        private long resetAt;
+        private int used;
+
+        private synchronized Decision acquire(String hash, int limit, long windowMillis, long now) {
+            if (now >= resetAt) {
+                resetAt = now + windowMillis;
+                used = 0;
+            }
+            boolean allowed = used < limit;
+            if (allowed) used++;
+            return new Decision(allowed, hash, limit, limit - used, resetAt - now, false);
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package dev.soncresityindustries.StatusBot;
 
+import dev.soncresityindustries.StatusBot.command.AdminAuthorizer;
 import dev.soncresityindustries.StatusBot.command.StatusCommand;
+import dev.soncresityindustries.StatusBot.metrics.MetricsListener;
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import dev.soncresityindustries.StatusBot.metrics.MetricsServer;
+import dev.soncresityindustries.StatusBot.storage.GuildTenants;
+import dev.soncresityindustries.StatusBot.util.LogShipper;
 import dev.soncresityindustries.StatusBot.util.LogUtils;
-import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.OnlineStatus;
 import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
 
 import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class Bot {
     /**
@@ -16,6 +28,26 @@ public class Bot {
      */
     public static final String VERSION = "1.0.0";
 
+    /**
+     * Gateway intents and caches of a startup profile, shared by the single and the sharded builder.
+     *
+     * @param light Whether the profile starts from a light builder with no member cache, no chunking and no optional caches
+     * @param intents Gateway intents enabled on top of the defaults of the builder
+     * @param cache Optional caches enabled on top of the defaults of the builder
+     */
+    private record Profile(boolean light, Set<GatewayIntent> intents, Set<CacheFlag> cache) {
+
+        /** Emojis stay cached, with the intent keeping them current, for {@code MessageHandler.parseEmojis} */
+        private static final Profile LEAN = new Profile(true,
+                EnumSet.of(GatewayIntent.GUILD_EXPRESSIONS), EnumSet.of(CacheFlag.EMOJI));
+        private static final Profile DEFAULT = new Profile(false,
+                EnumSet.of(GatewayIntent.MESSAGE_CONTENT), EnumSet.noneOf(CacheFlag.class));
+
+        private static Profile of(String name) {
+            return "lean".equalsIgnoreCase(name) ? LEAN : DEFAULT;
+        }
+    }
+
     /**
      * Main entry point for the application.
      * Initializes storage, configures JDA, and registers all event listeners.
@@ -24,6 +56,70 @@ public class Bot {
      * @throws Exception If any error occurs during initialization
      */
     public static void main(String[] args) throws Exception {
+        startMetricsServer();
+        // Send log embeds still waiting for the next batch before exiting
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> LogShipper.getInstance().shutdown(), "LogShipperShutdown"));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> GuildTenants.getInstance().close(), "StorageShutdown"));
+
+        try {
+            ConfigWatcher.getInstance().start();
+        } catch (IOException e) {
+            LogUtils.logException("Error watching config file, changes need a restart", e);
+        }
+
+        Profile profile = Profile.of(getProfile());
+        LogUtils.logInfo("Startup profile", getProfile() + ", extra intents " + profile.intents() + ", extra caches " + profile.cache());
+        ShardManager shards = createShardManagerBuilder(Config.get().getBot().getToken()).build();
+        LogUtils.logInfo("Starting shards", String.valueOf(shards.getShardsTotal()));
+    }
+
+    /**
+     * Configures a single JDA instance with the listeners, intents and presence of the bot, without connecting yet.
+     * The bot itself runs sharded; a single instance is used by the load test.
+     *
+     * @param token The bot token
+     * @return The configured builder
+     */
+    public static JDABuilder createBuilder(String token) {
+        return createProfile(token, getProfile())
+                .addEventListeners(createListeners())
+                .setActivity(Activity.playing(getActivity()))
+                .setStatus(OnlineStatus.ONLINE);
+    }
+
+    /**
+     * Configures the shard manager with the listeners, intents and presence of the bot, without connecting yet.
+     * All shards share the listeners. {@code bot.shards} sets the number of shards, 0 uses the number Discord recommends.
+     *
+     * @param token The bot token
+     * @return The configured builder
+     */
+    public static DefaultShardManagerBuilder createShardManagerBuilder(String token) {
+        int shardsTotal = 0;
+        try {
+            shardsTotal = Config.get().getBot().getShards();
+        } catch (IOException e) {
+            LogUtils.logException("Error loading shard count from Config, using the recommended count", e);
+        }
+
+        return createShardedProfile(token, getProfile())
+                .addEventListeners(createListeners())
+                .setShardsTotal(shardsTotal > 0 ? shardsTotal : -1)
+                .setActivity(Activity.playing(getActivity()))
+                .setStatus(OnlineStatus.ONLINE);
+    }
+
+    private static Object[] createListeners() {
+        return new Object[]{
+                new StatusCommand(),
+                AdminAuthorizer.getInstance(),
+                ShardRouter.getInstance(),
+                new Listener(),
+                new MetricsListener()
+        };
+    }
+
+    private static String getActivity() {
         String activity = "Incorrect Configuration";
         try {
             activity = Config.get().getBot().getActivity();
@@ -31,14 +127,82 @@ public class Bot {
         } catch (IOException e) {
             LogUtils.logException("Error loading Activity from Config. It may be corrupted", e);
         }
+        return activity;
+    }
+
+    /**
+     * Creates the builder for a startup profile.
+     * The default profile caches what JDA caches by default and receives message content.
+     * The lean profile only keeps the guild, channel, role and emoji caches: the bot handles slash commands,
+     * whose payload carries the invoking member and its roles, and sends to channels it looks up by ID.
+     * It caches no members, does not chunk and disables every other optional cache; the emoji cache and
+     * the expressions intent it needs stay, so {@code MessageHandler.parseEmojis} keeps working.
+     *
+     * @param token The bot token
+     * @param name "lean" or "default"
+     * @return The builder, without listeners
+     */
+    private static JDABuilder createProfile(String token, String name) {
+        Profile profile = Profile.of(name);
+        if (profile.light()) {
+            return JDABuilder.createLight(token, profile.intents())
+                    .setMemberCachePolicy(MemberCachePolicy.NONE)
+                    .setChunkingFilter(ChunkingFilter.NONE)
+                    .disableCache(EnumSet.complementOf(EnumSet.copyOf(profile.cache())))
+                    .enableCache(profile.cache());
+        }
+        return JDABuilder.createDefault(token)
+                .enableIntents(profile.intents())
+                .enableCache(profile.cache());
+    }
+
+    /**
+     * Creates the shard manager builder for a startup profile, with the same intents and caches as {@link #createProfile}.
+     *
+     * @param token The bot token
+     * @param name "lean" or "default"
+     * @return The builder, without listeners
+     */
+    private static DefaultShardManagerBuilder createShardedProfile(String token, String name) {
+        Profile profile = Profile.of(name);
+        if (profile.light()) {
+            return DefaultShardManagerBuilder.createLight(token, profile.intents())
+                    .setMemberCachePolicy(MemberCachePolicy.NONE)
+                    .setChunkingFilter(ChunkingFilter.NONE)
+                    .disableCache(EnumSet.complementOf(EnumSet.copyOf(profile.cache())))
+                    .enableCache(profile.cache());
+        }
+        return DefaultShardManagerBuilder.createDefault(token)
+                .enableIntents(profile.intents())
+                .enableCache(profile.cache());
+    }
+
+    /**
+     * @return The configured startup profile, "default" if none is configured
+     */
+    public static String getProfile() {
+        try {
+            String profile = Config.get().getBot().getProfile();
+            return profile != null ? profile : "default";
+        } catch (IOException e) {
+            return "default";
+        }
+    }
 
-        JDA api = JDABuilder.createDefault(Config.get().getBot().getToken())
-                .addEventListeners(
-                        new StatusCommand(),
-                        new Listener())
-                .enableIntents(GatewayIntent.MESSAGE_CONTENT)
-                .setActivity(Activity.playing(activity))
-                .setStatus(OnlineStatus.ONLINE)
-                .build();
+    /**
+     * Starts the Prometheus metrics endpoint if it is enabled.
+     * A failure to bind is logged but does not stop the bot.
+     */
+    private static void startMetricsServer() {
+        try {
+            Config.Metrics config = Config.get().getMetrics();
+            if (config == null || !config.isEnabled()) return;
+
+            MetricsServer server = new MetricsServer(config.getBindAddress(), config.getPort(), MetricsRegistry.getInstance());
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "MetricsServerShutdown"));
+        } catch (IOException e) {
+            LogUtils.logException("Error starting metrics server", e);
+        }
     }
 }
@@ -0,0 +1,189 @@
+package dev.soncresityindustries.StatusBot;
+
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the status channel name while staying within Discord's rename rate limit.
+ * Discord only allows a couple of channel renames every 10 minutes, so renames are tracked
+ * in a sliding window. Requests for the name the channel already has are skipped, and while
+ * throttled only the latest requested name is kept, so the channel jumps straight to the
+ * current status once the window opens instead of replaying every intermediate one.
+ *
+ * @author SkyKing_PX
+ */
+public class ChannelNameController {
+
+    private static final Map<String, ChannelNameController> controllers = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ChannelRename");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String channelId;
+    /** Start times of the renames within the current window, oldest first */
+    private final ArrayDeque<Long> renameTimes = new ArrayDeque<>();
+
+    private GuildChannel channel;
+    private String appliedName;
+    private String pendingName;
+    private boolean inFlight;
+    private ScheduledFuture<?> scheduledRename;
+    private long throttledUntil;
+
+    private long appliedRenames;
+    private long skippedRenames;
+    private long supersededRenames;
+    private long failedRenames;
+
+    private ChannelNameController(String channelId) {
+        this.channelId = channelId;
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("statusbot_channel_rename_pending", "Whether a channel rename is waiting for the rate limit",
+                () -> getPendingName() != null ? 1 : 0, "channel", channelId);
+        metrics.gauge("statusbot_channel_rename_delay_seconds", "Time until the next channel rename is allowed",
+                () -> getThrottleDelayMillis() / 1000.0, "channel", channelId);
+        metrics.counter("statusbot_channel_renames_total", "Channel renames applied", this::getAppliedRenames, "channel", channelId);
+        metrics.counter("statusbot_channel_renames_superseded_total", "Channel renames replaced by a newer name before being applied",
+                this::getSupersededRenames, "channel", channelId);
+    }
+
+    /**
+     * Gets the controller for a channel.
+     *
+     * @param channelId The ID of the channel
+     * @return The controller, created on first use
+     */
+    public static ChannelNameController forChannel(String channelId) {
+        return controllers.computeIfAbsent(channelId, ChannelNameController::new);
+    }
+
+    /**
+     * Requests the channel to be renamed.
+     * The rename is applied right away if the rate limit allows it, otherwise once the window opens.
+     *
+     * @param channel The channel to rename
+     * @param name The desired name
+     */
+    public synchronized void requestName(GuildChannel channel, String name) {
+        this.channel = channel;
+        if (appliedName == null) {
+            appliedName = channel.getName();
+        }
+
+        if (pendingName != null && !pendingName.equals(name)) {
+            supersededRenames++;
+        }
+
+        if (name.equals(appliedName) && !inFlight) {
+            // Already there, possibly after a throttled rename was superseded by the original name
+            pendingName = null;
+            cancelScheduledRename();
+            skippedRenames++;
+            return;
+        }
+
+        pendingName = name;
+        if (!inFlight && scheduledRename == null) {
+            applyOrSchedule();
+        }
+    }
+
+    private synchronized void applyOrSchedule() {
+        scheduledRename = null;
+        if (inFlight || pendingName == null) return;
+        if (pendingName.equals(appliedName)) {
+            pendingName = null;
+            return;
+        }
+
+        Config.Status config = getStatusConfig();
+        long now = System.nanoTime();
+        long window = TimeUnit.SECONDS.toNanos(config.getRenameWindowSeconds());
+        while (!renameTimes.isEmpty() && now - renameTimes.peekFirst() >= window) {
+            renameTimes.pollFirst();
+        }
+
+        if (renameTimes.size() >= Math.max(1, config.getRenameLimit())) {
+            long delay = renameTimes.peekFirst() + window - now;
+            throttledUntil = now + delay;
+            scheduledRename = executor.schedule(this::applyOrSchedule, delay, TimeUnit.NANOSECONDS);
+            LogUtils.logDebug("Channel rename throttled", pendingName + " in " + TimeUnit.NANOSECONDS.toSeconds(delay) + "s");
+            return;
+        }
+
+        String name = pendingName;
+        GuildChannel target = channel;
+        pendingName = null;
+        inFlight = true;
+        throttledUntil = 0;
+        renameTimes.addLast(now);
+
+        OutboundScheduler.getInstance().submit(OutboundScheduler.Priority.RENAME, OutboundScheduler.Route.MODIFY_CHANNEL,
+                channelId, "rename:" + channelId, target.getManager().setName(name)).whenComplete((v, e) -> {
+            synchronized (this) {
+                inFlight = false;
+                if (e != null) {
+                    failedRenames++;
+                    // The next refresh requests the name again
+                    LogUtils.logException("Error renaming status channel to " + name, e);
+                } else {
+                    appliedName = name;
+                    appliedRenames++;
+                }
+                if (pendingName != null) {
+                    applyOrSchedule();
+                }
+            }
+        });
+    }
+
+    private void cancelScheduledRename() {
+        if (scheduledRename != null) {
+            scheduledRename.cancel(false);
+            scheduledRename = null;
+            throttledUntil = 0;
+        }
+    }
+
+    private static Config.Status getStatusConfig() {
+        try {
+            return Config.get().getStatus();
+        } catch (Exception e) {
+            return new Config.Status();
+        }
+    }
+
+    // --- Metrics ---
+
+    public String getChannelId() { return channelId; }
+    /** @return Name the channel was last renamed to, or its name when first seen */
+    public synchronized String getAppliedName() { return appliedName; }
+    /** @return Name waiting to be applied, or null if the channel is up to date */
+    public synchronized String getPendingName() { return pendingName; }
+    /** @return Whether a rename request is currently on its way to Discord */
+    public synchronized boolean isInFlight() { return inFlight; }
+    /** @return Milliseconds until the pending name can be applied, or 0 if not throttled */
+    public synchronized long getThrottleDelayMillis() {
+        return throttledUntil == 0 ? 0 : Math.max(0, TimeUnit.NANOSECONDS.toMillis(throttledUntil - System.nanoTime()));
+    }
+    /** @return Number of renames applied */
+    public synchronized long getAppliedRenames() { return appliedRenames; }
+    /** @return Number of requests skipped because the channel already had the name */
+    public synchronized long getSkippedRenames() { return skippedRenames; }
+    /** @return Number of pending names replaced by a newer one before being applied */
+    public synchronized long getSupersededRenames() { return supersededRenames; }
+    /** @return Number of renames rejected by Discord */
+    public synchronized long getFailedRenames() { return failedRenames; }
+}
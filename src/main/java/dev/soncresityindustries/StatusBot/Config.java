@@ -5,16 +5,30 @@ import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
 
+import java.awt.Color;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Configuration management class for the PhoenixBot application.
  * Uses YAML format for configuration storage with automatic default generation.
  * Implements singleton pattern for global configuration access.
+ * <p>
+ * Every load produces a new instance that is validated before it is published, so readers always
+ * see one complete configuration. Published instances are snapshots and must not be modified; the
+ * setters only exist for the YAML binding. Values derived from the configuration are recomputed by
+ * reload listeners instead of on every read.
  * 
  * @author SkyKing_PX
  */
@@ -22,7 +36,9 @@ public class Config {
     /** Path to the configuration file */
     private static final Path CONFIG_PATH = Paths.get("config.yml");
     /** Singleton instance of the configuration */
-    private static Config instance;
+    private static volatile Config instance;
+    /** Called with every newly published configuration */
+    private static final List<Consumer<Config>> reloadListeners = new CopyOnWriteArrayList<>();
 
     /** Bot configuration settings */
     private Bot bot;
@@ -30,8 +46,18 @@ public class Config {
     private Logging logging;
     /** Status configuration */
     private Status status;
+    /** Guilds the bot publishes statuses in, keyed by guild ID */
+    private Map<String, Guild> guilds = new LinkedHashMap<>();
     /** Embed system configuration */
     private Embeds embeds;
+    /** Status refresh configuration */
+    private Refresh refresh = new Refresh();
+    /** Status storage configuration */
+    private Storage storage = new Storage();
+    /** Health check configuration */
+    private HealthChecks healthChecks = new HealthChecks();
+    /** Metrics endpoint configuration */
+    private Metrics metrics = new Metrics();
 
     /**
      * Gets the singleton instance of the configuration.
@@ -41,11 +67,29 @@ public class Config {
      * @throws IOException If there is an error loading the configuration file
      */
     public static Config get() throws IOException {
-        if (instance == null) {
-            instance = new Config();
-            instance.load();
+        Config config = instance;
+        if (config == null) {
+            synchronized (Config.class) {
+                if (instance == null) {
+                    instance = parse();
+                }
+                config = instance;
+            }
         }
-        return instance;
+        return config;
+    }
+
+    /**
+     * Loads and validates a new configuration without publishing it.
+     *
+     * @return The configuration
+     * @throws IOException If the file cannot be read or the configuration is invalid
+     */
+    private static Config parse() throws IOException {
+        Config config = new Config();
+        config.load();
+        config.validate();
+        return config;
     }
 
     /**
@@ -68,19 +112,137 @@ public class Config {
             this.bot = loaded.bot;
             this.logging = loaded.logging;
             this.status = loaded.status;
+            this.guilds = loaded.guilds;
             this.embeds = loaded.embeds;
+            this.refresh = loaded.refresh;
+            this.storage = loaded.storage;
+            this.healthChecks = loaded.healthChecks;
+            this.metrics = loaded.metrics;
         }
     }
 
     /**
      * Reloads the configuration from the YAML file.
-     * Creates a new instance and replaces the current singleton.
+     * Creates a new instance and replaces the current singleton once it loaded and validated,
+     * then notifies the reload listeners. An invalid file leaves the current configuration in place.
      * 
-     * @throws IOException If there is an error loading the configuration file
+     * @throws IOException If there is an error loading the configuration file, or it is invalid
      */
     public static void reload() throws IOException {
-        instance = new Config();
-        instance.load();
+        Config config = parse();
+        synchronized (Config.class) {
+            instance = config;
+        }
+        LogUtils.logConfig("Reloaded configuration from: " + CONFIG_PATH.toAbsolutePath());
+
+        for (Consumer<Config> listener : reloadListeners) {
+            try {
+                listener.accept(config);
+            } catch (RuntimeException e) {
+                LogUtils.logException("Error applying reloaded configuration", e);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener for configuration reloads.
+     * The listener is called with the current configuration right away, and with every reloaded one.
+     *
+     * @param listener Recomputes values derived from the configuration
+     */
+    public static void addReloadListener(Consumer<Config> listener) {
+        reloadListeners.add(listener);
+        try {
+            listener.accept(get());
+        } catch (IOException e) {
+            LogUtils.logException("Error loading configuration", e);
+        }
+    }
+
+    /** @return Path of the configuration file */
+    static Path getPath() {
+        return CONFIG_PATH;
+    }
+
+    /**
+     * Checks the values that would otherwise only fail once they are used.
+     *
+     * @throws IOException Listing every problem found
+     */
+    private void validate() throws IOException {
+        List<String> problems = new ArrayList<>();
+
+        if (bot == null) problems.add("bot section is missing");
+        else {
+            if (bot.getToken() == null || bot.getToken().isBlank()) problems.add("bot.token is empty");
+            if (bot.getProfile() != null && !bot.getProfile().equalsIgnoreCase("lean") && !bot.getProfile().equalsIgnoreCase("default")) {
+                problems.add("bot.profile must be \"lean\" or \"default\"");
+            }
+            if (bot.getShards() < 0) problems.add("bot.shards must not be negative");
+        }
+
+        if (status == null) problems.add("status section is missing");
+        else {
+            if (status.getRenameLimit() < 1) problems.add("status.renameLimit must be at least 1");
+            if (status.getRenameWindowSeconds() < 0) problems.add("status.renameWindowSeconds must not be negative");
+        }
+
+        if (guilds == null) guilds = new LinkedHashMap<>();
+        for (Map.Entry<String, Guild> entry : guilds.entrySet()) {
+            if (!entry.getKey().matches("\\d{1,20}")) problems.add("guilds key " + entry.getKey() + " is not a guild ID");
+            else if (entry.getValue() == null || entry.getValue().getStatusChannelId() == null) {
+                problems.add("guilds." + entry.getKey() + ".statusChannelId is missing");
+            }
+        }
+        if (guilds.isEmpty() && (bot == null || bot.getGuild_id() == null || status == null || status.getStatusChannelId() == null)) {
+            problems.add("no guild is configured, add one to the guilds section");
+        }
+
+        if (logging == null) problems.add("logging section is missing");
+        else {
+            if (logging.getQueueCapacity() < 1) problems.add("logging.queueCapacity must be at least 1");
+            if (logging.getFlushIntervalMillis() < 1) problems.add("logging.flushIntervalMillis must be positive");
+        }
+
+        if (embeds == null) problems.add("embeds section is missing");
+        else {
+            checkColor(problems, "defaultColor", embeds.getDefaultColor());
+            checkColor(problems, "successColor", embeds.getSuccessColor());
+            checkColor(problems, "errorColor", embeds.getErrorColor());
+            checkColor(problems, "warningColor", embeds.getWarningColor());
+            checkColor(problems, "infoColor", embeds.getInfoColor());
+        }
+
+        if (refresh == null) problems.add("refresh section is empty");
+        else if (refresh.getDebounceMillis() < 0 || refresh.getMaxLatencyMillis() < 0) problems.add("refresh delays must not be negative");
+
+        if (storage == null) problems.add("storage section is empty");
+        else {
+            if (storage.getCompactionThreshold() < 1) problems.add("storage.compactionThreshold must be at least 1");
+            if (storage.getSnapshotGenerations() < 0) problems.add("storage.snapshotGenerations must not be negative");
+            if (storage.getTenantDirectory() == null || storage.getTenantDirectory().isBlank()) problems.add("storage.tenantDirectory is empty");
+            if (storage.getTenantIdleMinutes() < 1) problems.add("storage.tenantIdleMinutes must be at least 1");
+        }
+
+        if (healthChecks == null) problems.add("healthChecks section is empty");
+        else if (healthChecks.getIntervalSeconds() < 1 || healthChecks.getTimeoutMillis() < 1 || healthChecks.getMaxConcurrency() < 1) {
+            problems.add("healthChecks interval, timeout and concurrency must be positive");
+        }
+
+        if (metrics == null) problems.add("metrics section is empty");
+        else if (metrics.getPort() < 0 || metrics.getPort() > 65535) problems.add("metrics.port is not a valid port");
+
+        if (!problems.isEmpty()) {
+            throw new IOException("Invalid configuration: " + String.join("; ", problems));
+        }
+    }
+
+    private static void checkColor(List<String> problems, String name, String value) {
+        try {
+            Color.decode(value);
+        } catch (RuntimeException e) {
+            problems.add("embeds." + name + " is not a valid color: " + value);
+        }
     }
 
     /**
@@ -94,18 +256,58 @@ public class Config {
               token: "YOUR_BOT_TOKEN"
               activity: ""
               administratorRoleIDs: ["DISCORD_ROLE_ID"]
-              guild_id: "0000000000000000000"
+              permissionCacheSeconds: 30
+              profile: "lean"
+              shards: 0
             
+            guilds:
+              "0000000000000000000":
+                statusChannelId: "0000000000000000000"
+
             status:
-              statusChannelId: "0000000000000000000"
               operationalChannelName: "「🟢」status"
               partialOutageChannelName: "「🟡」status"
               majorOutageChannelName: "「🔴」status"
               maintenanceChannelName: "「🔵」status"
+              editInPlace: true
+              renameLimit: 2
+              renameWindowSeconds: 600
+              showUptime: false
+
+            refresh:
+              debounceMillis: 2000
+              maxLatencyMillis: 10000
+
+            storage:
+              compactionThreshold: 500
+              snapshotGenerations: 3
+              tenantDirectory: "guilds"
+              tenantIdleMinutes: 30
+
+            healthChecks:
+              enabled: false
+              intervalSeconds: 30
+              timeoutMillis: 5000
+              maxConcurrency: 256
+              maxConnectionsPerRoute: 4
+              failureThreshold: 3
+              recoveryThreshold: 2
+              degradedLatencyMillis: 2000
+              flapPenalty: 1000
+              flapSuppressThreshold: 3000
+              flapReuseThreshold: 750
+              flapHalfLifeSeconds: 300
+
+            metrics:
+              enabled: false
+              bindAddress: "127.0.0.1"
+              port: 9400
 
             logging:
               logChannelId: "0000000000000000000"
               fatalLogChannelId: "0000000000000000000"
+              queueCapacity: 1000
+              flushIntervalMillis: 2000
             
             embeds:
               defaultColor: "#2073cb"
@@ -137,11 +339,64 @@ public class Config {
     /** @param status Logging configuration to set */
     public void setStatus(Status status) { this.status = status; }
 
+    /** @return Guilds the bot publishes statuses in, keyed by guild ID */
+    public Map<String, Guild> getGuilds() { return guilds; }
+    /** @param guilds Guilds the bot publishes statuses in, keyed by guild ID */
+    public void setGuilds(Map<String, Guild> guilds) { this.guilds = guilds; }
+
+    /**
+     * Gets the IDs of all configured guilds, including the one of the single-guild settings.
+     *
+     * @return The guild IDs in configuration order
+     */
+    public Set<String> getGuildIds() {
+        Set<String> guildIds = new LinkedHashSet<>(guilds.keySet());
+        if (bot.getGuild_id() != null && status.getStatusChannelId() != null) {
+            guildIds.add(bot.getGuild_id());
+        }
+        return guildIds;
+    }
+
+    /**
+     * Gets the status channel of a guild.
+     * Falls back to {@code status.statusChannelId} for the guild in {@code bot.guild_id}, the settings
+     * of configurations written before the bot served several guilds.
+     *
+     * @param guildId The ID of the guild
+     * @return The channel ID, or null if the guild is not configured
+     */
+    public String getStatusChannelId(String guildId) {
+        Guild guild = guilds.get(guildId);
+        if (guild != null) return guild.getStatusChannelId();
+        if (guildId != null && guildId.equals(bot.getGuild_id())) return status.getStatusChannelId();
+        return null;
+    }
+
     /** @return Embed system configuration */
     public Embeds getEmbeds() { return embeds; }
     /** @param embeds Embed configuration to set */
     public void setEmbeds(Embeds embeds) { this.embeds = embeds; }
 
+    /** @return Status refresh configuration */
+    public Refresh getRefresh() { return refresh; }
+    /** @param refresh Status refresh configuration to set */
+    public void setRefresh(Refresh refresh) { this.refresh = refresh; }
+
+    /** @return Status storage configuration */
+    public Storage getStorage() { return storage; }
+    /** @param storage Status storage configuration to set */
+    public void setStorage(Storage storage) { this.storage = storage; }
+
+    /** @return Health check configuration */
+    public HealthChecks getHealthChecks() { return healthChecks; }
+    /** @param healthChecks Health check configuration to set */
+    public void setHealthChecks(HealthChecks healthChecks) { this.healthChecks = healthChecks; }
+
+    /** @return Metrics endpoint configuration */
+    public Metrics getMetrics() { return metrics; }
+    /** @param metrics Metrics endpoint configuration to set */
+    public void setMetrics(Metrics metrics) { this.metrics = metrics; }
+
     /**
      * Bot-specific configuration settings.
      */
@@ -152,8 +407,14 @@ public class Config {
         private String activity;
         /** Role ID of the people who may operate the bot */
         private String[] administratorRoleIDs;
-        /** Discord guild ID where the bot operates */
+        /** Discord guild ID where the bot operates, superseded by the guilds section */
         private String guild_id;
+        /** Seconds an administrator check is cached per member */
+        private long permissionCacheSeconds = 30;
+        /** JDA startup profile, "lean" for minimal intents and caches or "default" */
+        private String profile = "default";
+        /** Number of gateway shards, 0 for the number Discord recommends */
+        private int shards = 0;
 
         public String getToken() { return token; }
         public void setToken(String token) { this.token = token; }
@@ -166,6 +427,15 @@ public class Config {
 
         public String getGuild_id() { return guild_id; }
         public void setGuild_id(String guild_id) { this.guild_id = guild_id; }
+
+        public long getPermissionCacheSeconds() { return permissionCacheSeconds; }
+        public void setPermissionCacheSeconds(long permissionCacheSeconds) { this.permissionCacheSeconds = permissionCacheSeconds; }
+
+        public String getProfile() { return profile; }
+        public void setProfile(String profile) { this.profile = profile; }
+
+        public int getShards() { return shards; }
+        public void setShards(int shards) { this.shards = shards; }
     }
 
     /**
@@ -175,6 +445,10 @@ public class Config {
         /** Discord channel ID for bot logs */
         private String logChannelId;
         private String fatalLogChannelId;
+        /** Maximum number of log embeds waiting to be shipped, further ones are dropped */
+        private int queueCapacity = 1000;
+        /** Interval in milliseconds at which queued log embeds are sent */
+        private long flushIntervalMillis = 2000;
         /** @return Channel ID for logs */
         public String getLogChannelId() { return logChannelId; }
         /** @param logChannelId Channel ID to set for logs */
@@ -183,14 +457,31 @@ public class Config {
         public String getFatalLogChannelId() { return fatalLogChannelId; }
         /** @param fatalLogChannelId Channel ID to set for fatal bot errors */
         public void setFatalLogChannelId(String fatalLogChannelId) { this.fatalLogChannelId = fatalLogChannelId; }
+        /** @return Maximum number of log embeds waiting to be shipped */
+        public int getQueueCapacity() { return queueCapacity; }
+        /** @param queueCapacity Maximum number of log embeds waiting to be shipped */
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        /** @return Interval in milliseconds at which queued log embeds are sent */
+        public long getFlushIntervalMillis() { return flushIntervalMillis; }
+        /** @param flushIntervalMillis Interval in milliseconds at which queued log embeds are sent */
+        public void setFlushIntervalMillis(long flushIntervalMillis) { this.flushIntervalMillis = flushIntervalMillis; }
     }
 
     public static class Status {
+        /** Status channel of the guild in bot.guild_id, superseded by the guilds section */
         private String statusChannelId;
         private String operationalChannelName;
         private String partialOutageChannelName;
         private String majorOutageChannelName;
         private String maintenanceChannelName;
+        /** Whether status messages are edited in place instead of deleted and reposted on every refresh */
+        private boolean editInPlace = true;
+        /** Maximum number of channel renames within the rename window, matching Discord's limit */
+        private int renameLimit = 2;
+        /** Length of the rename window in seconds */
+        private long renameWindowSeconds = 600;
+        /** Whether status embeds show the uptime of each service */
+        private boolean showUptime = false;
         public String getStatusChannelId() { return statusChannelId; }
         public void setStatusChannelId(String statusChannelId) { this.statusChannelId = statusChannelId; }
 
@@ -205,6 +496,30 @@ public class Config {
 
         public String getMaintenanceChannelName() { return maintenanceChannelName; }
         public void setMaintenanceChannelName(String maintenanceChannelName) { this.maintenanceChannelName = maintenanceChannelName; }
+
+        public boolean isEditInPlace() { return editInPlace; }
+        public void setEditInPlace(boolean editInPlace) { this.editInPlace = editInPlace; }
+
+        public int getRenameLimit() { return renameLimit; }
+        public void setRenameLimit(int renameLimit) { this.renameLimit = renameLimit; }
+
+        public long getRenameWindowSeconds() { return renameWindowSeconds; }
+        public void setRenameWindowSeconds(long renameWindowSeconds) { this.renameWindowSeconds = renameWindowSeconds; }
+
+        public boolean isShowUptime() { return showUptime; }
+        public void setShowUptime(boolean showUptime) { this.showUptime = showUptime; }
+    }
+
+    /**
+     * Settings of one guild the bot publishes statuses in.
+     */
+    public static class Guild {
+        /** Channel the status messages of the guild are posted in */
+        private String statusChannelId;
+        /** @return Channel ID of the status channel */
+        public String getStatusChannelId() { return statusChannelId; }
+        /** @param statusChannelId Channel ID of the status channel to set */
+        public void setStatusChannelId(String statusChannelId) { this.statusChannelId = statusChannelId; }
     }
 
     /**
@@ -244,4 +559,154 @@ public class Config {
         /** @param footerText Sets default embed Footer Text */
         public void setFooterText(String footerText) { this.footerText = footerText; }
     }
+
+    /**
+     * Status refresh configuration.
+     */
+    public static class Refresh {
+        /** Quiet period after the last mutation before the status channel is refreshed */
+        private long debounceMillis = 2000;
+        /** Maximum delay between the first pending mutation and the refresh */
+        private long maxLatencyMillis = 10000;
+        /** @return Debounce window in milliseconds */
+        public long getDebounceMillis() { return debounceMillis; }
+        /** @param debounceMillis Debounce window in milliseconds to set */
+        public void setDebounceMillis(long debounceMillis) { this.debounceMillis = debounceMillis; }
+        /** @return Maximum refresh latency in milliseconds */
+        public long getMaxLatencyMillis() { return maxLatencyMillis; }
+        /** @param maxLatencyMillis Maximum refresh latency in milliseconds to set */
+        public void setMaxLatencyMillis(long maxLatencyMillis) { this.maxLatencyMillis = maxLatencyMillis; }
+    }
+
+    /**
+     * Status storage configuration.
+     */
+    public static class Storage {
+        /** Number of journal records after which the journal is compacted into the snapshot */
+        private int compactionThreshold = 500;
+        /** @return Number of journal records that triggers a compaction */
+        public int getCompactionThreshold() { return compactionThreshold; }
+        /** @param compactionThreshold Number of journal records that triggers a compaction */
+        public void setCompactionThreshold(int compactionThreshold) { this.compactionThreshold = compactionThreshold; }
+        /** Number of previous snapshots kept as backups */
+        private int snapshotGenerations = 3;
+        /** @return Number of previous snapshots kept as backups */
+        public int getSnapshotGenerations() { return snapshotGenerations; }
+        /** @param snapshotGenerations Number of previous snapshots to keep as backups */
+        public void setSnapshotGenerations(int snapshotGenerations) { this.snapshotGenerations = snapshotGenerations; }
+        /** Directory holding one partition per guild */
+        private String tenantDirectory = "guilds";
+        /** @return Directory holding one partition per guild */
+        public String getTenantDirectory() { return tenantDirectory; }
+        /** @param tenantDirectory Directory holding one partition per guild */
+        public void setTenantDirectory(String tenantDirectory) { this.tenantDirectory = tenantDirectory; }
+        /** Minutes a guild's storage stays open without being used */
+        private long tenantIdleMinutes = 30;
+        /** @return Minutes a guild's storage stays open without being used */
+        public long getTenantIdleMinutes() { return tenantIdleMinutes; }
+        /** @param tenantIdleMinutes Minutes a guild's storage stays open without being used */
+        public void setTenantIdleMinutes(long tenantIdleMinutes) { this.tenantIdleMinutes = tenantIdleMinutes; }
+    }
+
+    /**
+     * Health check configuration.
+     */
+    public static class HealthChecks {
+        /** Whether services with a check target are probed automatically */
+        private boolean enabled = false;
+        /** Time between two probes of the same service */
+        private long intervalSeconds = 30;
+        /** Time after which a probe counts as failed */
+        private long timeoutMillis = 5000;
+        /** Maximum number of probes running at the same time */
+        private int maxConcurrency = 256;
+        /** Maximum number of pooled HTTP connections per host */
+        private int maxConnectionsPerRoute = 4;
+        /** Consecutive failed or slow probes needed before a service is marked as down or degraded */
+        private int failureThreshold = 3;
+        /** Consecutive healthy probes needed before a service is marked as operational again */
+        private int recoveryThreshold = 2;
+        /** Latency from which a successful probe counts as degraded, 0 to disable */
+        private long degradedLatencyMillis = 2000;
+        /** Penalty added every time the observed status of a service flips */
+        private double flapPenalty = 1000;
+        /** Penalty from which transitions of a flapping service are suppressed */
+        private double flapSuppressThreshold = 3000;
+        /** Penalty below which a suppressed service may transition again */
+        private double flapReuseThreshold = 750;
+        /** Time after which the flap penalty has decayed to half */
+        private long flapHalfLifeSeconds = 300;
+        /** @return Whether health checks are enabled */
+        public boolean isEnabled() { return enabled; }
+        /** @param enabled Whether health checks are enabled */
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        /** @return Probe interval in seconds */
+        public long getIntervalSeconds() { return intervalSeconds; }
+        /** @param intervalSeconds Probe interval in seconds to set */
+        public void setIntervalSeconds(long intervalSeconds) { this.intervalSeconds = intervalSeconds; }
+        /** @return Probe timeout in milliseconds */
+        public long getTimeoutMillis() { return timeoutMillis; }
+        /** @param timeoutMillis Probe timeout in milliseconds to set */
+        public void setTimeoutMillis(long timeoutMillis) { this.timeoutMillis = timeoutMillis; }
+        /** @return Maximum number of concurrent probes */
+        public int getMaxConcurrency() { return maxConcurrency; }
+        /** @param maxConcurrency Maximum number of concurrent probes to set */
+        public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+        /** @return Maximum number of pooled HTTP connections per host */
+        public int getMaxConnectionsPerRoute() { return maxConnectionsPerRoute; }
+        /** @param maxConnectionsPerRoute Maximum number of pooled HTTP connections per host to set */
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) { this.maxConnectionsPerRoute = maxConnectionsPerRoute; }
+        /** @return Consecutive failed or slow probes needed for a transition */
+        public int getFailureThreshold() { return failureThreshold; }
+        /** @param failureThreshold Consecutive failed or slow probes needed for a transition */
+        public void setFailureThreshold(int failureThreshold) { this.failureThreshold = failureThreshold; }
+        /** @return Consecutive healthy probes needed for a recovery */
+        public int getRecoveryThreshold() { return recoveryThreshold; }
+        /** @param recoveryThreshold Consecutive healthy probes needed for a recovery */
+        public void setRecoveryThreshold(int recoveryThreshold) { this.recoveryThreshold = recoveryThreshold; }
+        /** @return Latency in milliseconds from which a probe counts as degraded */
+        public long getDegradedLatencyMillis() { return degradedLatencyMillis; }
+        /** @param degradedLatencyMillis Latency in milliseconds from which a probe counts as degraded */
+        public void setDegradedLatencyMillis(long degradedLatencyMillis) { this.degradedLatencyMillis = degradedLatencyMillis; }
+        /** @return Penalty added per status flip */
+        public double getFlapPenalty() { return flapPenalty; }
+        /** @param flapPenalty Penalty added per status flip */
+        public void setFlapPenalty(double flapPenalty) { this.flapPenalty = flapPenalty; }
+        /** @return Penalty from which transitions are suppressed */
+        public double getFlapSuppressThreshold() { return flapSuppressThreshold; }
+        /** @param flapSuppressThreshold Penalty from which transitions are suppressed */
+        public void setFlapSuppressThreshold(double flapSuppressThreshold) { this.flapSuppressThreshold = flapSuppressThreshold; }
+        /** @return Penalty below which transitions are allowed again */
+        public double getFlapReuseThreshold() { return flapReuseThreshold; }
+        /** @param flapReuseThreshold Penalty below which transitions are allowed again */
+        public void setFlapReuseThreshold(double flapReuseThreshold) { this.flapReuseThreshold = flapReuseThreshold; }
+        /** @return Half-life of the flap penalty in seconds */
+        public long getFlapHalfLifeSeconds() { return flapHalfLifeSeconds; }
+        /** @param flapHalfLifeSeconds Half-life of the flap penalty in seconds */
+        public void setFlapHalfLifeSeconds(long flapHalfLifeSeconds) { this.flapHalfLifeSeconds = flapHalfLifeSeconds; }
+    }
+
+    /**
+     * Metrics endpoint configuration.
+     */
+    public static class Metrics {
+        /** Whether the Prometheus metrics endpoint is served */
+        private boolean enabled = false;
+        /** Address the metrics endpoint listens on */
+        private String bindAddress = "127.0.0.1";
+        /** Port the metrics endpoint listens on */
+        private int port = 9400;
+        /** @return Whether the metrics endpoint is enabled */
+        public boolean isEnabled() { return enabled; }
+        /** @param enabled Whether the metrics endpoint is enabled */
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        /** @return Address the metrics endpoint listens on */
+        public String getBindAddress() { return bindAddress; }
+        /** @param bindAddress Address the metrics endpoint listens on */
+        public void setBindAddress(String bindAddress) { this.bindAddress = bindAddress; }
+        /** @return Port the metrics endpoint listens on */
+        public int getPort() { return port; }
+        /** @param port Port the metrics endpoint listens on */
+        public void setPort(int port) { this.port = port; }
+    }
 }
@@ -0,0 +1,142 @@
+package dev.soncresityindustries.StatusBot;
+
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the configuration when config.yml changes on disk.
+ * Editors often write a file in several steps, so a reload waits until the file has been quiet for
+ * a moment. The file is parsed and validated on the watcher's own thread; an invalid file is logged
+ * and the running configuration stays in place. Saving the file without changing it does not reload.
+ *
+ * @author SkyKing_PX
+ */
+public class ConfigWatcher {
+
+    /** Quiet period after the last change before the file is reloaded */
+    private static final long SETTLE_MILLIS = 500;
+
+    private static ConfigWatcher instance;
+
+    private final Path file = Config.getPath().toAbsolutePath();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ConfigReload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private WatchService watchService;
+    private ScheduledFuture<?> scheduledReload;
+    private byte[] loadedDigest;
+
+    private ConfigWatcher() {
+    }
+
+    public static synchronized ConfigWatcher getInstance() {
+        if (instance == null) {
+            instance = new ConfigWatcher();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts watching the directory of config.yml. Does nothing if already started.
+     *
+     * @throws IOException If the directory cannot be watched
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) return;
+        loadedDigest = digest();
+
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread thread = new Thread(this::watch, "ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        LogUtils.logConfig("Watching " + file + " for changes");
+    }
+
+    /**
+     * Stops watching the file.
+     */
+    public synchronized void stop() {
+        if (watchService == null) return;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LogUtils.logException("Error closing config watcher", e);
+        }
+        executor.shutdownNow();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path changed && file.getFileName().equals(changed)) {
+                        scheduleReload();
+                    }
+                }
+                if (!key.reset()) {
+                    LogUtils.logWarning("Config directory is no longer watched", file.getParent().toString());
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    private synchronized void scheduleReload() {
+        if (scheduledReload != null) {
+            scheduledReload.cancel(false);
+        }
+        scheduledReload = executor.schedule(this::reload, SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void reload() {
+        try {
+            byte[] digest = digest();
+            synchronized (this) {
+                if (Arrays.equals(digest, loadedDigest)) return;
+            }
+
+            Config.reload();
+            synchronized (this) {
+                loadedDigest = digest;
+            }
+        } catch (IOException e) {
+            LogUtils.logException("Keeping the current configuration, config.yml could not be reloaded", e);
+        }
+    }
+
+    /**
+     * @return SHA-256 of the config file, or null if it does not exist
+     */
+    private byte[] digest() throws IOException {
+        if (Files.notExists(file)) return null;
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package dev.soncresityindustries.StatusBot;
 
 import dev.soncresityindustries.StatusBot.command.CommandRegistry;
-import dev.soncresityindustries.StatusBot.storage.StatusStorage;
+import dev.soncresityindustries.StatusBot.health.HealthProber;
+import dev.soncresityindustries.StatusBot.storage.GuildTenants;
 import dev.soncresityindustries.StatusBot.util.LogUtils;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.events.session.ReadyEvent;
@@ -9,6 +10,8 @@ import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
 
 /**
  * Main event listener for the PhoenixBot.
@@ -18,6 +21,8 @@ import java.io.IOException;
  */
 public class Listener extends ListenerAdapter {
 
+    private HealthProber healthProber;
+
     /**
      * Handles the bot ready event.
      * Registers slash commands, initializes storage systems, and restores pending tickets.
@@ -27,20 +32,49 @@ public class Listener extends ListenerAdapter {
     @Override
     public void onReady(@NotNull ReadyEvent event) {
         JDA api = event.getJDA();
-        LogUtils.logInfo("Registering Commands...");
+        int shardId = api.getShardInfo().getShardId();
 
-        api.updateCommands()
-                .addCommands(CommandRegistry.registerCommands())
-                .queue(success -> LogUtils.logInfo("Global commands updated."));
+        // Global commands are shared by all shards
+        if (shardId == 0) {
+            LogUtils.logInfo("Registering Commands...");
+            api.updateCommands()
+                    .addCommands(CommandRegistry.registerCommands())
+                    .queue(success -> LogUtils.logInfo("Global commands updated."));
+        }
 
+        LogUtils.logInfo("Reloading services from storage...", "shard " + shardId);
         try {
-            LogUtils.logInfo("Reloading services from storage...");
-            StatusStorage.getInstance().reloadServices(api);
+            for (String guildId : Config.get().getGuildIds()) {
+                try {
+                    // Every shard refreshes the guilds it owns once it is ready
+                    if (ShardRouter.shardOf(guildId, api.getShardInfo().getShardTotal()) != shardId) continue;
+                    GuildTenants.getInstance().get(guildId).reloadServices(api);
+                } catch (IOException | IllegalArgumentException e) {
+                    LogUtils.logException("Error reloading services of guild " + guildId, e);
+                }
+            }
         } catch (IOException e) {
             LogUtils.logException("Error reloading services from storage", e);
         }
         LogUtils.logInfo("Successfully reloaded services from storage.");
 
+        startHealthChecks(api);
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        LogUtils.logInfo("Heap in use after startup", heap.getUsed() / (1024 * 1024) + " MiB with the " + Bot.getProfile() + " profile");
         LogUtils.logInfo("Bot is ready.");
     }
+
+    private synchronized void startHealthChecks(JDA api) {
+        if (healthProber != null) return;
+        try {
+            Config.HealthChecks config = Config.get().getHealthChecks();
+            if (config == null || !config.isEnabled()) return;
+
+            healthProber = new HealthProber(GuildTenants.getInstance()::getOpen, config);
+            healthProber.start(api);
+        } catch (Exception e) {
+            LogUtils.logException("Error starting health checks", e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,309 @@
+package dev.soncresityindustries.StatusBot;
+
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import net.dv8tion.jda.api.requests.RestAction;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands the bot's own Discord requests to JDA in order of priority.
+ * JDA queues requests per route in submission order, so once a route is rate limited a flood of
+ * log embeds would sit in front of the status message users are waiting for. This scheduler keeps
+ * requests until a token bucket mirroring the route's Discord bucket has room, and then releases
+ * the most important one first. A queued request with the same supersede key as a newer one is
+ * dropped, e.g. an older edit of the same message, and completes with the result of the newer one.
+ *
+ * @author SkyKing_PX
+ */
+public class OutboundScheduler {
+
+    /**
+     * Priority classes, most important first.
+     */
+    public enum Priority {
+        /** Fatal error alerts, sent right before the bot exits */
+        FATAL,
+        /** Posts, edits and deletions of status messages */
+        STATUS,
+        /** Status channel renames */
+        RENAME,
+        /** Crossposts of status messages to following channels */
+        CROSSPOST,
+        /** Embeds in the log channel */
+        LOG
+    }
+
+    /**
+     * Discord routes the bot uses, with the size of their rate limit bucket per channel.
+     * A capacity of 0 means the caller paces the route itself and only the global limit applies.
+     */
+    public enum Route {
+        CREATE_MESSAGE(5, 5_000),
+        EDIT_MESSAGE(5, 5_000),
+        DELETE_MESSAGE(5, 1_000),
+        CROSSPOST_MESSAGE(10, 3_600_000),
+        /**
+         * Paced by {@link ChannelNameController}, which applies the live rename window of the status config;
+         * a second bucket here would keep the limits of the config it was created with
+         */
+        MODIFY_CHANNEL(0, 0);
+
+        private final int capacity;
+        private final long periodMillis;
+
+        Route(int capacity, long periodMillis) {
+            this.capacity = capacity;
+            this.periodMillis = periodMillis;
+        }
+    }
+
+    /** Requests per second Discord allows across all routes */
+    private static final int GLOBAL_LIMIT = 50;
+
+    private static OutboundScheduler instance;
+
+    private final Map<Priority, ArrayDeque<Request>> queues = new EnumMap<>(Priority.class);
+    private final Map<String, Request> queuedByKey = new HashMap<>();
+    private final Map<String, TokenBucket> buckets = new HashMap<>();
+    private final TokenBucket global = new TokenBucket(GLOBAL_LIMIT, 1_000);
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "OutboundScheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Priority, MetricsRegistry.Counter> dispatched = new EnumMap<>(Priority.class);
+    private final Map<Priority, MetricsRegistry.Histogram> waitTimes = new EnumMap<>(Priority.class);
+
+    private ScheduledFuture<?> scheduledDrain;
+    private long scheduledDrainAt;
+    private long supersededRequests;
+
+    private OutboundScheduler() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        for (Priority priority : Priority.values()) {
+            String label = priority.name().toLowerCase();
+            queues.put(priority, new ArrayDeque<>());
+            metrics.gauge("statusbot_outbound_queued", "Discord requests waiting in the outbound scheduler",
+                    () -> getQueued(priority), "priority", label);
+            dispatched.put(priority, metrics.counter("statusbot_outbound_dispatched_total",
+                    "Discord requests released by the outbound scheduler", "priority", label));
+            waitTimes.put(priority, metrics.histogram("statusbot_outbound_wait_seconds",
+                    "Time Discord requests waited in the outbound scheduler", "priority", label));
+        }
+        metrics.counter("statusbot_outbound_superseded_total", "Queued Discord requests replaced by a newer one",
+                this::getSupersededRequests);
+    }
+
+    public static synchronized OutboundScheduler getInstance() {
+        if (instance == null) {
+            instance = new OutboundScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Queues a request.
+     *
+     * @param priority The priority class of the request
+     * @param route The route of the request
+     * @param channelId The channel the request targets, Discord's major parameter for these routes
+     * @param supersedeKey Requests with the same key replace each other while queued, or null
+     * @param action The request, not yet queued with JDA
+     * @return Future completing with the result of the request, or of the request that superseded it
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> CompletableFuture<T> submit(Priority priority, Route route, String channelId, String supersedeKey, RestAction<T> action) {
+        Request request = new Request(priority, route.name() + ":" + channelId, route, supersedeKey, (RestAction<Object>) action);
+
+        if (supersedeKey != null) {
+            Request older = queuedByKey.remove(supersedeKey);
+            if (older != null) {
+                queues.get(older.priority).remove(older);
+                // Keep the better place in line of the two
+                if (older.priority.compareTo(request.priority) < 0) {
+                    request.priority = older.priority;
+                }
+                request.enqueuedAt = older.enqueuedAt;
+                request.merged.addAll(older.merged);
+                request.merged.add(older.future);
+                supersededRequests++;
+            }
+            queuedByKey.put(supersedeKey, request);
+        }
+
+        queues.get(request.priority).addLast(request);
+        drain();
+        return (CompletableFuture<T>) request.future;
+    }
+
+    /**
+     * Drops every queued request and stops the scheduler thread. Requests already handed to JDA are not affected.
+     */
+    public synchronized void shutdown() {
+        for (ArrayDeque<Request> queue : queues.values()) {
+            for (Request request : queue) {
+                request.complete(null, new CancellationException("Outbound scheduler shut down"));
+            }
+            queue.clear();
+        }
+        queuedByKey.clear();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Releases queued requests, most important first, as long as their buckets have room.
+     * Within a priority a request whose bucket is empty does not hold back requests to other buckets.
+     * If requests remain, a drain is scheduled for when the first of their buckets refills.
+     */
+    private synchronized void drain() {
+        long now = System.nanoTime();
+        long nextAttempt = Long.MAX_VALUE;
+
+        for (Priority priority : Priority.values()) {
+            Iterator<Request> iterator = queues.get(priority).iterator();
+            while (iterator.hasNext()) {
+                Request request = iterator.next();
+                TokenBucket bucket = bucketFor(request);
+
+                long wait = global.nanosUntilAvailable(now);
+                if (bucket != null) wait = Math.max(wait, bucket.nanosUntilAvailable(now));
+                if (wait > 0) {
+                    nextAttempt = Math.min(nextAttempt, wait);
+                    continue;
+                }
+
+                global.take(now);
+                if (bucket != null) bucket.take(now);
+                iterator.remove();
+                if (request.supersedeKey != null) {
+                    queuedByKey.remove(request.supersedeKey);
+                }
+                dispatch(request, now);
+            }
+        }
+
+        if (nextAttempt != Long.MAX_VALUE) {
+            scheduleDrain(now, nextAttempt);
+        }
+    }
+
+    private void dispatch(Request request, long now) {
+        dispatched.get(request.priority).inc();
+        waitTimes.get(request.priority).observe((now - request.enqueuedAt) / 1e9);
+        try {
+            request.action.submit().whenComplete(request::complete);
+        } catch (RuntimeException e) {
+            request.complete(null, e);
+        }
+    }
+
+    private void scheduleDrain(long now, long delayNanos) {
+        long at = now + delayNanos;
+        // A drain already scheduled in time will do, unless it is the one running right now
+        if (scheduledDrain != null && scheduledDrainAt > now && scheduledDrainAt <= at) return;
+        if (scheduledDrain != null) scheduledDrain.cancel(false);
+        scheduledDrainAt = at;
+        try {
+            scheduledDrain = executor.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shut down
+            scheduledDrain = null;
+        }
+    }
+
+    /**
+     * @return The bucket of the route and channel of a request, or null if the caller paces the route
+     */
+    private TokenBucket bucketFor(Request request) {
+        if (request.route.capacity == 0) return null;
+        return buckets.computeIfAbsent(request.bucket, key -> new TokenBucket(request.route.capacity, request.route.periodMillis));
+    }
+
+    // --- Metrics ---
+
+    /** @return Number of requests waiting with the given priority */
+    public synchronized int getQueued(Priority priority) { return queues.get(priority).size(); }
+    /** @return Number of queued requests replaced by a newer one */
+    public synchronized long getSupersededRequests() { return supersededRequests; }
+
+    /**
+     * A request waiting to be handed to JDA.
+     */
+    private static class Request {
+        private Priority priority;
+        private final String bucket;
+        private final Route route;
+        private final String supersedeKey;
+        private final RestAction<Object> action;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        /** Futures of the requests this one superseded, oldest first */
+        private final List<CompletableFuture<Object>> merged = new ArrayList<>();
+        private long enqueuedAt = System.nanoTime();
+
+        private Request(Priority priority, String bucket, Route route, String supersedeKey, RestAction<Object> action) {
+            this.priority = priority;
+            this.bucket = bucket;
+            this.route = route;
+            this.supersedeKey = supersedeKey;
+            this.action = action;
+        }
+
+        /**
+         * Completes the superseded requests before this one, so callers acting on the newest
+         * result, e.g. by tracking a message fingerprint, run last.
+         */
+        private void complete(Object result, Throwable error) {
+            for (CompletableFuture<Object> older : merged) {
+                if (error != null) older.completeExceptionally(error);
+                else older.complete(result);
+            }
+            if (error != null) future.completeExceptionally(error);
+            else future.complete(result);
+        }
+    }
+
+    /**
+     * A token bucket refilling continuously, holding at most one full Discord bucket.
+     */
+    private static class TokenBucket {
+        private final int capacity;
+        private final double nanosPerToken;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        private TokenBucket(int capacity, long periodMillis) {
+            this.capacity = capacity;
+            this.nanosPerToken = (double) TimeUnit.MILLISECONDS.toNanos(Math.max(1, periodMillis)) / capacity;
+            this.tokens = capacity;
+        }
+
+        private long nanosUntilAvailable(long now) {
+            refill(now);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * nanosPerToken);
+        }
+
+        private void take(long now) {
+            refill(now);
+            tokens--;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) / nanosPerToken);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package dev.soncresityindustries.StatusBot;
+
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import dev.soncresityindustries.StatusBot.storage.StatusStorage;
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+import net.dv8tion.jda.api.JDA;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces refresh requests of a {@link StatusStorage} into single render-and-publish passes.
+ * Requests arriving within the debounce window collapse into one refresh, which is never delayed
+ * by more than the max latency after the first pending request. Only one refresh runs at a time;
+ * requests arriving while it runs are picked up by the next one.
+ * Every storage has its own scheduler and thread, so a guild with a backlog of refreshes
+ * never delays the refreshes of another guild.
+ *
+ * @author SkyKing_PX
+ */
+public class RefreshScheduler {
+
+    /** Upper bound for a single publish pass before the scheduler stops waiting for it */
+    private static final long PASS_TIMEOUT_MINUTES = 5;
+
+    private final StatusStorage storage;
+    private final Supplier<Config.Refresh> config;
+    private final ScheduledExecutorService executor;
+
+    private JDA jda;
+    private int pendingMutations;
+    private long firstPendingAt;
+    private boolean running;
+    private ScheduledFuture<?> scheduledFlush;
+
+    private long flushCount;
+    private long absorbedMutations;
+    private int lastFlushMutations;
+    private int maxFlushMutations;
+
+    /**
+     * Creates the scheduler of a storage.
+     *
+     * @param storage The storage whose status channel is refreshed
+     * @param config Supplies the refresh settings, asked on every request
+     */
+    public RefreshScheduler(StatusStorage storage, Supplier<Config.Refresh> config) {
+        this.storage = storage;
+        this.config = config;
+        String guildId = storage.getGuildId();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, guildId != null ? "StatusRefresh-" + guildId : "StatusRefresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("statusbot_refresh_pending_mutations", "Refresh requests waiting for the next pass", this::getPendingMutations, storage.metricLabels());
+        metrics.counter("statusbot_refresh_passes_total", "Refresh passes run", this::getFlushCount, storage.metricLabels());
+        metrics.counter("statusbot_refresh_absorbed_mutations_total", "Refresh requests absorbed by refresh passes", this::getAbsorbedMutations, storage.metricLabels());
+    }
+
+    /**
+     * Requests a refresh of the status channel.
+     * The refresh runs once the debounce window has passed without further requests,
+     * or once the max latency has passed since the first pending request.
+     *
+     * @param jda JDA instance, or any shard, used for publishing
+     */
+    public synchronized void requestRefresh(JDA jda) {
+        this.jda = jda;
+        if (pendingMutations++ == 0) {
+            firstPendingAt = System.nanoTime();
+        }
+        if (!running) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Drops pending refresh requests and stops the scheduler thread. A refresh already running is not cancelled.
+     */
+    public synchronized void shutdown() {
+        pendingMutations = 0;
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return Whether no refresh is pending or running
+     */
+    public synchronized boolean isIdle() {
+        return pendingMutations == 0 && !running;
+    }
+
+    private synchronized void scheduleFlush() {
+        long now = System.nanoTime();
+        long deadline = Math.min(now + TimeUnit.MILLISECONDS.toNanos(config.get().getDebounceMillis()),
+                firstPendingAt + TimeUnit.MILLISECONDS.toNanos(config.get().getMaxLatencyMillis()));
+
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        scheduledFlush = executor.schedule(this::flush, Math.max(0, deadline - now), TimeUnit.NANOSECONDS);
+    }
+
+    private void flush() {
+        JDA target;
+        int absorbed;
+        synchronized (this) {
+            if (running || pendingMutations == 0) return;
+            running = true;
+            scheduledFlush = null;
+            target = jda;
+            absorbed = pendingMutations;
+            pendingMutations = 0;
+
+            flushCount++;
+            absorbedMutations += absorbed;
+            lastFlushMutations = absorbed;
+            maxFlushMutations = Math.max(maxFlushMutations, absorbed);
+        }
+        LogUtils.logDebug("Refreshing status messages", absorbed + " mutation(s) absorbed");
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> pass;
+        try {
+            // Publish on the worker of the guild's shard, which holds the pass while the shard reconnects
+            JDA shard = ShardRouter.owningShard(target, storage.getGuildId());
+            pass = ShardRouter.getInstance().submit(shard, "refresh:" + storage.getGuildId(),
+                    jda -> StatusUpdateManager.updateStatusMessages(jda, storage));
+        } catch (RuntimeException e) {
+            pass = CompletableFuture.failedFuture(e);
+        }
+
+        pass.orTimeout(PASS_TIMEOUT_MINUTES, TimeUnit.MINUTES).whenComplete((v, e) -> {
+            MetricsRegistry.getInstance().histogram("statusbot_refresh_seconds", "Time taken by a refresh pass").observeSince(start);
+            if (e != null) {
+                LogUtils.logException("Error refreshing status messages", e);
+            }
+            synchronized (this) {
+                running = false;
+                if (pendingMutations > 0) {
+                    scheduleFlush();
+                }
+            }
+        });
+    }
+
+    /**
+     * @return The refresh settings of the current configuration, or the defaults if it cannot be loaded
+     */
+    public static Config.Refresh getRefreshConfig() {
+        try {
+            return Config.get().getRefresh();
+        } catch (Exception e) {
+            return new Config.Refresh();
+        }
+    }
+
+    // --- Metrics ---
+
+    /** @return Number of refresh passes run so far */
+    public synchronized long getFlushCount() { return flushCount; }
+    /** @return Total number of refresh requests absorbed by all passes */
+    public synchronized long getAbsorbedMutations() { return absorbedMutations; }
+    /** @return Number of refresh requests absorbed by the last pass */
+    public synchronized int getLastFlushMutations() { return lastFlushMutations; }
+    /** @return Largest number of refresh requests absorbed by a single pass */
+    public synchronized int getMaxFlushMutations() { return maxFlushMutations; }
+    /** @return Number of refresh requests waiting for the next pass */
+    public synchronized int getPendingMutations() { return pendingMutations; }
+}
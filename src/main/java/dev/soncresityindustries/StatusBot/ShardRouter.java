@@ -0,0 +1,223 @@
+package dev.soncresityindustries.StatusBot;
+
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.events.StatusChangeEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Routes work for a guild to the shard that owns it and runs it on that shard's own worker.
+ * Every shard has a queue and a thread. While a shard is not connected, e.g. during a reconnect,
+ * its queue is held and released once it is connected again; the other shards keep working.
+ * A queued task with the same key as a newer one is dropped and completes with the newer one's result,
+ * so a shard that was away for a while catches up with a single refresh per guild.
+ *
+ * @author SkyKing_PX
+ */
+public class ShardRouter extends ListenerAdapter {
+
+    private static ShardRouter instance;
+
+    private final Map<Integer, ShardWorker> workers = new ConcurrentHashMap<>();
+
+    private ShardRouter() {
+    }
+
+    public static synchronized ShardRouter getInstance() {
+        if (instance == null) {
+            instance = new ShardRouter();
+        }
+        return instance;
+    }
+
+    /**
+     * Computes the shard of a guild the way Discord assigns them.
+     *
+     * @param guildId The ID of the guild, or null
+     * @param shardsTotal The number of shards
+     * @return The shard ID, 0 without sharding or guild
+     */
+    public static int shardOf(String guildId, int shardsTotal) {
+        if (guildId == null || shardsTotal <= 1) return 0;
+        return (int) ((Long.parseLong(guildId) >>> 22) % shardsTotal);
+    }
+
+    /**
+     * Finds the shard owning a guild.
+     *
+     * @param jda Any shard, or the only JDA instance without sharding
+     * @param guildId The ID of the guild, or null
+     * @return The owning shard, or the given instance if the bot is not sharded or the shard is not running
+     */
+    public static JDA owningShard(JDA jda, String guildId) {
+        ShardManager manager = jda.getShardManager();
+        if (manager == null || guildId == null) return jda;
+        JDA shard = manager.getShardById(shardOf(guildId, manager.getShardsTotal()));
+        return shard != null ? shard : jda;
+    }
+
+    /**
+     * Looks up a text channel on whichever shard has it cached.
+     *
+     * @param jda Any shard, or the only JDA instance without sharding
+     * @param channelId The ID of the channel
+     * @return The channel, or null if no shard knows it
+     */
+    public static TextChannel findTextChannel(JDA jda, String channelId) {
+        if (channelId == null) return null;
+        ShardManager manager = jda.getShardManager();
+        return manager != null ? manager.getTextChannelById(channelId) : jda.getTextChannelById(channelId);
+    }
+
+    /**
+     * Shuts down every shard, or the only JDA instance without sharding.
+     *
+     * @param jda Any shard
+     */
+    public static void shutdown(JDA jda) {
+        ShardManager manager = jda.getShardManager();
+        if (manager != null) manager.shutdown();
+        else jda.shutdown();
+    }
+
+    /**
+     * Queues a task on the worker of a shard. It runs once the shard is connected.
+     *
+     * @param shard The shard the task works with
+     * @param key Tasks with the same key replace each other while queued, or null
+     * @param task Starts the work, given the shard
+     * @return Future completing with the result of the task, or of the task that replaced it
+     */
+    public <T> CompletableFuture<T> submit(JDA shard, String key, Function<JDA, CompletableFuture<T>> task) {
+        int shardId = shard.getShardInfo().getShardId();
+        return workers.computeIfAbsent(shardId, ShardWorker::new).submit(shard, key, task);
+    }
+
+    @Override
+    public void onStatusChange(@NotNull StatusChangeEvent event) {
+        if (event.getNewStatus() != JDA.Status.CONNECTED) return;
+        ShardWorker worker = workers.get(event.getJDA().getShardInfo().getShardId());
+        if (worker != null) {
+            worker.drain();
+        }
+    }
+
+    /**
+     * Stops every worker. Queued tasks are dropped.
+     */
+    public void shutdownWorkers() {
+        for (ShardWorker worker : workers.values()) {
+            worker.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The queue and thread of one shard.
+     */
+    private static class ShardWorker {
+        private final int shardId;
+        private final Map<Object, Task<?>> queued = new LinkedHashMap<>();
+        private final ExecutorService executor;
+        private final MetricsRegistry.Histogram waitTimes;
+        private JDA shard;
+        private long anonymousKeys;
+
+        private ShardWorker(int shardId) {
+            this.shardId = shardId;
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ShardWorker-" + shardId);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            MetricsRegistry metrics = MetricsRegistry.getInstance();
+            String label = String.valueOf(shardId);
+            metrics.gauge("statusbot_shard_queued_tasks", "Tasks waiting for their shard", this::getQueued, "shard", label);
+            waitTimes = metrics.histogram("statusbot_shard_wait_seconds", "Time tasks waited for their shard", "shard", label);
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized <T> CompletableFuture<T> submit(JDA shard, String key, Function<JDA, CompletableFuture<T>> work) {
+            this.shard = shard;
+            Task<T> task = new Task<>(work);
+            Object queueKey = key != null ? key : anonymousKeys++;
+
+            Task<?> older = queued.remove(queueKey);
+            if (older != null) {
+                task.enqueuedAt = older.enqueuedAt;
+                task.future.whenComplete((result, e) -> ((Task<Object>) older).complete(result, e));
+            }
+            queued.put(queueKey, task);
+            drain();
+            return task.future;
+        }
+
+        /**
+         * Hands the queued tasks to the worker thread, unless the shard is away.
+         */
+        private synchronized void drain() {
+            if (queued.isEmpty() || shard == null) return;
+            if (shard.getStatus() != JDA.Status.CONNECTED) {
+                LogUtils.logDebug("Holding tasks until shard " + shardId + " is connected", queued.size() + " task(s)");
+                return;
+            }
+
+            List<Task<?>> ready = new ArrayList<>(queued.values());
+            queued.clear();
+            JDA target = shard;
+            for (Task<?> task : ready) {
+                waitTimes.observeSince(task.enqueuedAt);
+                try {
+                    executor.execute(() -> task.run(target));
+                } catch (RejectedExecutionException e) {
+                    task.complete(null, e);
+                }
+            }
+        }
+
+        private synchronized int getQueued() {
+            return queued.size();
+        }
+    }
+
+    /**
+     * Work waiting for its shard.
+     */
+    private static class Task<T> {
+        private final Function<JDA, CompletableFuture<T>> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private long enqueuedAt = System.nanoTime();
+
+        private Task(Function<JDA, CompletableFuture<T>> work) {
+            this.work = work;
+        }
+
+        private void run(JDA shard) {
+            try {
+                work.apply(shard).whenComplete(this::complete);
+            } catch (RuntimeException e) {
+                complete(null, e);
+            }
+        }
+
+        private void complete(T result, Throwable error) {
+            if (error != null) future.completeExceptionally(error);
+            else future.complete(result);
+        }
+    }
+}
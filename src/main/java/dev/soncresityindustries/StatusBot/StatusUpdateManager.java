@@ -1,191 +1,397 @@
 package dev.soncresityindustries.StatusBot;
 
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
 import dev.soncresityindustries.StatusBot.storage.Service;
+import dev.soncresityindustries.StatusBot.storage.ServiceCatalog;
+import dev.soncresityindustries.StatusBot.storage.Severity;
+import dev.soncresityindustries.StatusBot.storage.StatusMessageStore;
+import dev.soncresityindustries.StatusBot.storage.StatusMessageStore.TrackedMessage;
+import dev.soncresityindustries.StatusBot.storage.StatusHistory;
 import dev.soncresityindustries.StatusBot.storage.StatusStorage;
+import dev.soncresityindustries.StatusBot.util.EmbedLayout;
 import dev.soncresityindustries.StatusBot.util.EmbedUtils;
 import dev.soncresityindustries.StatusBot.util.LogUtils;
-import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.channel.concrete.NewsChannel;
-import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import net.dv8tion.jda.api.requests.RestAction;
 
 import java.awt.*;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 public class StatusUpdateManager {
 
-    public static void updateStatusMessages(JDA jda, StatusStorage storage) {
+    /** Status channel name per worst severity, recomputed whenever the configuration is reloaded */
+    private static volatile Map<Severity, String> channelNames = Map.of();
+
+    static {
+        Config.addReloadListener(config -> channelNames = computeChannelNames(config.getStatus()));
+    }
+
+    /**
+     * Publishes the current state of the storage to the status channel of its guild.
+     *
+     * @param jda JDA instance used to resolve the status channel
+     * @param storage Storage holding the services to publish
+     * @return Future completing once every message of this pass has been sent, edited or deleted
+     */
+    public static CompletableFuture<Void> updateStatusMessages(JDA jda, StatusStorage storage) {
         String channelId;
+        boolean editInPlace;
         try {
-            channelId = Config.get().getStatus().getStatusChannelId();
+            channelId = Config.get().getStatusChannelId(storage.getGuildId());
+            editInPlace = Config.get().getStatus().isEditInPlace();
         } catch (Exception e) {
             LogUtils.logFatalException("Failed to load status channel ID from config", e);
-            return;
+            return CompletableFuture.completedFuture(null);
         }
+        if (channelId == null) {
+            LogUtils.logWarning("No status channel configured for guild", storage.getGuildId());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        MessageChannel channel = findChannel(jda, channelId);
+        // One guild losing its status channel must not take down the others
+        if (channel == null) {
+            LogUtils.logWarning("Status channel not found", channelId + " in guild " + storage.getGuildId());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (editInPlace) {
+            return editStatusMessages(channel, storage);
+        }
+
+        return purgeBotMessages(channel)
+                .thenCompose(v -> postStatusEmbeds(channel, storage))
+                .exceptionally(e -> {
+                    LogUtils.logException("Failed to retrieve or delete messages in status channel", channel.getId(), e);
+                    return null;
+                });
+    }
 
-        MessageChannel channel;
+    /**
+     * @return The channel, or null if it does not exist or is not a message channel
+     */
+    private static MessageChannel findChannel(JDA jda, String channelId) {
         try {
-            channel = jda.getChannelById(MessageChannel.class, channelId);
+            return jda.getChannelById(MessageChannel.class, channelId);
         } catch (Exception e) {
-            LogUtils.logFatalException("Failed to retrieve status channel by ID: " + channelId, e);
-            return;
+            return null;
         }
+    }
 
-        channel.getIterableHistory()
-                .takeAsync(100)
-                .thenAccept(messages -> {
+    private static CompletableFuture<Void> purgeBotMessages(MessageChannel channel) {
+        return timed("fetch", () -> channel.getIterableHistory().takeAsync(100))
+                .thenCompose(messages -> {
+                    List<CompletableFuture<?>> deletions = new ArrayList<>();
                     for (Message msg : messages) {
                         if (msg.getAuthor().isBot()) {
-                            msg.delete().queue(null, e -> {});
+                            deletions.add(timed("delete", () -> outbound(OutboundScheduler.Route.DELETE_MESSAGE, channel, "delete:" + msg.getId(), msg.delete()))
+                                    .exceptionally(e -> null));
                         }
                     }
-
-                    postStatusEmbeds(channel, storage);
-                })
-                .exceptionally(e -> {
-                    LogUtils.logFatalException("Failed to retrieve or delete messages in status channel", e);
-                    return null;
+                    return allOf(deletions);
                 });
     }
 
-    private static void postStatusEmbeds(MessageChannel channel, StatusStorage storage) {
-        // Group services by parent
-        Map<String, List<Service>> childrenMap = new HashMap<>();
-        List<Service> parents = new ArrayList<>();
+    private static CompletableFuture<Void> postStatusEmbeds(MessageChannel channel, StatusStorage storage) {
+        ServiceCatalog catalog = storage.getCatalog();
 
-        for (Service service : storage.getAllServices()) {
-            if (service.getParentId() != null) {
-                childrenMap.computeIfAbsent(service.getParentId(), k -> new ArrayList<>()).add(service);
-            } else {
-                parents.add(service);
-            }
+        // Send the messages one after another so they keep their order in the channel
+        CompletableFuture<Void> posts = CompletableFuture.completedFuture(null);
+        for (List<MessageEmbed> embeds : renderStatusMessages(catalog, uptimeHistory(storage))) {
+            posts = posts.thenCompose(v -> timed("post", () -> outbound(OutboundScheduler.Route.CREATE_MESSAGE, channel, null, channel.sendMessageEmbeds(embeds)))
+                    .thenAccept(msg -> crosspost(channel, msg)));
         }
 
-        // Send embed for each parent (or standalone service)
-        for (Service parent : parents) {
-            List<Service> children = childrenMap.getOrDefault(parent.getServiceId(), List.of());
-            EmbedBuilder embed = buildStatusEmbed(parent, children, channel);
+        updateChannelName(channel, catalog);
+        return posts;
+    }
+
+    /**
+     * Brings the status channel up to date by editing only the tracked messages whose embeds changed.
+     * Messages are posted for pages without a tracked message, or whose tracked message was deleted.
+     */
+    private static CompletableFuture<Void> editStatusMessages(MessageChannel channel, StatusStorage storage) {
+        StatusMessageStore tracker = storage.getMessageStore();
 
-            channel.sendMessageEmbeds(embed.build()).queue(msg -> {
-                if (channel instanceof NewsChannel news) {
-                    news.crosspostMessageById(msg.getId()).queue(null, e -> {});
-                }
-            });
+        if (tracker.isEmpty()) {
+            // Nothing tracked yet: clear out messages left behind by the repost mode first
+            return purgeBotMessages(channel)
+                    .thenCompose(v -> publishStatusEmbeds(channel, storage, tracker))
+                    .exceptionally(e -> {
+                        LogUtils.logException("Failed to retrieve or delete messages in status channel", channel.getId(), e);
+                        return null;
+                    });
         }
 
-        boolean majorOutage = false;
-        for (Service service : storage.getAllServices()) {
-            if (service.getStatus().contains("Major Outage")) {
-                try {
-                    if (channel instanceof NewsChannel news) {
-                        news.getManager().setName(Config.get().getStatus().getMajorOutageChannelName()).queue();
-                    } else if (channel instanceof TextChannel text) {
-                        text.getManager().setName(Config.get().getStatus().getMajorOutageChannelName()).queue();
-                    }
-                    majorOutage = true;
-                    break;
-                } catch (IOException e) {
-                    LogUtils.logException("Error updating channel name for major outage", e);
-                }
+        return publishStatusEmbeds(channel, storage, tracker);
+    }
+
+    private static CompletableFuture<Void> publishStatusEmbeds(MessageChannel channel, StatusStorage storage, StatusMessageStore tracker) {
+        ServiceCatalog catalog = storage.getCatalog();
+        List<List<MessageEmbed>> messages = renderStatusMessages(catalog, uptimeHistory(storage));
+        List<CompletableFuture<?>> requests = new ArrayList<>();
+
+        // Remove messages of pages that no longer exist, or tracked per service before pagination
+        for (Map.Entry<String, TrackedMessage> entry : tracker.getAll().entrySet()) {
+            if (pageIndex(entry.getKey()) < messages.size()) continue;
+            String messageId = entry.getValue().getMessageId();
+            requests.add(timed("delete", () -> outbound(OutboundScheduler.Route.DELETE_MESSAGE, channel, "delete:" + messageId,
+                    channel.deleteMessageById(messageId))).exceptionally(e -> null));
+            try {
+                tracker.untrack(entry.getKey());
+            } catch (IOException e) {
+                LogUtils.logException("Error untracking status message " + entry.getKey(), e);
             }
         }
 
-        if (majorOutage) return;
-        boolean partialOutage = false;
-        for (Service service : storage.getAllServices()) {
-            if (service.getStatus().contains("Partial Outage")) {
-                try {
-                    if (channel instanceof NewsChannel news) {
-                        news.getManager().setName(Config.get().getStatus().getPartialOutageChannelName()).queue();
-                    } else if (channel instanceof TextChannel text) {
-                        text.getManager().setName(Config.get().getStatus().getPartialOutageChannelName()).queue();
-                    }
-                    partialOutage = true;
-                    break;
-                } catch (IOException e) {
-                    LogUtils.logException("Error updating channel name for major outage", e);
-                }
+        // New pages are sent one after another so they keep their order in the channel
+        CompletableFuture<Void> sends = CompletableFuture.completedFuture(null);
+        for (int page = 0; page < messages.size(); page++) {
+            String key = String.valueOf(page);
+            List<MessageEmbed> embeds = messages.get(page);
+            String fingerprint = fingerprint(embeds);
+            TrackedMessage tracked = tracker.get(key);
+
+            if (tracked == null) {
+                sends = sends.thenCompose(v -> sendTrackedMessage(channel, tracker, key, embeds, fingerprint));
+                continue;
             }
+            if (fingerprint.equals(tracked.getFingerprint())) continue;
+
+            // A newer edit of the same message replaces this one while it waits for the rate limit
+            requests.add(timed("edit", () -> outbound(OutboundScheduler.Route.EDIT_MESSAGE, channel, "edit:" + tracked.getMessageId(),
+                    channel.editMessageEmbedsById(tracked.getMessageId(), embeds)))
+                    .thenAccept(msg -> track(tracker, key, msg.getId(), fingerprint))
+                    .exceptionallyCompose(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        if (cause instanceof ErrorResponseException ere && ere.getErrorResponse() == ErrorResponse.UNKNOWN_MESSAGE) {
+                            return sendTrackedMessage(channel, tracker, key, embeds, fingerprint);
+                        }
+                        LogUtils.logException("Error editing status message " + key, e);
+                        return CompletableFuture.completedFuture(null);
+                    }));
         }
+        requests.add(sends);
 
-        if (partialOutage) return;
-        boolean maintenance = false;
-        for (Service service : storage.getAllServices()) {
-            if (service.getStatus().contains("Maintenance")) {
-                try {
-                    if (channel instanceof NewsChannel news) {
-                        news.getManager().setName(Config.get().getStatus().getMaintenanceChannelName()).queue();
-                    } else if (channel instanceof TextChannel text) {
-                        text.getManager().setName(Config.get().getStatus().getMaintenanceChannelName()).queue();
-                    }
-                    maintenance = true;
-                    break;
-                } catch (IOException e) {
-                    LogUtils.logException("Error updating channel name for major outage", e);
-                }
-            }
+        updateChannelName(channel, catalog);
+        return allOf(requests);
+    }
+
+    private static CompletableFuture<Void> sendTrackedMessage(MessageChannel channel, StatusMessageStore tracker, String key, List<MessageEmbed> embeds, String fingerprint) {
+        return timed("post", () -> outbound(OutboundScheduler.Route.CREATE_MESSAGE, channel, null, channel.sendMessageEmbeds(embeds))).thenAccept(msg -> {
+            track(tracker, key, msg.getId(), fingerprint);
+            crosspost(channel, msg);
+        });
+    }
+
+    /**
+     * Runs a request and records how long it took in the status channel latency histogram.
+     *
+     * @param phase The kind of request, e.g. "fetch" or "edit"
+     * @param request Starts the request
+     * @return The future of the request
+     */
+    private static <T> CompletableFuture<T> timed(String phase, Supplier<CompletableFuture<T>> request) {
+        MetricsRegistry.Histogram histogram = MetricsRegistry.getInstance().histogram("statusbot_status_channel_request_seconds",
+                "Time taken by requests updating the status channel", "phase", phase);
+        long start = System.nanoTime();
+        return request.get().whenComplete((result, e) -> histogram.observeSince(start));
+    }
+
+    /**
+     * Queues a request to the status channel with the outbound scheduler.
+     *
+     * @param supersedeKey Key of requests this one replaces while queued, or null
+     */
+    private static <T> CompletableFuture<T> outbound(OutboundScheduler.Route route, MessageChannel channel, String supersedeKey, RestAction<T> action) {
+        return OutboundScheduler.getInstance().submit(OutboundScheduler.Priority.STATUS, route, channel.getId(), supersedeKey, action);
+    }
+
+    private static CompletableFuture<Void> allOf(List<CompletableFuture<?>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private static void track(StatusMessageStore tracker, String key, String messageId, String fingerprint) {
+        try {
+            tracker.track(key, messageId, fingerprint);
+        } catch (IOException e) {
+            LogUtils.logException("Error tracking status message " + key, e);
+        }
+    }
+
+    private static void crosspost(MessageChannel channel, Message msg) {
+        if (channel instanceof NewsChannel news) {
+            OutboundScheduler.getInstance().submit(OutboundScheduler.Priority.CROSSPOST, OutboundScheduler.Route.CROSSPOST_MESSAGE,
+                    news.getId(), "crosspost:" + msg.getId(), news.crosspostMessageById(msg.getId())).exceptionally(e -> null);
         }
+    }
+
+    /**
+     * Parses the key of a tracked message.
+     *
+     * @return The page index, or {@link Integer#MAX_VALUE} if the key is not a page index
+     */
+    private static int pageIndex(String key) {
+        try {
+            int page = Integer.parseInt(key);
+            return page >= 0 ? page : Integer.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
 
-        if (maintenance) return;
+    /**
+     * Computes a fingerprint of the embeds of a message, used to detect whether a status message needs editing.
+     */
+    private static String fingerprint(List<MessageEmbed> embeds) {
         try {
-            if (channel instanceof NewsChannel news) {
-                news.getManager().setName(Config.get().getStatus().getPartialOutageChannelName()).queue();
-            } else if (channel instanceof TextChannel text) {
-                text.getManager().setName(Config.get().getStatus().getPartialOutageChannelName()).queue();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (MessageEmbed embed : embeds) {
+                digest.update(embed.toData().toString().getBytes(StandardCharsets.UTF_8));
             }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Renders the status embeds of all top-level services and groups them into messages.
+     *
+     * @return The embeds of each status message, in display order
+     */
+    static List<List<MessageEmbed>> renderStatusMessages(ServiceCatalog catalog, StatusHistory history) {
+        long now = System.currentTimeMillis();
+        List<MessageEmbed> embeds = new ArrayList<>();
+        for (Service root : catalog.getRoots()) {
+            embeds.addAll(buildStatusEmbeds(root, catalog, history, now));
+        }
+        return EmbedLayout.packMessages(embeds);
+    }
+
+    /**
+     * @return The history to show uptime from, or null if status embeds do not show uptime
+     */
+    private static StatusHistory uptimeHistory(StatusStorage storage) {
+        try {
+            return Config.get().getStatus().isShowUptime() ? storage.getHistory() : null;
         } catch (IOException e) {
-            LogUtils.logException("Error updating channel name for major outage", e);
+            return null;
         }
     }
 
-    private static EmbedBuilder buildStatusEmbed(Service parent, List<Service> children, MessageChannel channel) {
-        EmbedBuilder embed = EmbedUtils.createDefault()
-                .setTitle("Service Status - " + parent.getDisplayName());
+    private static void updateChannelName(MessageChannel channel, ServiceCatalog catalog) {
+        String name = channelNames.get(catalog.getWorstSeverity());
+        if (name != null && channel instanceof GuildChannel guildChannel) {
+            ChannelNameController.forChannel(guildChannel.getId()).requestName(guildChannel, name);
+        }
+    }
 
-        // Determine color
-        Color color = determineColor(parent, children);
-        embed.setColor(color);
+    /**
+     * Maps every severity to the status channel name of a configuration.
+     */
+    private static Map<Severity, String> computeChannelNames(Config.Status config) {
+        Map<Severity, String> names = new EnumMap<>(Severity.class);
+        for (Severity severity : Severity.values()) {
+            String name = switch (severity) {
+                case MAJOR_OUTAGE -> config.getMajorOutageChannelName();
+                case PARTIAL_OUTAGE, DEGRADED -> config.getPartialOutageChannelName();
+                case MAINTENANCE -> config.getMaintenanceChannelName();
+                case OPERATIONAL, UNKNOWN -> config.getOperationalChannelName();
+            };
+            if (name != null) names.put(severity, name);
+        }
+        return names;
+    }
+
+    /**
+     * Renders a top-level service and its sub-services.
+     * Each sub-service becomes a field; large trees continue in further embeds.
+     */
+    static List<MessageEmbed> buildStatusEmbeds(Service parent, ServiceCatalog catalog, StatusHistory history, long now) {
+        // The color reflects the worst status in the whole subtree
+        Color color = determineColor(catalog.getRollup(parent.getServiceId()));
+        String title = EmbedLayout.truncate("Service Status - " + parent.getDisplayName(), MessageEmbed.TITLE_MAX_LENGTH - " (continued)".length());
 
         // Parent line
-        embed.appendDescription("**" + parent.getDisplayName() + "**\n");
-        embed.appendDescription(parent.getDescription() + "\n");
-        if (parent.getOutageDescription() != null && !parent.getOutageDescription().isEmpty()) {
-            embed.appendDescription("> " + parent.getStatus() + " - " + parent.getOutageDescription() + "\n\n");
-        } else embed.appendDescription("> " + parent.getStatus() + "\n\n");
-
-        // Child lines
-        if (!children.isEmpty()) {
-            embed.appendDescription("**Sub-services:**\n");
-            for (Service child : children) {
-                if (child.getOutageDescription() != null && !child.getOutageDescription().isEmpty()) {
-                    embed.appendDescription("\n> **" + child.getDisplayName() + "**\n> " + child.getDescription() + "\n> " + child.getStatus() + " - " + child.getOutageDescription() + "\n");
-                    continue;
-                }
-                embed.appendDescription("\n> **" + child.getDisplayName() + "**\n> " + child.getDescription() + "\n> " + child.getStatus() + "\n");
+        StringBuilder description = new StringBuilder();
+        description.append("**").append(parent.getDisplayName()).append("**\n");
+        description.append(parent.getDescription()).append("\n");
+        description.append("> ").append(statusLine(parent));
+        appendUptime(description, parent, history, now);
+
+        // Child fields
+        List<EmbedLayout.Block> blocks = new ArrayList<>();
+        for (Service child : catalog.getChildren(parent.getServiceId())) {
+            StringBuilder value = new StringBuilder();
+            value.append(child.getDescription()).append("\n").append(statusLine(child));
+            appendUptime(value, child, history, now);
+            value.append("\n");
+            for (Service grandchild : catalog.getChildren(child.getServiceId())) {
+                appendDescendant(value, grandchild, catalog, 1);
             }
+            blocks.add(new EmbedLayout.Block(child.getDisplayName(), value.toString()));
         }
 
-        return embed;
+        return EmbedLayout.layout(page -> EmbedUtils.createDefault()
+                .setTitle(page == 0 ? title : title + " (continued)")
+                .setColor(color), description.toString(), blocks);
     }
 
-    private static Color determineColor(Service parent, List<Service> children) {
-        List<Service> all = new ArrayList<>(children);
-        all.add(parent);
+    /**
+     * Appends a nested sub-service and its own descendants, indenting each level.
+     */
+    private static void appendDescendant(StringBuilder value, Service service, ServiceCatalog catalog, int depth) {
+        // Discord collapses regular spaces at the start of a line, em spaces are kept
+        String indent = "\u2003".repeat(depth);
+        value.append("\n").append(indent).append("**").append(service.getDisplayName()).append("**\n")
+                .append(indent).append(service.getDescription()).append("\n")
+                .append(indent).append(statusLine(service)).append("\n");
 
-        boolean anyDown = all.stream().anyMatch(s -> s.getStatus().contains("Major Outage"));
-        boolean anyPartial = all.stream().anyMatch(s -> s.getStatus().contains("Partial Outage"));
-        if (!anyPartial) anyPartial = all.stream().anyMatch(s -> s.getStatus().contains("Degraded Performance"));
-        boolean anyMaintenance = all.stream().anyMatch(s -> s.getStatus().contains("Maintenance"));
+        for (Service child : catalog.getChildren(service.getServiceId())) {
+            appendDescendant(value, child, catalog, depth + 1);
+        }
+    }
+
+    private static void appendUptime(StringBuilder text, Service service, StatusHistory history, long now) {
+        if (history == null) return;
+        String uptime = history.describeUptime(service.getServiceId(), now);
+        if (uptime != null) {
+            text.append("\nUptime: ").append(uptime);
+        }
+    }
+
+    private static String statusLine(Service service) {
+        if (service.getOutageDescription() != null && !service.getOutageDescription().isEmpty()) {
+            return service.getStatus() + " - " + service.getOutageDescription();
+        }
+        return service.getStatus();
+    }
 
-        if (anyDown) return Color.RED;
-        if (anyPartial) return Color.YELLOW;
-        if (anyMaintenance) return EmbedUtils.DEFAULT_COLOR;
-        return Color.GREEN;
+    static Color determineColor(Severity rollup) {
+        return switch (rollup) {
+            case MAJOR_OUTAGE -> Color.RED;
+            case PARTIAL_OUTAGE, DEGRADED -> Color.YELLOW;
+            case MAINTENANCE -> EmbedUtils.DEFAULT_COLOR;
+            case OPERATIONAL, UNKNOWN -> Color.GREEN;
+        };
     }
-}
\ No newline at end of file
+}
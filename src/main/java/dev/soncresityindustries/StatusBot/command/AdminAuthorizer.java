@@ -0,0 +1,172 @@
+package dev.soncresityindustries.StatusBot.command;
+
+import dev.soncresityindustries.StatusBot.Config;
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleAddEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleRemoveEvent;
+import net.dv8tion.jda.api.events.role.RoleDeleteEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Decides whether a member may operate the bot.
+ * The configured administrator role IDs are parsed into a sorted {@code long[]} once per configuration,
+ * so a check is a binary search per member role instead of comparing role ID strings. Verdicts are
+ * cached per member for a short time; a cache hit allocates nothing and does not look at the roles.
+ * Role changes seen on the gateway drop the verdict right away. Without the privileged member intent
+ * Discord does not send them, so the cache lifetime bounds how long a revoked role keeps working.
+ *
+ * @author SkyKing_PX
+ */
+public class AdminAuthorizer extends ListenerAdapter {
+
+    /** Number of cached verdicts, members whose IDs hash to the same slot replace each other */
+    private static final int CACHE_SLOTS = 1024;
+
+    private static AdminAuthorizer instance;
+
+    /**
+     * The administrator roles of one configuration.
+     *
+     * @param roleIds Sorted role IDs
+     * @param version Changes whenever all cached verdicts become invalid
+     * @param ttlNanos How long a verdict is cached
+     */
+    private record AdminRoles(long[] roleIds, long version, long ttlNanos) {
+    }
+
+    /**
+     * A cached verdict for one member.
+     */
+    private record Verdict(long guildId, long userId, long version, long expiresAt, boolean admin) {
+    }
+
+    private final AtomicReferenceArray<Verdict> verdicts = new AtomicReferenceArray<>(CACHE_SLOTS);
+    private final MetricsRegistry.Counter hits;
+    private final MetricsRegistry.Counter misses;
+    private volatile AdminRoles adminRoles = new AdminRoles(new long[0], 0, 0);
+
+    private AdminAuthorizer() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        hits = metrics.counter("statusbot_admin_verdict_cache_total", "Administrator checks answered by the verdict cache", "result", "hit");
+        misses = metrics.counter("statusbot_admin_verdict_cache_total", "Administrator checks answered by the verdict cache", "result", "miss");
+
+        Config.addReloadListener(config -> applyConfig(config.getBot()));
+    }
+
+    public static synchronized AdminAuthorizer getInstance() {
+        if (instance == null) {
+            instance = new AdminAuthorizer();
+        }
+        return instance;
+    }
+
+    /**
+     * Checks whether a member holds one of the configured administrator roles.
+     *
+     * @param member The member, may be null outside of guilds
+     * @return Whether the member may operate the bot
+     */
+    public boolean isAdmin(Member member) {
+        if (member == null) return false;
+
+        AdminRoles roles = adminRoles;
+        long guildId = member.getGuild().getIdLong();
+        long userId = member.getIdLong();
+        int slot = slot(guildId, userId);
+        long now = System.nanoTime();
+
+        Verdict cached = verdicts.get(slot);
+        if (cached != null && cached.userId() == userId && cached.guildId() == guildId
+                && cached.version() == roles.version() && now - cached.expiresAt() < 0) {
+            hits.inc();
+            return cached.admin();
+        }
+
+        misses.inc();
+        boolean admin = holdsAnyRole(member, roles.roleIds());
+        verdicts.set(slot, new Verdict(guildId, userId, roles.version(), now + roles.ttlNanos(), admin));
+        return admin;
+    }
+
+    private static boolean holdsAnyRole(Member member, long[] roleIds) {
+        if (roleIds.length == 0) return false;
+        for (Role role : member.getUnsortedRoles()) {
+            if (Arrays.binarySearch(roleIds, role.getIdLong()) >= 0) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void onGuildMemberRoleAdd(@NotNull GuildMemberRoleAddEvent event) {
+        invalidate(event.getGuild().getIdLong(), event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onGuildMemberRoleRemove(@NotNull GuildMemberRoleRemoveEvent event) {
+        invalidate(event.getGuild().getIdLong(), event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onGuildMemberRemove(@NotNull GuildMemberRemoveEvent event) {
+        invalidate(event.getGuild().getIdLong(), event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onRoleDelete(@NotNull RoleDeleteEvent event) {
+        if (Arrays.binarySearch(adminRoles.roleIds(), event.getRole().getIdLong()) >= 0) {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Drops the cached verdict of a member.
+     */
+    public void invalidate(long guildId, long userId) {
+        int slot = slot(guildId, userId);
+        Verdict cached = verdicts.get(slot);
+        if (cached != null && cached.userId() == userId && cached.guildId() == guildId) {
+            verdicts.compareAndSet(slot, cached, null);
+        }
+    }
+
+    /**
+     * Drops every cached verdict.
+     */
+    public synchronized void invalidateAll() {
+        AdminRoles roles = adminRoles;
+        adminRoles = new AdminRoles(roles.roleIds(), roles.version() + 1, roles.ttlNanos());
+    }
+
+    private synchronized void applyConfig(Config.Bot config) {
+        String[] configured = config.getAdministratorRoleIDs() != null ? config.getAdministratorRoleIDs() : new String[0];
+        long[] roleIds = new long[configured.length];
+        int count = 0;
+        for (String roleId : configured) {
+            try {
+                roleIds[count] = Long.parseLong(String.valueOf(roleId).trim());
+                count++;
+            } catch (NumberFormatException e) {
+                LogUtils.logWarning("Ignoring administrator role ID that is not a snowflake", roleId);
+            }
+        }
+        roleIds = Arrays.copyOf(roleIds, count);
+        Arrays.sort(roleIds);
+
+        long ttl = TimeUnit.SECONDS.toNanos(Math.max(0, config.getPermissionCacheSeconds()));
+        adminRoles = new AdminRoles(roleIds, adminRoles.version() + 1, ttl);
+    }
+
+    private static int slot(long guildId, long userId) {
+        long hash = (userId ^ guildId * 31) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 54) & (CACHE_SLOTS - 1);
+    }
+}
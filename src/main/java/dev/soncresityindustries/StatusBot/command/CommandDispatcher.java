@@ -0,0 +1,159 @@
+package dev.soncresityindustries.StatusBot.command;
+
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs command handlers on virtual threads instead of JDA's event thread.
+ * Handlers write to the storage and wait for the journal, so a slow disk would otherwise hold up
+ * every gateway event. Handlers sharing an ordering key, e.g. updates of the same service, run one
+ * after another in the order they were dispatched; all others run concurrently. A handler ordered on
+ * a whole scope, e.g. a bulk update of a guild, runs after every handler dispatched in that scope
+ * before it, and every handler dispatched in the scope after it waits for it.
+ *
+ * @author SkyKing_PX
+ */
+public class CommandDispatcher {
+
+    private static CommandDispatcher instance;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    /** The last handler dispatched per scope and key, completing once it ran; guarded by this */
+    private final Map<Ordering, CompletableFuture<Void>> tails = new HashMap<>();
+    /** The last handler dispatched on a whole scope; guarded by this */
+    private final Map<String, CompletableFuture<Void>> barriers = new HashMap<>();
+    /** Keyed handlers per scope that have not run yet; guarded by this */
+    private final Map<String, Set<CompletableFuture<Void>>> pending = new HashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final MetricsRegistry.Histogram waitTimes;
+
+    private CommandDispatcher() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("statusbot_command_queue_depth", "Command handlers waiting to run", queued::get);
+        metrics.gauge("statusbot_command_handlers_running", "Command handlers running", running::get);
+        waitTimes = metrics.histogram("statusbot_command_wait_seconds", "Time command handlers waited to run");
+    }
+
+    public static synchronized CommandDispatcher getInstance() {
+        if (instance == null) {
+            instance = new CommandDispatcher();
+        }
+        return instance;
+    }
+
+    /**
+     * Runs a handler on a virtual thread.
+     *
+     * @param name Name of the handler, labels its latency
+     * @param ordering Handlers it runs after, or null to run right away
+     * @param handler The handler; exceptions are logged
+     * @return Future completing once the handler ran
+     */
+    public CompletableFuture<Void> dispatch(String name, Ordering ordering, Runnable handler) {
+        long dispatchedAt = System.nanoTime();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        MetricsRegistry.Histogram latency = MetricsRegistry.getInstance().histogram("statusbot_command_handler_seconds",
+                "Time taken by command handlers", "handler", name);
+
+        Runnable task = () -> {
+            queued.decrementAndGet();
+            running.incrementAndGet();
+            long start = System.nanoTime();
+            waitTimes.observe((start - dispatchedAt) / 1e9);
+            try {
+                handler.run();
+            } catch (RuntimeException e) {
+                LogUtils.logException("Error in command handler " + name, e);
+            } finally {
+                latency.observeSince(start);
+                running.decrementAndGet();
+                done.complete(null);
+            }
+        };
+
+        queued.incrementAndGet();
+        if (ordering == null) {
+            executor.execute(task);
+            return done;
+        }
+
+        List<CompletableFuture<Void>> before = order(ordering, done);
+        if (before.isEmpty()) executor.execute(task);
+        else CompletableFuture.allOf(before.toArray(CompletableFuture[]::new)).whenComplete((v, e) -> executor.execute(task));
+        // Forget the handler once it ran, so idle scopes and keys take no memory
+        done.whenComplete((v, e) -> forget(ordering, done));
+        return done;
+    }
+
+    /**
+     * Registers a handler in its scope.
+     *
+     * @return The handlers it has to wait for
+     */
+    private synchronized List<CompletableFuture<Void>> order(Ordering ordering, CompletableFuture<Void> done) {
+        List<CompletableFuture<Void>> before = new ArrayList<>();
+        CompletableFuture<Void> barrier = barriers.get(ordering.scope());
+        if (barrier != null) before.add(barrier);
+
+        if (ordering.key() == null) {
+            // Waits for every keyed handler of the scope; the earlier ones already wait for the previous barrier
+            Set<CompletableFuture<Void>> keyed = pending.remove(ordering.scope());
+            if (keyed != null) before.addAll(keyed);
+            barriers.put(ordering.scope(), done);
+        } else {
+            CompletableFuture<Void> previous = tails.put(ordering, done);
+            if (previous != null) before.add(previous);
+            pending.computeIfAbsent(ordering.scope(), scope -> new HashSet<>()).add(done);
+        }
+        return before;
+    }
+
+    private synchronized void forget(Ordering ordering, CompletableFuture<Void> done) {
+        if (ordering.key() == null) {
+            barriers.remove(ordering.scope(), done);
+            return;
+        }
+        tails.remove(ordering, done);
+        Set<CompletableFuture<Void>> keyed = pending.get(ordering.scope());
+        if (keyed != null && keyed.remove(done) && keyed.isEmpty()) pending.remove(ordering.scope());
+    }
+
+    /**
+     * Which handlers a handler runs after.
+     *
+     * @param scope Scope of the handler, e.g. a guild
+     * @param key Handlers with the same scope and key run in dispatch order, or null to order the handler
+     *            against every handler of the scope
+     */
+    public record Ordering(String scope, String key) {
+
+        /** @return Ordering running after earlier handlers with the same key and after earlier handlers on the whole scope */
+        public static Ordering of(String scope, String key) {
+            return new Ordering(scope, key);
+        }
+
+        /** @return Ordering running after every earlier handler of the scope */
+        public static Ordering scope(String scope) {
+            return new Ordering(scope, null);
+        }
+    }
+
+    // --- Metrics ---
+
+    /** @return Number of handlers waiting to run, either for a thread or for an earlier handler with the same key */
+    public int getQueueDepth() { return queued.get(); }
+    /** @return Number of handlers running */
+    public int getRunning() { return running.get(); }
+}
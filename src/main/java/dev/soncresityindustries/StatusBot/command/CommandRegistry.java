@@ -1,5 +1,6 @@
 package dev.soncresityindustries.StatusBot.command;
 
+import dev.soncresityindustries.StatusBot.storage.Severity;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
@@ -22,12 +23,14 @@ public class CommandRegistry {
      * @return List of CommandData objects to register with Discord
      */
     public static List<CommandData> registerCommands() {
-        OptionData statusOption = new OptionData(OptionType.STRING, "status", "Service status", true)
-                .addChoice("Operational", "operational")
-                .addChoice("Degraded Performance", "degraded")
-                .addChoice("Partial Outage", "partial_outage")
-                .addChoice("Major Outage", "major_outage")
-                .addChoice("Maintenance", "maintenance");
+        OptionData statusOption = new OptionData(OptionType.STRING, "status", "Service status", true);
+        OptionData bulkStatusOption = new OptionData(OptionType.STRING, "status", "New status of the selected services", false);
+        for (Severity severity : Severity.values()) {
+            if (severity != Severity.UNKNOWN) {
+                statusOption.addChoice(severity.getDisplayName(), severity.getKey());
+                bulkStatusOption.addChoice(severity.getDisplayName(), severity.getKey());
+            }
+        }
 
         CommandData status = Commands.slash("status", "Manage or view service statuses")
                 .addSubcommands(
@@ -35,19 +38,32 @@ public class CommandRegistry {
                                 .addOption(OptionType.STRING, "displayname", "Display name of the service", true)
                                 .addOption(OptionType.STRING, "serviceid", "Unique ID of the service", true)
                                 .addOption(OptionType.STRING, "description", "Short description of the service", true)
-                                .addOption(OptionType.STRING, "parentid", "Optional parent service ID", false),
+                                .addOption(OptionType.STRING, "parentid", "Optional parent service ID", false)
+                                .addOption(OptionType.STRING, "check", "Optional health check target (https://... or tcp://host:port)", false),
 
                         new SubcommandData("update", "Update the status of an existing service")
                                 .addOption(OptionType.STRING, "serviceid", "Service ID to update", true)
                                 .addOptions(statusOption)
                                 .addOption(OptionType.STRING, "description", "New description", false)
                                 .addOption(OptionType.STRING, "outage-description", "Outage description (Use \"Remove Outage Description\" to clear it)", false)
-                                .addOption(OptionType.BOOLEAN, "remove-outage-description", "Remove the current outage description", false),
+                                .addOption(OptionType.BOOLEAN, "remove-outage-description", "Remove the current outage description", false)
+                                .addOption(OptionType.STRING, "check", "Health check target (https://... or tcp://host:port, \"none\" to disable)", false),
+
+                        new SubcommandData("bulk", "Update many services at once, with a single refresh")
+                                .addOption(OptionType.STRING, "selector", "Services to update: all, id:a,b, children:X, tree:X or severity:key", false)
+                                .addOptions(bulkStatusOption)
+                                .addOption(OptionType.STRING, "description", "New description", false)
+                                .addOption(OptionType.STRING, "outage-description", "New outage description", false)
+                                .addOption(OptionType.BOOLEAN, "remove-outage-description", "Remove the current outage descriptions", false)
+                                .addOption(OptionType.ATTACHMENT, "file", "JSON array of changes to import instead of a selector", false),
 
                         new SubcommandData("remove", "Remove a service from the list")
                                 .addOption(OptionType.STRING, "serviceid", "Service ID to remove", true),
 
-                        new SubcommandData("list", "List all registered services and their statuses")
+                        new SubcommandData("list", "List all registered services and their statuses"),
+
+                        new SubcommandData("uptime", "Show the uptime of a service")
+                                .addOption(OptionType.STRING, "serviceid", "Service ID to show the uptime of", true)
                 );
 
         return List.of(status);
@@ -1,89 +1,117 @@
 package dev.soncresityindustries.StatusBot.command;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import dev.soncresityindustries.StatusBot.Config;
+import dev.soncresityindustries.StatusBot.health.HealthChecker;
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import dev.soncresityindustries.StatusBot.storage.BulkUpdate;
+import dev.soncresityindustries.StatusBot.storage.GuildTenants;
 import dev.soncresityindustries.StatusBot.storage.Service;
+import dev.soncresityindustries.StatusBot.storage.ServiceCatalog;
+import dev.soncresityindustries.StatusBot.storage.Severity;
+import dev.soncresityindustries.StatusBot.storage.StatusHistory;
 import dev.soncresityindustries.StatusBot.storage.StatusStorage;
+import dev.soncresityindustries.StatusBot.util.EmbedLayout;
 import dev.soncresityindustries.StatusBot.util.EmbedUtils;
-import dev.soncresityindustries.StatusBot.util.LogUtils;
 import dev.soncresityindustries.StatusBot.util.MessageHandler;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.components.actionrow.ActionRow;
+import net.dv8tion.jda.api.components.buttons.Button;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
 
 public class StatusCommand extends ListenerAdapter {
 
-    private final StatusStorage storage = StatusStorage.getInstance();
+    private static final String LIST_BUTTON_PREFIX = "status-list:";
+    /** Largest JSON file accepted by {@code /status bulk} */
+    private static final int MAX_IMPORT_BYTES = 1024 * 1024;
+    private static final JsonFactory JSON = new JsonFactory();
 
-    public StatusCommand() {
-    }
+    private volatile ListPages listPages;
 
-    private static String evalStatus(String status) {
-        return switch (status) {
-            case "operational" -> "🟢 Operational";
-            case "degraded" -> "🟡 Degraded Performance";
-            case "partial_outage" -> "🟡 Partial Outage";
-            case "major_outage" -> "🔴 Major Outage";
-            case "maintenance" -> "🔵 Maintenance";
-            default -> "⚪ Unknown Status";
-        };
+    public StatusCommand() {
     }
 
     @Override
     public void onSlashCommandInteraction(@NotNull SlashCommandInteractionEvent event) {
         if (!event.getName().equals("status")) return;
-        event.deferReply(true).queue();
 
-        try {
-            String[] adminRoleIds = Config.get().getBot().getAdministratorRoleIDs();
-            boolean hasAdminRole = false;
-
-            var member = event.getMember();
-            if (member != null) {
-                for (String adminRoleId : adminRoleIds) {
-                    if (member.getRoles().stream().anyMatch(role -> role.getId().equals(adminRoleId))) {
-                        hasAdminRole = true;
-                        break;
-                    }
-                }
-            }
+        long start = System.nanoTime();
+        event.deferReply(true).queue();
 
-            if (!hasAdminRole) {
-                event.getHook().sendMessageEmbeds(EmbedUtils.createSimpleError("❌ You are not authorized to use this command."))
-                        .setEphemeral(true).queue();
-                return;
-            }
-        } catch (Exception e) {
-            LogUtils.logException("Error checking admin roles", e);
+        if (!AdminAuthorizer.getInstance().isAdmin(event.getMember())) {
+            event.getHook().sendMessageEmbeds(EmbedUtils.createSimpleError("❌ You are not authorized to use this command."))
+                    .setEphemeral(true).queue();
             return;
         }
 
+        // Storage writes wait for the disk, so they run off the event thread and reply through the hook
+        String sub = String.valueOf(event.getSubcommandName());
+        CommandDispatcher.getInstance().dispatch("status " + sub, ordering(event), () -> handleStatusCommand(event))
+                .whenComplete((v, e) -> MetricsRegistry.getInstance().histogram("statusbot_command_seconds", "Time taken to handle a /status command",
+                        "subcommand", sub).observeSince(start));
+    }
+
+    /**
+     * Commands naming a service run in order per guild and service, so two updates of the same
+     * service are applied in the order they were sent. A bulk update may touch any service of the
+     * guild, so it runs after every earlier write of the guild and every later write waits for it.
+     * Reads are not ordered.
+     *
+     * @return The ordering, or null if the command may run right away
+     */
+    private static CommandDispatcher.Ordering ordering(SlashCommandInteractionEvent event) {
+        if (event.getGuild() == null) return null;
+        String guildId = event.getGuild().getId();
+        if ("bulk".equals(event.getSubcommandName())) return CommandDispatcher.Ordering.scope(guildId);
+
+        OptionMapping serviceId = event.getOption("serviceid");
+        if (serviceId == null || "uptime".equals(event.getSubcommandName())) return null;
+        return CommandDispatcher.Ordering.of(guildId, serviceId.getAsString());
+    }
+
+    private void handleStatusCommand(SlashCommandInteractionEvent event) {
         String sub = event.getSubcommandName();
         MessageEmbed embed;
 
         try {
+            StatusStorage storage = storageOf(event.getGuild());
             switch (sub) {
                 case "add" -> {
                     String displayName = event.getOption("displayname").getAsString();
                     String id = event.getOption("serviceid").getAsString();
-                    String status = "🟢 Operational";
                     String outageDescription = "";
                     String description = event.getOption("description").getAsString();
                     String parentId = event.getOption("parentid") != null
                             ? event.getOption("parentid").getAsString()
                             : null;
+                    String checkTarget = event.getOption("check") != null
+                            ? event.getOption("check").getAsString()
+                            : null;
 
                     if (parentId != null && storage.getService(parentId) == null) {
                         embed = EmbedUtils.createErrorEmbed("Error", "Parent service with ID `" + parentId + "` not found.");
                         break;
                     }
 
-                    Service service = new Service(displayName, id, status, outageDescription, description, parentId);
+                    if (checkTarget != null) {
+                        HealthChecker.validate(checkTarget);
+                    }
+
+                    Service service = new Service(displayName, id, Severity.OPERATIONAL, outageDescription, description, parentId, checkTarget);
                     storage.addService(service, event.getJDA());
 
                     embed = EmbedUtils.createSuccess()
@@ -95,36 +123,46 @@ public class StatusCommand extends ListenerAdapter {
 
                 case "update" -> {
                     String id = event.getOption("serviceid").getAsString();
-                    String status = evalStatus(event.getOption("status").getAsString());
-                    String description = "";
-                    try {
-                        description = event.getOption("description").getAsString();
-                    } catch (NullPointerException ignored) {}
-                    String outageDescription = "";
-                    try {
-                        outageDescription = event.getOption("outage-description").getAsString();
-                    } catch (NullPointerException ignored) {}
-                    boolean removeOutageDescription = false;
-                    try {
-                        removeOutageDescription = event.getOption("remove-outage-description").getAsBoolean();
-                    } catch (NullPointerException ignored) {}
-
-                    if (description.isEmpty()) {
-                        description = storage.getService(id).getDescription();
-                    }
+                    Severity severity = Severity.fromKey(event.getOption("status").getAsString());
+                    OptionMapping descriptionOption = event.getOption("description");
+                    OptionMapping outageOption = event.getOption("outage-description");
+                    OptionMapping removeOutageOption = event.getOption("remove-outage-description");
+                    OptionMapping checkOption = event.getOption("check");
 
-                    if (outageDescription.isEmpty()) {
-                        outageDescription = storage.getService(id).getOutageDescription();
+                    // Null keeps the current value, resolved by the storage when it applies the update
+                    String description = descriptionOption != null ? descriptionOption.getAsString() : null;
+                    String outageDescription = removeOutageOption != null && removeOutageOption.getAsBoolean() ? ""
+                            : outageOption != null ? outageOption.getAsString() : null;
+                    boolean changeCheck = checkOption != null;
+                    String checkTarget = changeCheck ? checkOption.getAsString() : null;
+                    if (changeCheck && checkTarget.equalsIgnoreCase("none")) {
+                        checkTarget = null;
+                    } else if (changeCheck) {
+                        HealthChecker.validate(checkTarget);
                     }
+                    String newCheckTarget = checkTarget;
 
-                    if (removeOutageDescription) {
-                        outageDescription = "";
-                    }
+                    // Status and check target change together, as a single journal record
+                    boolean updated = storage.updateService(id, service -> {
+                        Service next = service.withUpdatedStatus(severity,
+                                description != null ? description : service.getDescription(),
+                                outageDescription != null ? outageDescription : service.getOutageDescription());
+                        return changeCheck ? next.withCheckTarget(newCheckTarget) : next;
+                    }, event.getJDA());
 
-                    storage.updateService(id, status, description, outageDescription, event.getJDA());
+                    if (!updated) {
+                        embed = EmbedUtils.createErrorEmbed("Error", "Service with ID `" + id + "` not found.");
+                        break;
+                    }
                     embed = EmbedUtils.createSuccess().setTitle("Service updated successfully")
                             .setDescription("✅ Updated service `" + id + "`").build();
                 }
+                case "bulk" -> {
+                    BulkUpdate update = readBulkUpdate(event);
+                    int changed = storage.applyBulkUpdate(update, event.getJDA());
+                    embed = EmbedUtils.createSuccess().setTitle("Services updated successfully")
+                            .setDescription("✅ Updated " + changed + " service(s) with " + update.getChanges().size() + " change(s)").build();
+                }
                 case "remove" -> {
                     String id = event.getOption("serviceid").getAsString();
                     storage.removeService(id, event.getJDA());
@@ -132,11 +170,29 @@ public class StatusCommand extends ListenerAdapter {
                             .setDescription("🗑️ Removed service `" + id + "`").build();
                 }
                 case "list" -> {
-                    String description = buildHierarchicalList(storage.getAllServices());
-                    embed = EmbedUtils.createDefault()
-                            .setTitle("📋 Registered Services")
-                            .setDescription(description)
-                            .build();
+                    List<String> pages = getListPages(storage);
+                    event.getHook().sendMessageEmbeds(buildListPage(pages, 0))
+                            .setComponents(buildListButtons(0, pages.size()))
+                            .queue();
+                    return;
+                }
+                case "uptime" -> {
+                    String id = event.getOption("serviceid").getAsString();
+                    Service service = storage.getService(id);
+                    if (service == null) {
+                        embed = EmbedUtils.createErrorEmbed("Error", "Service with ID `" + id + "` not found.");
+                        break;
+                    }
+
+                    EmbedBuilder builder = EmbedUtils.createDefault()
+                            .setTitle("📈 Uptime - " + service.getDisplayName())
+                            .setDescription("**Current Status:** `" + service.getStatus() + "`");
+                    long now = System.currentTimeMillis();
+                    for (StatusHistory.Window window : StatusHistory.Window.values()) {
+                        Double uptime = storage.getHistory().getUptime(id, window, now);
+                        builder.addField(window.getLabel(), uptime != null ? StatusHistory.formatPercent(uptime) : "No data", true);
+                    }
+                    embed = builder.build();
                 }
                 default -> embed = EmbedUtils.createErrorEmbed("Error", "Unknown subcommand");
             }
@@ -148,34 +204,165 @@ public class StatusCommand extends ListenerAdapter {
         MessageHandler.sendPreparedMessage(event, embed);
     }
 
-    private String buildHierarchicalList(Collection<Service> services) {
-        if (services.isEmpty()) return "No services found.";
+    /**
+     * Builds the update of {@code /status bulk}, either from its options or from an attached JSON file.
+     *
+     * @throws IllegalArgumentException If the options do not describe a change
+     * @throws IOException If the file cannot be downloaded or read
+     */
+    private static BulkUpdate readBulkUpdate(SlashCommandInteractionEvent event) throws IOException {
+        OptionMapping file = event.getOption("file");
+        OptionMapping selector = event.getOption("selector");
+        OptionMapping status = event.getOption("status");
+        OptionMapping description = event.getOption("description");
+        OptionMapping outageDescription = event.getOption("outage-description");
+        OptionMapping removeOutageDescription = event.getOption("remove-outage-description");
+
+        if (file != null) {
+            if (selector != null) throw new IllegalArgumentException("Use either a selector or a file, not both.");
+            Message.Attachment attachment = file.getAsAttachment();
+            if (attachment.getSize() > MAX_IMPORT_BYTES) {
+                throw new IllegalArgumentException("The file is larger than " + MAX_IMPORT_BYTES / 1024 + " KiB.");
+            }
+            try (InputStream in = attachment.getProxy().download().get();
+                 JsonParser parser = JSON.createParser(in)) {
+                parser.nextToken();
+                return BulkUpdate.read(parser);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while downloading " + attachment.getFileName(), e);
+            } catch (ExecutionException e) {
+                throw new IOException("Could not download " + attachment.getFileName(), e.getCause());
+            }
+        }
+
+        if (selector == null) throw new IllegalArgumentException("Give a selector or a JSON file of changes.");
+        String outage = removeOutageDescription != null && removeOutageDescription.getAsBoolean() ? ""
+                : outageDescription != null ? outageDescription.getAsString() : null;
+        if (status == null && description == null && outage == null) {
+            throw new IllegalArgumentException("Give a status, description or outage description to set.");
+        }
+        return new BulkUpdate(List.of(new BulkUpdate.Change(selector.getAsString(),
+                status != null ? Severity.fromKey(status.getAsString()) : null,
+                description != null ? description.getAsString() : null,
+                outage)));
+    }
+
+    @Override
+    public void onButtonInteraction(@NotNull ButtonInteractionEvent event) {
+        if (!event.getComponentId().startsWith(LIST_BUTTON_PREFIX)) return;
 
-        // Group by parent ID
-        Map<String, List<Service>> grouped = services.stream()
-                .collect(Collectors.groupingBy(s -> s.hasParent() ? s.getParentId() : "root"));
+        // Opening the guild's storage may read from disk
+        event.deferEdit().queue();
+        CommandDispatcher.getInstance().dispatch("status list page", null, () -> showListPage(event));
+    }
 
-        StringBuilder sb = new StringBuilder();
-        List<Service> roots = grouped.getOrDefault("root", List.of());
+    private void showListPage(ButtonInteractionEvent event) {
+        List<String> pages;
+        try {
+            pages = getListPages(storageOf(event.getGuild()));
+        } catch (Exception e) {
+            event.getHook().sendMessageEmbeds(EmbedUtils.createErrorEmbed("Error", e.getMessage())).setEphemeral(true).queue();
+            return;
+        }
+        int page;
+        try {
+            page = Integer.parseInt(event.getComponentId().substring(LIST_BUTTON_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            page = 0;
+        }
+        // The list may have shrunk since the page was shown
+        page = Math.max(0, Math.min(page, pages.size() - 1));
+
+        event.getHook().editOriginalEmbeds(buildListPage(pages, page))
+                .setComponents(buildListButtons(page, pages.size()))
+                .queue();
+    }
 
-        for (Service root : roots) {
-            appendService(sb, root, grouped, 0);
+    /**
+     * Gets the storage of the guild a command was used in.
+     *
+     * @throws IllegalStateException If the guild has no status channel configured
+     */
+    private static StatusStorage storageOf(Guild guild) throws IOException {
+        if (guild == null) throw new IllegalStateException("This command can only be used in a server.");
+        if (Config.get().getStatusChannelId(guild.getId()) == null) {
+            throw new IllegalStateException("This server has no status channel configured.");
         }
+        return GuildTenants.getInstance().get(guild.getId());
+    }
 
-        return sb.toString();
+    /**
+     * Gets the pages of the service list, rendered once per catalog version.
+     */
+    private List<String> getListPages(StatusStorage storage) {
+        ServiceCatalog catalog = storage.getCatalog();
+        ListPages cached = listPages;
+        if (cached == null || !cached.guildId().equals(storage.getGuildId()) || cached.version() != catalog.getVersion()) {
+            cached = new ListPages(storage.getGuildId(), catalog.getVersion(), EmbedLayout.paginate(buildHierarchicalList(catalog), MessageEmbed.DESCRIPTION_MAX_LENGTH));
+            listPages = cached;
+        }
+        return cached.pages();
     }
 
-    private void appendService(StringBuilder sb, Service service, Map<String, List<Service>> grouped, int depth) {
+    private MessageEmbed buildListPage(List<String> pages, int page) {
+        String title = "📋 Registered Services";
+        if (pages.size() > 1) {
+            title += " (" + (page + 1) + "/" + pages.size() + ")";
+        }
+        return EmbedUtils.createDefault()
+                .setTitle(title)
+                .setDescription(pages.get(page))
+                .build();
+    }
+
+    private List<ActionRow> buildListButtons(int page, int pageCount) {
+        if (pageCount <= 1) return List.of();
+        return List.of(ActionRow.of(
+                Button.secondary(LIST_BUTTON_PREFIX + (page - 1), "◀ Previous").withDisabled(page == 0),
+                Button.secondary(LIST_BUTTON_PREFIX + (page + 1), "Next ▶").withDisabled(page >= pageCount - 1)));
+    }
+
+    /**
+     * Renders the service tree as one entry per service, so pages never cut through a service.
+     */
+    static List<String> buildHierarchicalList(ServiceCatalog catalog) {
+        if (catalog.size() == 0) return List.of("No services found.");
+
+        List<String> entries = new ArrayList<>();
+        for (Service root : catalog.getRoots()) {
+            appendService(entries, root, catalog, 0);
+        }
+
+        return entries;
+    }
+
+    private static void appendService(List<String> entries, Service service, ServiceCatalog catalog, int depth) {
         String indent = "  ".repeat(depth);
+        StringBuilder sb = new StringBuilder();
         sb.append(indent)
                 .append("• **").append(service.getDisplayName()).append("**")
-                .append(" (**ID:** `").append(service.getServiceId()).append("` | **Status:** `").append(service.getStatus()).append("`)")
+                .append(" (**ID:** `").append(service.getServiceId()).append("` | **Status:** `").append(service.getStatus()).append("`");
+
+        // Show when a sub-service is worse off than the service itself
+        Severity rollup = catalog.getRollup(service.getServiceId());
+        if (rollup != null && rollup != service.getSeverity()) {
+            sb.append(" | **Sub-services:** `").append(rollup.getLabel()).append("`");
+        }
+
+        sb.append(")")
                 .append("\n")
                 .append(indent).append("  ").append(service.getDescription()).append("\n");
+        entries.add(sb.toString());
 
-        List<Service> children = grouped.getOrDefault(service.getServiceId(), List.of());
-        for (Service child : children) {
-            appendService(sb, child, grouped, depth + 1);
+        for (Service child : catalog.getChildren(service.getServiceId())) {
+            appendService(entries, child, catalog, depth + 1);
         }
     }
+
+    /**
+     * Rendered pages of the service list and the guild and catalog version they were rendered from.
+     */
+    private record ListPages(String guildId, long version, List<String> pages) {
+    }
 }
@@ -0,0 +1,21 @@
+package dev.soncresityindustries.StatusBot.health;
+
+/**
+ * Outcome of a single health check probe.
+ *
+ * @param healthy Whether the endpoint answered successfully
+ * @param latencyMillis Time the probe took, in milliseconds
+ * @param error Reason the probe failed, or null if it succeeded
+ *
+ * @author SkyKing_PX
+ */
+public record CheckResult(boolean healthy, long latencyMillis, String error) {
+
+    public static CheckResult healthy(long latencyMillis) {
+        return new CheckResult(true, latencyMillis, null);
+    }
+
+    public static CheckResult failed(long latencyMillis, String error) {
+        return new CheckResult(false, latencyMillis, error);
+    }
+}
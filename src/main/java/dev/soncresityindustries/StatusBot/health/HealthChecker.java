@@ -0,0 +1,161 @@
+package dev.soncresityindustries.StatusBot.health;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Probes HTTP(S) and TCP endpoints.
+ * HTTP checks share a pooled async client, so thousands of endpoints are served by a few I/O threads.
+ * Failed requests are not retried; every probe reports what it saw and {@link TransitionFilter} decides what a failure means.
+ * The probe methods block until the result is known and are meant to be called from virtual threads.
+ *
+ * @author SkyKing_PX
+ */
+public class HealthChecker implements AutoCloseable {
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final long timeoutMillis;
+
+    /**
+     * Creates a health checker and starts its HTTP client.
+     *
+     * @param maxConnections Maximum number of pooled HTTP connections
+     * @param maxConnectionsPerRoute Maximum number of pooled HTTP connections per host
+     * @param timeoutMillis Time after which a probe counts as failed
+     */
+    public HealthChecker(int maxConnections, int maxConnectionsPerRoute, long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        Timeout timeout = Timeout.ofMilliseconds(timeoutMillis);
+
+        this.httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(maxConnections)
+                        .setMaxConnPerRoute(maxConnectionsPerRoute)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(timeout)
+                                .setSocketTimeout(timeout)
+                                .build())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(timeout)
+                        .setResponseTimeout(timeout)
+                        .setRedirectsEnabled(true)
+                        .build())
+                .disableCookieManagement()
+                .disableAutomaticRetries()
+                .build();
+        this.httpClient.start();
+    }
+
+    /**
+     * Checks whether a check target is well-formed.
+     *
+     * @param target The check target
+     * @throws IllegalArgumentException If the target is not an {@code http(s)://} URL or a {@code tcp://host:port} address
+     */
+    public static void validate(String target) {
+        URI uri;
+        try {
+            uri = URI.create(target);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid check target `" + target + "`");
+        }
+
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase();
+        switch (scheme) {
+            case "http", "https" -> {
+                if (uri.getHost() == null) throw new IllegalArgumentException("Check target `" + target + "` has no host");
+            }
+            case "tcp" -> {
+                if (uri.getHost() == null || uri.getPort() < 0) {
+                    throw new IllegalArgumentException("TCP check target `" + target + "` must be tcp://host:port");
+                }
+            }
+            default -> throw new IllegalArgumentException("Check target must start with http://, https:// or tcp://");
+        }
+    }
+
+    /**
+     * Probes a check target.
+     *
+     * @param target An {@code http(s)://} URL or a {@code tcp://host:port} address
+     * @return The result of the probe
+     */
+    public CheckResult check(String target) {
+        long start = System.nanoTime();
+        try {
+            URI uri = URI.create(target);
+            String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase();
+            return switch (scheme) {
+                case "http", "https" -> checkHttp(uri, start);
+                case "tcp" -> checkTcp(uri, start);
+                default -> CheckResult.failed(0, "Unsupported check target");
+            };
+        } catch (IllegalArgumentException e) {
+            return CheckResult.failed(0, "Invalid check target");
+        }
+    }
+
+    /**
+     * Sends a GET request; any response below 400 counts as healthy.
+     */
+    private CheckResult checkHttp(URI uri, long start) {
+        Future<SimpleHttpResponse> response = httpClient.execute(SimpleRequestBuilder.get(uri).build(), null);
+        try {
+            int code = response.get(timeoutMillis, TimeUnit.MILLISECONDS).getCode();
+            long latency = elapsedMillis(start);
+            return code < 400 ? CheckResult.healthy(latency) : CheckResult.failed(latency, "HTTP " + code);
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            return CheckResult.failed(elapsedMillis(start), "Timed out after " + timeoutMillis + "ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return CheckResult.failed(elapsedMillis(start), describe(cause));
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            return CheckResult.failed(elapsedMillis(start), "Interrupted");
+        }
+    }
+
+    /**
+     * Opens and closes a TCP connection.
+     */
+    private CheckResult checkTcp(URI uri, long start) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(uri.getHost(), uri.getPort()), (int) timeoutMillis);
+            return CheckResult.healthy(elapsedMillis(start));
+        } catch (IOException e) {
+            return CheckResult.failed(elapsedMillis(start), describe(e));
+        }
+    }
+
+    private static String describe(Throwable e) {
+        return e.getMessage() != null ? e.getClass().getSimpleName() + ": " + e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Override
+    public void close() {
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+}
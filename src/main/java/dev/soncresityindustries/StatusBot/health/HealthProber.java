@@ -0,0 +1,198 @@
+package dev.soncresityindustries.StatusBot.health;
+
+import dev.soncresityindustries.StatusBot.Config;
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import dev.soncresityindustries.StatusBot.storage.Service;
+import dev.soncresityindustries.StatusBot.storage.Severity;
+import dev.soncresityindustries.StatusBot.storage.StatusStorage;
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+import net.dv8tion.jda.api.JDA;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Periodically probes every service with a check target and updates its status from the results.
+ * One prober serves the storages of all guilds, so they share the HTTP client and the concurrency limit.
+ * Results pass through a {@link TransitionFilter} first, so only stable status changes reach the storage.
+ * Each probe runs on its own virtual thread and a semaphore bounds how many run at once,
+ * so thousands of endpoints cost no more than a few platform threads.
+ * Services whose status was set by hand, e.g. maintenance or a declared outage, are not probed
+ * until they are set back to operational, so a manual status is never overwritten.
+ *
+ * @author SkyKing_PX
+ */
+public class HealthProber {
+
+    /** Prefix of outage descriptions set by the prober, so they can be cleared again on recovery */
+    public static final String OUTAGE_PREFIX = "Health check ";
+
+    private final Supplier<? extends Collection<StatusStorage>> storages;
+    private final Config.HealthChecks config;
+    private final HealthChecker checker;
+    private final TransitionFilter filter;
+    private final Semaphore permits;
+    private final ExecutorService probeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "HealthProber");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Services with a probe still running, by {@link #probeKey}, which are skipped by the next round */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private volatile JDA jda;
+
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong failedProbes = new AtomicLong();
+    private final AtomicLong skippedProbes = new AtomicLong();
+
+    /**
+     * Creates a prober for the services of several storages.
+     *
+     * @param storages Supplies the storages holding the services to probe, asked again every round
+     * @param config The health check configuration
+     */
+    public HealthProber(Supplier<? extends Collection<StatusStorage>> storages, Config.HealthChecks config) {
+        this.storages = storages;
+        this.config = config;
+        this.filter = new TransitionFilter(config);
+        this.permits = new Semaphore(Math.max(1, config.getMaxConcurrency()));
+        this.checker = new HealthChecker(Math.max(1, config.getMaxConcurrency()),
+                Math.max(1, config.getMaxConnectionsPerRoute()), config.getTimeoutMillis());
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.counter("statusbot_health_probes_total", "Health probes completed", this::getProbes);
+        metrics.counter("statusbot_health_probes_failed_total", "Health probes that found the endpoint unhealthy", this::getFailedProbes);
+        metrics.counter("statusbot_health_probes_skipped_total", "Health probes skipped because the previous one was still running", this::getSkippedProbes);
+        metrics.gauge("statusbot_health_probes_in_flight", "Health probes running or waiting for a permit", this::getInFlightProbes);
+        metrics.gauge("statusbot_health_suppressed_services", "Services held at their status for flapping", filter::getSuppressedServices);
+    }
+
+    /**
+     * Starts probing in the configured interval.
+     *
+     * @param jda JDA instance used to publish status changes
+     */
+    public void start(JDA jda) {
+        this.jda = jda;
+        long interval = Math.max(1, config.getIntervalSeconds());
+        scheduler.scheduleAtFixedRate(this::probeAll, 0, interval, TimeUnit.SECONDS);
+        LogUtils.logInfo("Health checks started", "every " + interval + "s");
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+        probeExecutor.shutdownNow();
+        checker.close();
+    }
+
+    private void probeAll() {
+        try {
+            for (StatusStorage storage : storages.get()) {
+                for (Service service : storage.getAllServices()) {
+                    if (!service.hasCheckTarget() || service.isManualOverride()) continue;
+
+                    String serviceId = service.getServiceId();
+                    if (!inFlight.add(probeKey(storage, serviceId))) {
+                        skippedProbes.incrementAndGet();
+                        continue;
+                    }
+                    String target = service.getCheckTarget();
+                    probeExecutor.execute(() -> probe(storage, serviceId, target));
+                }
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the periodic task
+            LogUtils.logException("Error scheduling health checks", e);
+        }
+    }
+
+    private void probe(StatusStorage storage, String serviceId, String target) {
+        try {
+            CheckResult result;
+            permits.acquire();
+            try {
+                result = checker.check(target);
+            } finally {
+                permits.release();
+            }
+
+            probes.incrementAndGet();
+            if (!result.healthy()) failedProbes.incrementAndGet();
+            apply(storage, serviceId, result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LogUtils.logException("Error probing service " + serviceId, e);
+        } finally {
+            inFlight.remove(probeKey(storage, serviceId));
+        }
+    }
+
+    /**
+     * Updates the status of a service if the filtered probe results change it.
+     * The storage only applies the change if the status is still the one the result was judged against.
+     */
+    private void apply(StatusStorage storage, String serviceId, CheckResult result) throws IOException {
+        String key = probeKey(storage, serviceId);
+        Service current = storage.getService(serviceId);
+        if (current == null || !current.hasCheckTarget()) {
+            filter.forget(key);
+            return;
+        }
+        if (current.isManualOverride()) return;
+
+        Severity severity = filter.offer(key, current.getSeverity(), filter.classify(result), System.nanoTime());
+        if (severity == null) return;
+
+        boolean applied = storage.applyProbeResult(serviceId, current.getSeverity(),
+                service -> service.withProbedStatus(severity, describe(service, severity, result)), jda);
+        if (applied) {
+            LogUtils.logInfo("Health check changed status of " + serviceId, severity.getKey());
+        } else {
+            LogUtils.logDebug("Status of " + serviceId + " changed while it was probed", severity.getKey());
+        }
+    }
+
+    /**
+     * Describes the outage found by a probe, or clears a description the prober wrote itself on recovery.
+     */
+    private static String describe(Service service, Severity severity, CheckResult result) {
+        String outageDescription = service.getOutageDescription();
+        return switch (severity) {
+            case MAJOR_OUTAGE -> OUTAGE_PREFIX + "failed: " + result.error();
+            case DEGRADED -> OUTAGE_PREFIX + "slow: " + result.latencyMillis() + "ms";
+            default -> outageDescription != null && outageDescription.startsWith(OUTAGE_PREFIX) ? "" : outageDescription;
+        };
+    }
+
+    /**
+     * Service IDs are only unique within a guild, so probe state is kept per guild and service.
+     */
+    private static String probeKey(StatusStorage storage, String serviceId) {
+        return storage.getGuildId() + "/" + serviceId;
+    }
+
+    // --- Metrics ---
+
+    /** @return Number of probes completed */
+    public long getProbes() { return probes.get(); }
+    /** @return Number of probes that found the endpoint unhealthy */
+    public long getFailedProbes() { return failedProbes.get(); }
+    /** @return Number of probes skipped because the previous probe of the service was still running */
+    public long getSkippedProbes() { return skippedProbes.get(); }
+    /** @return Number of probes currently running or waiting for a permit */
+    public int getInFlightProbes() { return inFlight.size(); }
+    /** @return The filter deciding which probe results change a status */
+    public TransitionFilter getFilter() { return filter; }
+}
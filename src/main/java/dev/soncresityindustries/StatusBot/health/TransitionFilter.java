@@ -0,0 +1,135 @@
+package dev.soncresityindustries.StatusBot.health;
+
+import dev.soncresityindustries.StatusBot.Config;
+import dev.soncresityindustries.StatusBot.storage.Severity;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns raw probe results into status transitions.
+ * A new status is only reported after it was observed a number of times in a row (hysteresis),
+ * and services whose observed status keeps flipping are held at their current status (flap damping):
+ * every flip adds a penalty that decays exponentially, and while the penalty is above the suppress
+ * threshold no transitions are reported until it decays below the reuse threshold again.
+ *
+ * @author SkyKing_PX
+ */
+public class TransitionFilter {
+
+    private final Config.HealthChecks config;
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    private final AtomicLong transitions = new AtomicLong();
+    private final AtomicLong suppressions = new AtomicLong();
+
+    public TransitionFilter(Config.HealthChecks config) {
+        this.config = config;
+    }
+
+    /**
+     * Classifies a probe result: failures are outages, slow responses are degraded.
+     *
+     * @param result The probe result
+     * @return The observed severity
+     */
+    public Severity classify(CheckResult result) {
+        if (!result.healthy()) return Severity.MAJOR_OUTAGE;
+        if (config.getDegradedLatencyMillis() > 0 && result.latencyMillis() >= config.getDegradedLatencyMillis()) {
+            return Severity.DEGRADED;
+        }
+        return Severity.OPERATIONAL;
+    }
+
+    /**
+     * Feeds a probe result into the filter of a service.
+     *
+     * @param serviceId The ID of the probed service
+     * @param current The status the service currently has in storage
+     * @param observed The classified probe result
+     * @param nowNanos Current time from {@link System#nanoTime()}
+     * @return The status to transition to, or null if the service should keep its current status
+     */
+    public Severity offer(String serviceId, Severity current, Severity observed, long nowNanos) {
+        State state = states.computeIfAbsent(serviceId, id -> new State(nowNanos));
+        synchronized (state) {
+            state.decay(nowNanos, config.getFlapHalfLifeSeconds());
+            if (state.lastObserved != null && state.lastObserved != observed) {
+                state.penalty += config.getFlapPenalty();
+            }
+            state.lastObserved = observed;
+
+            if (observed == state.candidate) {
+                state.candidateCount++;
+            } else {
+                state.candidate = observed;
+                state.candidateCount = 1;
+            }
+
+            if (state.suppressed) {
+                if (state.penalty >= config.getFlapReuseThreshold()) return null;
+                state.suppressed = false;
+            } else if (state.penalty >= config.getFlapSuppressThreshold()) {
+                state.suppressed = true;
+                suppressions.incrementAndGet();
+                return null;
+            }
+
+            int threshold = observed == Severity.OPERATIONAL ? config.getRecoveryThreshold() : config.getFailureThreshold();
+            if (state.candidate == current || state.candidateCount < Math.max(1, threshold)) return null;
+
+            transitions.incrementAndGet();
+            return state.candidate;
+        }
+    }
+
+    /**
+     * Drops the state of a service, e.g. after it was removed or stopped being checked.
+     *
+     * @param serviceId The ID of the service
+     */
+    public void forget(String serviceId) {
+        states.remove(serviceId);
+    }
+
+    /**
+     * Per-service filter state.
+     */
+    private static class State {
+        private Severity lastObserved;
+        private Severity candidate;
+        private int candidateCount;
+        private double penalty;
+        private long penaltyUpdatedAt;
+        private boolean suppressed;
+
+        private State(long nowNanos) {
+            this.penaltyUpdatedAt = nowNanos;
+        }
+
+        private void decay(long nowNanos, long halfLifeSeconds) {
+            if (penalty > 0 && halfLifeSeconds > 0) {
+                double halfLives = (double) (nowNanos - penaltyUpdatedAt) / TimeUnit.SECONDS.toNanos(halfLifeSeconds);
+                penalty *= Math.pow(0.5, halfLives);
+            }
+            penaltyUpdatedAt = nowNanos;
+        }
+    }
+
+    // --- Metrics ---
+
+    /** @return Number of transitions let through */
+    public long getTransitions() { return transitions.get(); }
+    /** @return Number of times a service started being suppressed for flapping */
+    public long getSuppressions() { return suppressions.get(); }
+    /** @return Number of services currently suppressed for flapping */
+    public long getSuppressedServices() {
+        return states.values().stream().filter(state -> {
+            synchronized (state) {
+                return state.suppressed;
+            }
+        }).count();
+    }
+}
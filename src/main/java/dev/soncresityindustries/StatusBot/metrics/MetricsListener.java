@@ -0,0 +1,48 @@
+package dev.soncresityindustries.StatusBot.metrics;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.http.HttpRequestEvent;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.requests.Response;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Records metrics about the connection to Discord: REST responses per status code,
+ * rate limits hit and the time JDA had to wait for them, the gateway ping and connection of every shard
+ * and the heap in use.
+ *
+ * @author SkyKing_PX
+ */
+public class MetricsListener extends ListenerAdapter {
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    @Override
+    public void onReady(@NotNull ReadyEvent event) {
+        JDA jda = event.getJDA();
+        String shard = String.valueOf(jda.getShardInfo().getShardId());
+        metrics.gauge("statusbot_gateway_ping_seconds", "Latest heartbeat round trip to the Discord gateway",
+                () -> jda.getGatewayPing() / 1000.0, "shard", shard);
+        metrics.gauge("statusbot_shard_connected", "Whether the shard is connected to the Discord gateway",
+                () -> jda.getStatus() == JDA.Status.CONNECTED ? 1 : 0, "shard", shard);
+        metrics.gauge("statusbot_jvm_heap_used_bytes", "Heap memory in use, to compare startup profiles",
+                () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+    }
+
+    @Override
+    public void onHttpRequest(@NotNull HttpRequestEvent event) {
+        Response response = event.getResponse();
+        if (response == null) return;
+
+        metrics.counter("statusbot_rest_responses_total", "Discord REST responses per status code",
+                "code", String.valueOf(response.code)).inc();
+        if (response.isRateLimit()) {
+            metrics.counter("statusbot_rest_rate_limits_total", "Discord REST requests rejected by a rate limit").inc();
+            metrics.counter("statusbot_rest_rate_limit_wait_seconds_total", "Time Discord asked to wait after rate limits")
+                    .add(Math.max(0, response.retryAfter) / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package dev.soncresityindustries.StatusBot.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of all metrics of the bot, rendered in the Prometheus text exposition format.
+ * Metrics are created on first use and identified by name and labels, so callers can simply
+ * look them up again instead of passing instances around.
+ *
+ * @author SkyKing_PX
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    /** Histogram bucket upper bounds in seconds, from a millisecond up to the refresh pass timeout */
+    private static final double[] BUCKETS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300};
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets or creates a counter.
+     *
+     * @param name The metric name, e.g. "statusbot_rest_requests_total"
+     * @param help Description of the metric
+     * @param labels Alternating label names and values
+     * @return The counter
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").children.computeIfAbsent(formatLabels(labels), key -> new Counter());
+    }
+
+    /**
+     * Registers a counter whose value is kept elsewhere and read whenever the metrics are scraped.
+     *
+     * @param name The metric name, e.g. "statusbot_refresh_passes_total"
+     * @param help Description of the metric
+     * @param supplier Supplies the current, never decreasing value
+     * @param labels Alternating label names and values
+     */
+    public void counter(String name, String help, DoubleSupplier supplier, String... labels) {
+        family(name, help, "counter").children.put(formatLabels(labels), new Gauge(supplier));
+    }
+
+    /**
+     * Gets or creates a latency histogram, measured in seconds.
+     *
+     * @param name The metric name, e.g. "statusbot_storage_save_seconds"
+     * @param help Description of the metric
+     * @param labels Alternating label names and values
+     * @return The histogram
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, "histogram").children.computeIfAbsent(formatLabels(labels), key -> new Histogram());
+    }
+
+    /**
+     * Registers a gauge read whenever the metrics are scraped, replacing an earlier gauge with the same labels.
+     *
+     * @param name The metric name, e.g. "statusbot_refresh_pending"
+     * @param help Description of the metric
+     * @param supplier Supplies the current value
+     * @param labels Alternating label names and values
+     */
+    public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        family(name, help, "gauge").children.put(formatLabels(labels), new Gauge(supplier));
+    }
+
+    /**
+     * Removes every metric carrying a label, e.g. the metrics of a guild whose storage was closed.
+     *
+     * @param name The label name
+     * @param value The label value
+     */
+    public void removeLabelled(String name, String value) {
+        String label = formatLabels(name, value);
+        for (Family family : families.values()) {
+            family.children.keySet().removeIf(labels -> labels.equals(label)
+                    || labels.startsWith(label + ",") || labels.contains("," + label));
+        }
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format.
+     *
+     * @return The metrics, one sample per line
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Metric> child : family.children.entrySet()) {
+                child.getValue().write(out, family.name, child.getKey());
+            }
+        }
+        return out.toString();
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + family.type + ", not a " + type);
+        }
+        return family;
+    }
+
+    private static String formatLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            out.append(i == 0 ? "" : ",").append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return out.toString();
+    }
+
+    private static void writeSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * All metrics sharing a name, differing only in their labels.
+     */
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final Map<String, Metric> children = new ConcurrentSkipListMap<>();
+
+        private Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private interface Metric {
+        void write(StringBuilder out, String name, String labels);
+    }
+
+    /**
+     * A value that only goes up.
+     */
+    public static class Counter implements Metric {
+        private final DoubleAdder value = new DoubleAdder();
+
+        public void inc() {
+            value.add(1);
+        }
+
+        public void add(double amount) {
+            value.add(amount);
+        }
+
+        public double get() {
+            return value.sum();
+        }
+
+        @Override
+        public void write(StringBuilder out, String name, String labels) {
+            writeSample(out, name, labels, value.sum());
+        }
+    }
+
+    /**
+     * Distribution of durations in fixed buckets.
+     */
+    public static class Histogram implements Metric {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records the time passed since a start time.
+         *
+         * @param startNanos The start time from {@link System#nanoTime()}
+         */
+        public void observeSince(long startNanos) {
+            observe((double) (System.nanoTime() - startNanos) / TimeUnit.SECONDS.toNanos(1));
+        }
+
+        /**
+         * Records a duration.
+         *
+         * @param seconds The duration in seconds
+         */
+        public void observe(double seconds) {
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sum.add(seconds);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public void write(StringBuilder out, String name, String labels) {
+            String prefix = labels.isEmpty() ? "" : labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += buckets[i].sum();
+                writeSample(out, name + "_bucket", prefix + "le=\"" + BUCKETS[i] + "\"", cumulative);
+            }
+            long total = count.sum();
+            writeSample(out, name + "_bucket", prefix + "le=\"+Inf\"", total);
+            writeSample(out, name + "_sum", labels, sum.sum());
+            writeSample(out, name + "_count", labels, total);
+        }
+    }
+
+    /**
+     * A value read on every scrape.
+     */
+    private static class Gauge implements Metric {
+        private final DoubleSupplier supplier;
+
+        private Gauge(DoubleSupplier supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void write(StringBuilder out, String name, String labels) {
+            double value;
+            try {
+                value = supplier.getAsDouble();
+            } catch (RuntimeException e) {
+                value = Double.NaN;
+            }
+            writeSample(out, name, labels, value);
+        }
+    }
+}
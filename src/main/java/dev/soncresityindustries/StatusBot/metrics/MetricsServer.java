@@ -0,0 +1,73 @@
+package dev.soncresityindustries.StatusBot.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP server exposing the {@link MetricsRegistry} at {@code /metrics} for Prometheus to scrape.
+ *
+ * @author SkyKing_PX
+ */
+public class MetricsServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MetricsServer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates the server without starting it.
+     *
+     * @param bindAddress The address to listen on
+     * @param port The port to listen on
+     * @param registry The registry to expose
+     * @throws IOException If the port cannot be bound
+     */
+    public MetricsServer(String bindAddress, int port, MetricsRegistry registry) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        this.server.createContext("/metrics", exchange -> handle(exchange, registry));
+        this.server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        LogUtils.logInfo("Metrics server started", server.getAddress().toString());
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void handle(HttpExchange exchange, MetricsRegistry registry) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Status changes for many services at once, applied by {@link StatusStorage#applyBulkUpdate} as a single
+ * journal record followed by a single refresh of the status channel.
+ * Each change picks its services with a selector:
+ * <ul>
+ *     <li>{@code all} - every service</li>
+ *     <li>{@code id:a,b,c} or just {@code a} - the services with these IDs</li>
+ *     <li>{@code children:X} - the direct children of service X</li>
+ *     <li>{@code tree:X} - service X and all of its descendants</li>
+ *     <li>{@code severity:major_outage} - the services currently at a severity</li>
+ * </ul>
+ * Changes are applied in order, so a later change can override an earlier one for some of its services.
+ * Selectors are evaluated against the catalog as it was before the update.
+ *
+ * @author SkyKing_PX
+ */
+public final class BulkUpdate {
+
+    /**
+     * A change of the services matched by a selector.
+     *
+     * @param selector Picks the services to change
+     * @param severity The new severity, or null to keep it
+     * @param description The new description, or null to keep it
+     * @param outageDescription The new outage description, or null to keep it
+     */
+    public record Change(String selector, Severity severity, String description, String outageDescription) {
+    }
+
+    private final List<Change> changes;
+
+    public BulkUpdate(List<Change> changes) {
+        this.changes = List.copyOf(changes);
+    }
+
+    /** @return The changes, in the order they are applied */
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Computes the new state of every service touched by the update.
+     *
+     * @param catalog The current catalog
+     * @return One mutation per changed service
+     * @throws IllegalArgumentException If a selector is malformed or matches no service
+     */
+    List<Mutation> resolve(ServiceCatalog catalog) {
+        Map<String, Service> updated = new LinkedHashMap<>();
+        for (Change change : changes) {
+            for (String serviceId : select(catalog, change.selector())) {
+                Service current = updated.getOrDefault(serviceId, catalog.get(serviceId));
+                updated.put(serviceId, current.withUpdatedStatus(
+                        change.severity() != null ? change.severity() : current.getSeverity(),
+                        change.description() != null ? change.description() : current.getDescription(),
+                        change.outageDescription() != null ? change.outageDescription() : current.getOutageDescription()));
+            }
+        }
+
+        List<Mutation> mutations = new ArrayList<>(updated.size());
+        for (Service service : updated.values()) {
+            mutations.add(Mutation.put(service));
+        }
+        return mutations;
+    }
+
+    /**
+     * Finds the services matched by a selector.
+     *
+     * @param catalog The catalog to select from
+     * @param selector The selector
+     * @return The IDs of the matched services, in catalog order
+     * @throws IllegalArgumentException If the selector is malformed or matches no service
+     */
+    public static Set<String> select(ServiceCatalog catalog, String selector) {
+        String trimmed = selector == null ? "" : selector.trim();
+        int colon = trimmed.indexOf(':');
+        String kind = colon < 0 ? (trimmed.equalsIgnoreCase("all") ? "all" : "id") : trimmed.substring(0, colon).toLowerCase();
+        String argument = colon < 0 ? trimmed : trimmed.substring(colon + 1).trim();
+        if (argument.isEmpty() && !kind.equals("all")) {
+            throw new IllegalArgumentException("Selector `" + selector + "` names no service.");
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        switch (kind) {
+            case "all" -> {
+                for (Service service : catalog.getServices()) {
+                    selected.add(service.getServiceId());
+                }
+            }
+            case "id" -> {
+                for (String serviceId : argument.split(",")) {
+                    String id = serviceId.trim();
+                    if (id.isEmpty()) continue;
+                    if (catalog.get(id) == null) {
+                        throw new IllegalArgumentException("Service with ID `" + id + "` not found.");
+                    }
+                    selected.add(id);
+                }
+            }
+            case "children" -> {
+                requireService(catalog, argument);
+                for (Service child : catalog.getChildren(argument)) {
+                    selected.add(child.getServiceId());
+                }
+            }
+            case "tree" -> {
+                requireService(catalog, argument);
+                Deque<String> pending = new ArrayDeque<>();
+                pending.add(argument);
+                while (!pending.isEmpty()) {
+                    String serviceId = pending.poll();
+                    selected.add(serviceId);
+                    for (Service child : catalog.getChildren(serviceId)) {
+                        pending.add(child.getServiceId());
+                    }
+                }
+            }
+            case "severity" -> {
+                Severity severity = Severity.fromKey(argument);
+                if (severity == Severity.UNKNOWN) {
+                    throw new IllegalArgumentException("Unknown status `" + argument + "`.");
+                }
+                for (Service service : catalog.getServices()) {
+                    if (service.getSeverity() == severity) selected.add(service.getServiceId());
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown selector `" + selector
+                    + "`. Use all, id:a,b, children:X, tree:X or severity:key.");
+        }
+
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("Selector `" + selector + "` matches no service.");
+        }
+        return selected;
+    }
+
+    private static void requireService(ServiceCatalog catalog, String serviceId) {
+        if (catalog.get(serviceId) == null) {
+            throw new IllegalArgumentException("Service with ID `" + serviceId + "` not found.");
+        }
+    }
+
+    /**
+     * Reads an update from a JSON array of changes, e.g.
+     * {@code [{"selector": "children:eu-west", "status": "major_outage", "outageDescription": "Power loss"}]}.
+     * A change may name a single service with {@code serviceId} instead of a selector.
+     *
+     * @param parser The parser, positioned on the START_ARRAY token of the changes
+     * @return The update
+     * @throws IOException If the JSON is malformed, a change has no selector or a status is unknown
+     */
+    public static BulkUpdate read(JsonParser parser) throws IOException {
+        ServiceCodec.expect(parser, JsonToken.START_ARRAY);
+        List<Change> changes = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String selector = null;
+            String serviceId = null;
+            String status = null;
+            String description = null;
+            String outageDescription = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                String text = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                switch (field) {
+                    case "selector" -> selector = text;
+                    case "serviceId" -> serviceId = text;
+                    case "status" -> status = text;
+                    case "description" -> description = text;
+                    case "outageDescription" -> outageDescription = text;
+                    default -> {}
+                }
+            }
+            ServiceCodec.expect(parser, JsonToken.END_OBJECT);
+
+            if (selector == null && serviceId == null) {
+                throw new IOException("Change " + (changes.size() + 1) + " has neither a selector nor a serviceId");
+            }
+            Severity severity = null;
+            if (status != null) {
+                severity = Severity.fromKey(status);
+                if (severity == Severity.UNKNOWN) {
+                    throw new IOException("Change " + (changes.size() + 1) + " has an unknown status: " + status);
+                }
+            }
+            changes.add(new Change(selector != null ? selector : "id:" + serviceId, severity, description, outageDescription));
+        }
+        ServiceCodec.expect(parser, JsonToken.END_ARRAY);
+        return new BulkUpdate(changes);
+    }
+}
@@ -0,0 +1,192 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import dev.soncresityindustries.StatusBot.Config;
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the {@link StatusStorage} of every guild the bot serves.
+ * Each guild's services live in their own partition, {@code <tenantDirectory>/<guildId>/status.json}
+ * with its journal, history and tracked messages next to it. A partition is opened on first use and
+ * closed again once it has not been used for {@code storage.tenantIdleMinutes} and has no work pending.
+ * Partitions with health-checked services stay open, as the health checks only probe open storages.
+ * <p>
+ * Files of the single-guild layout in the working directory are moved into the partition of
+ * {@code bot.guild_id} the first time it is opened.
+ *
+ * @author SkyKing_PX
+ */
+public class GuildTenants {
+
+    /** How often idle partitions are looked for */
+    private static final long EVICTION_INTERVAL_SECONDS = 60;
+    /** Guild IDs are snowflakes; anything else must not become a directory name */
+    private static final Pattern GUILD_ID = Pattern.compile("\\d{1,20}");
+    /** Files of the single-guild layout, all kept in the working directory */
+    private static final Pattern LEGACY_FILE = Pattern.compile("status\\.json(\\.\\d+)?|status\\.journal\\.\\d+|status_messages\\.json");
+
+    private static GuildTenants instance;
+
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TenantEviction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong openedTenants = new AtomicLong();
+    private final AtomicLong evictedTenants = new AtomicLong();
+
+    /**
+     * An open partition and when it was last used.
+     */
+    private static class Tenant {
+        private final StatusStorage storage;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Tenant(StatusStorage storage) {
+            this.storage = storage;
+        }
+    }
+
+    private GuildTenants() {
+        evictor.scheduleWithFixedDelay(this::evictIdle, EVICTION_INTERVAL_SECONDS, EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("statusbot_tenants_open", "Guild storages currently open", tenants::size);
+        metrics.counter("statusbot_tenants_opened_total", "Guild storages opened", openedTenants::get);
+        metrics.counter("statusbot_tenants_evicted_total", "Guild storages closed after being idle", evictedTenants::get);
+    }
+
+    public static synchronized GuildTenants getInstance() {
+        if (instance == null) {
+            instance = new GuildTenants();
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the storage of a guild, opening its partition if it is not open yet.
+     *
+     * @param guildId The ID of the guild
+     * @return The storage of the guild
+     * @throws IOException If the partition cannot be loaded
+     * @throws IllegalArgumentException If the guild ID is not a snowflake
+     */
+    public StatusStorage get(String guildId) throws IOException {
+        Tenant tenant = tenants.get(guildId);
+        if (tenant != null) {
+            tenant.lastUsed = System.nanoTime();
+            // Still registered after marking it used, so the evictor will see the mark and keep it
+            if (tenants.get(guildId) == tenant) return tenant.storage;
+        }
+        return open(guildId).storage;
+    }
+
+    /**
+     * @return The storages currently open
+     */
+    public List<StatusStorage> getOpen() {
+        List<StatusStorage> open = new ArrayList<>();
+        for (Tenant tenant : tenants.values()) {
+            open.add(tenant.storage);
+        }
+        return open;
+    }
+
+    /**
+     * Closes every open partition and stops evicting. Storages must not be used afterwards.
+     */
+    public synchronized void close() {
+        evictor.shutdownNow();
+        for (Tenant tenant : tenants.values()) {
+            tenant.storage.close();
+        }
+        tenants.clear();
+    }
+
+    private synchronized Tenant open(String guildId) throws IOException {
+        Tenant tenant = tenants.get(guildId);
+        if (tenant != null) {
+            tenant.lastUsed = System.nanoTime();
+            return tenant;
+        }
+        if (guildId == null || !GUILD_ID.matcher(guildId).matches()) {
+            throw new IllegalArgumentException("Not a guild ID: " + guildId);
+        }
+
+        Config config = Config.get();
+        File directory = new File(config.getStorage().getTenantDirectory(), guildId);
+        if (!directory.exists()) {
+            if (guildId.equals(config.getBot().getGuild_id())) {
+                migrateLegacyFiles(directory.toPath());
+            }
+            Files.createDirectories(directory.toPath());
+        }
+
+        tenant = new Tenant(new StatusStorage(new File(directory, "status.json"), guildId));
+        tenants.put(guildId, tenant);
+        openedTenants.incrementAndGet();
+        LogUtils.logStorage("Opened storage of guild " + guildId, directory.getPath());
+        return tenant;
+    }
+
+    /**
+     * Closes partitions that have been idle for longer than the configured time.
+     */
+    private void evictIdle() {
+        try {
+            long idleNanos = TimeUnit.MINUTES.toNanos(Config.get().getStorage().getTenantIdleMinutes());
+            long now = System.nanoTime();
+            synchronized (this) {
+                for (Map.Entry<String, Tenant> entry : tenants.entrySet()) {
+                    Tenant tenant = entry.getValue();
+                    StatusStorage storage = tenant.storage;
+                    if (now - tenant.lastUsed < idleNanos || !storage.isIdle() || storage.hasCheckTargets()) continue;
+
+                    tenants.remove(entry.getKey());
+                    if (now - tenant.lastUsed < idleNanos) {
+                        // Picked up by a caller while it was being removed
+                        tenants.put(entry.getKey(), tenant);
+                        continue;
+                    }
+                    storage.close();
+                    evictedTenants.incrementAndGet();
+                    LogUtils.logStorage("Closed idle storage of guild " + entry.getKey(), storage.getCatalog().size() + " service(s)");
+                }
+            }
+        } catch (Exception e) {
+            // Never let an exception cancel the periodic task
+            LogUtils.logException("Error closing idle guild storages", e);
+        }
+    }
+
+    /**
+     * Moves the storage files of the single-guild layout into a partition.
+     */
+    private static void migrateLegacyFiles(Path directory) throws IOException {
+        File[] files = new File(".").listFiles((dir, name) -> LEGACY_FILE.matcher(name).matches() || name.equals("history"));
+        if (files == null || files.length == 0) return;
+
+        Files.createDirectories(directory);
+        for (File file : files) {
+            Files.move(file.toPath(), directory.resolve(file.getName()), StandardCopyOption.ATOMIC_MOVE);
+        }
+        LogUtils.logStorage("Moved " + files.length + " storage file(s) into the guild partition", directory.toString());
+    }
+}
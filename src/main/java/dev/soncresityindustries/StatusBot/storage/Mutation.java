@@ -0,0 +1,185 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single change to the service catalog, as recorded in the {@link StatusJournal}.
+ * Mutations carry the full resulting state of a service, so applying one twice is harmless.
+ * A batch groups several mutations into one journal record, so they are replayed all together or not at all.
+ *
+ * @author SkyKing_PX
+ */
+public final class Mutation {
+
+    private final Service service;
+    private final String removedServiceId;
+    private final List<Mutation> batch;
+
+    private Mutation(Service service, String removedServiceId, List<Mutation> batch) {
+        this.service = service;
+        this.removedServiceId = removedServiceId;
+        this.batch = batch;
+    }
+
+    /**
+     * Creates a mutation adding or replacing a service.
+     *
+     * @param service The new state of the service
+     * @return The mutation
+     */
+    public static Mutation put(Service service) {
+        return new Mutation(service, null, null);
+    }
+
+    /**
+     * Creates a mutation removing a service.
+     *
+     * @param serviceId The ID of the service to remove
+     * @return The mutation
+     */
+    public static Mutation remove(String serviceId) {
+        return new Mutation(null, serviceId, null);
+    }
+
+    /**
+     * Creates a mutation applying several others in order, recorded as a single journal record.
+     * Nested batches are flattened.
+     *
+     * @param mutations The mutations to apply
+     * @return The mutation
+     */
+    public static Mutation batch(List<Mutation> mutations) {
+        List<Mutation> flat = new ArrayList<>(mutations.size());
+        for (Mutation mutation : mutations) {
+            if (mutation.batch != null) flat.addAll(mutation.batch);
+            else flat.add(mutation);
+        }
+        return new Mutation(null, null, List.copyOf(flat));
+    }
+
+    /** @return The new state of the service, or null if the mutation removes a service or is a batch */
+    Service getService() {
+        return service;
+    }
+
+    /** @return The ID of the removed service, or null if the mutation adds or replaces a service or is a batch */
+    String getRemovedServiceId() {
+        return removedServiceId;
+    }
+
+    /** @return The mutations of a batch, or null if this is a single mutation */
+    List<Mutation> getBatch() {
+        return batch;
+    }
+
+    /**
+     * Applies the mutation to a map of services keyed by service ID.
+     *
+     * @param services The services to change
+     */
+    public void applyTo(Map<String, Service> services) {
+        if (batch != null) {
+            for (Mutation mutation : batch) {
+                mutation.applyTo(services);
+            }
+        } else if (service != null) {
+            services.put(service.getServiceId(), service);
+        } else {
+            services.remove(removedServiceId);
+        }
+    }
+
+    /**
+     * Applies the mutation to a catalog.
+     *
+     * @param catalog The current catalog
+     * @return The next version of the catalog
+     */
+    public ServiceCatalog applyTo(ServiceCatalog catalog) {
+        if (batch != null) {
+            ServiceCatalog next = catalog;
+            for (Mutation mutation : batch) {
+                next = mutation.applyTo(next);
+            }
+            return next;
+        }
+        return service != null ? catalog.withService(service) : catalog.withoutService(removedServiceId);
+    }
+
+    /**
+     * Writes the mutation as a JSON object.
+     *
+     * @param generator The generator to write to
+     */
+    public void write(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (batch != null) {
+            generator.writeStringField("op", "batch");
+            generator.writeArrayFieldStart("mutations");
+            for (Mutation mutation : batch) {
+                mutation.write(generator);
+            }
+            generator.writeEndArray();
+        } else if (service != null) {
+            generator.writeStringField("op", "put");
+            generator.writeFieldName("service");
+            ServiceCodec.write(generator, service);
+        } else {
+            generator.writeStringField("op", "remove");
+            generator.writeStringField("serviceId", removedServiceId);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Reads a mutation from a JSON object.
+     *
+     * @param parser The parser, positioned on the START_OBJECT token of the mutation
+     * @return The mutation, or null if the operation, or that of a mutation in a batch, is unknown
+     * @throws IOException If the JSON is malformed
+     */
+    public static Mutation read(JsonParser parser) throws IOException {
+        ServiceCodec.expect(parser, JsonToken.START_OBJECT);
+        String op = null;
+        Service service = null;
+        String serviceId = null;
+        List<Mutation> mutations = null;
+        boolean unknownInBatch = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "op" -> op = parser.getText();
+                case "service" -> service = ServiceCodec.read(parser);
+                case "serviceId" -> serviceId = parser.getText();
+                case "mutations" -> {
+                    ServiceCodec.expect(parser, JsonToken.START_ARRAY);
+                    mutations = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        Mutation mutation = read(parser);
+                        if (mutation == null) unknownInBatch = true;
+                        else mutations.add(mutation);
+                    }
+                }
+                default -> {
+                    if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) parser.skipChildren();
+                }
+            }
+        }
+        ServiceCodec.expect(parser, JsonToken.END_OBJECT);
+
+        if ("put".equals(op) && service != null) return put(service);
+        if ("remove".equals(op) && serviceId != null) return remove(serviceId);
+        // Replaying only part of a batch would break its atomicity
+        if ("batch".equals(op) && mutations != null && !unknownInBatch) return batch(mutations);
+        return null;
+    }
+}
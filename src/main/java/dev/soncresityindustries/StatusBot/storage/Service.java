@@ -1,8 +1,5 @@
 package dev.soncresityindustries.StatusBot.storage;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
-import com.fasterxml.jackson.annotation.JsonProperty;
-
 import java.util.Objects;
 
 /**
@@ -15,35 +12,64 @@ public class Service {
     
     private final String displayName;
     private final String serviceId;
-    private final String status;
+    private final Severity severity;
     private final String outageDescription;
     private final String description;
     private final String parentId;
+    private final String checkTarget;
+    private final boolean statusProbed;
 
     /**
      * Creates a new Service instance.
      *
      * @param displayName The human-readable name of the service
      * @param serviceId The unique identifier for the service
-     * @param status The current status of the service (e.g., "ONLINE", "OFFLINE", "MAINTENANCE")
+     * @param severity The current status of the service
      * @param outageDescription A brief description of any current outage, if applicable
      * @param description A detailed description of the service or its current state
      * @param parentId The ID of the parent service, or null if this is a root service
+     * @param checkTarget The endpoint probed by the health checks, or null if the status is only set manually
+     * @param statusProbed Whether the current status was set by the health checks
      */
-    @JsonCreator
-    public Service(
-            @JsonProperty("displayName") String displayName,
-            @JsonProperty("serviceId") String serviceId,
-            @JsonProperty("status") String status,
-            @JsonProperty("outageDescription") String outageDescription,
-            @JsonProperty("description") String description,
-            @JsonProperty("parentId") String parentId) {
+    public Service(String displayName, String serviceId, Severity severity, String outageDescription, String description,
+                   String parentId, String checkTarget, boolean statusProbed) {
         this.displayName = displayName;
         this.serviceId = serviceId;
-        this.status = status;
+        this.severity = severity;
         this.outageDescription = outageDescription;
         this.description = description;
         this.parentId = parentId;
+        this.checkTarget = checkTarget;
+        this.statusProbed = statusProbed;
+    }
+
+    /**
+     * Creates a new Service instance with a status set by hand.
+     *
+     * @param displayName The human-readable name of the service
+     * @param serviceId The unique identifier for the service
+     * @param severity The current status of the service
+     * @param outageDescription A brief description of any current outage, if applicable
+     * @param description A detailed description of the service or its current state
+     * @param parentId The ID of the parent service, or null if this is a root service
+     * @param checkTarget The endpoint probed by the health checks, or null if the status is only set manually
+     */
+    public Service(String displayName, String serviceId, Severity severity, String outageDescription, String description, String parentId, String checkTarget) {
+        this(displayName, serviceId, severity, outageDescription, description, parentId, checkTarget, false);
+    }
+
+    /**
+     * Creates a new Service instance without a health check.
+     *
+     * @param displayName The human-readable name of the service
+     * @param serviceId The unique identifier for the service
+     * @param severity The current status of the service
+     * @param outageDescription A brief description of any current outage, if applicable
+     * @param description A detailed description of the service or its current state
+     * @param parentId The ID of the parent service, or null if this is a root service
+     */
+    public Service(String displayName, String serviceId, Severity severity, String outageDescription, String description, String parentId) {
+        this(displayName, serviceId, severity, outageDescription, description, parentId, null);
     }
 
     /**
@@ -51,44 +77,75 @@ public class Service {
      *
      * @param displayName The human-readable name of the service
      * @param serviceId The unique identifier for the service
-     * @param status The current status of the service
+     * @param severity The current status of the service
      * @param outageDescription A brief description of any current outage, if applicable
      * @param description A detailed description of the service or its current state
      */
-    public Service(String displayName, String serviceId, String status, String outageDescription, String description) {
-        this(displayName, serviceId, status, outageDescription, description, null);
+    public Service(String displayName, String serviceId, Severity severity, String outageDescription, String description) {
+        this(displayName, serviceId, severity, outageDescription, description, null);
     }
 
-    @JsonProperty("displayName")
     public String getDisplayName() {
         return displayName;
     }
 
-    @JsonProperty("serviceId")
     public String getServiceId() {
         return serviceId;
     }
 
-    @JsonProperty("status")
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    /**
+     * Gets the status label shown in embeds.
+     *
+     * @return The status label, e.g. "🔴 Major Outage"
+     */
     public String getStatus() {
-        return status;
+        return severity.getLabel();
     }
 
-    @JsonProperty("outageDescription")
     public String getOutageDescription() {
         return outageDescription;
     }
 
-    @JsonProperty("description")
     public String getDescription() {
         return description;
     }
 
-    @JsonProperty("parentId")
     public String getParentId() {
         return parentId;
     }
 
+    /**
+     * Gets the endpoint probed by the health checks.
+     *
+     * @return An {@code http(s)://} URL or a {@code tcp://host:port} address, or null if the service is not checked
+     */
+    public String getCheckTarget() {
+        return checkTarget;
+    }
+
+    public boolean hasCheckTarget() {
+        return checkTarget != null && !checkTarget.isBlank();
+    }
+
+    /** @return Whether the current status was set by the health checks */
+    public boolean isStatusProbed() {
+        return statusProbed;
+    }
+
+    /**
+     * Checks whether an administrator set a status other than operational, e.g. maintenance or a declared outage.
+     * The health checks leave such a status alone until it is set back to operational.
+     *
+     * @return true if the status was set by hand and is not operational
+     */
+    public boolean isManualOverride() {
+        return !statusProbed && severity != Severity.OPERATIONAL;
+    }
+
     /**
      * Checks if this service has a parent.
      *
@@ -99,14 +156,27 @@ public class Service {
     }
 
     /**
-     * Creates a new Service instance with updated status information.
+     * Creates a new Service instance with updated status information, set by hand.
+     * A status set by the health checks stays theirs as long as the severity does not change.
      *
-     * @param newStatus The new status
+     * @param newSeverity The new status
      * @param newDescription The new description
      * @return A new Service instance with updated information
      */
-    public Service withUpdatedStatus(String newStatus, String newDescription, String newOutageDescription) {
-        return new Service(this.displayName, this.serviceId, newStatus, newOutageDescription, newDescription, this.parentId);
+    public Service withUpdatedStatus(Severity newSeverity, String newDescription, String newOutageDescription) {
+        return new Service(this.displayName, this.serviceId, newSeverity, newOutageDescription, newDescription, this.parentId, this.checkTarget,
+                this.statusProbed && newSeverity == this.severity);
+    }
+
+    /**
+     * Creates a new Service instance with a status found by the health checks.
+     *
+     * @param newSeverity The new status
+     * @param newOutageDescription The new outage description
+     * @return A new Service instance with updated information
+     */
+    public Service withProbedStatus(Severity newSeverity, String newOutageDescription) {
+        return new Service(this.displayName, this.serviceId, newSeverity, newOutageDescription, this.description, this.parentId, this.checkTarget, true);
     }
 
     /**
@@ -116,7 +186,17 @@ public class Service {
      * @return A new Service instance with updated parent
      */
     public Service withParent(String newParentId) {
-        return new Service(this.displayName, this.serviceId, this.status, this.outageDescription, this.description, newParentId);
+        return new Service(this.displayName, this.serviceId, this.severity, this.outageDescription, this.description, newParentId, this.checkTarget, this.statusProbed);
+    }
+
+    /**
+     * Creates a new Service instance with a different health check target.
+     *
+     * @param newCheckTarget The new check target, or null to stop checking the service
+     * @return A new Service instance with updated check target
+     */
+    public Service withCheckTarget(String newCheckTarget) {
+        return new Service(this.displayName, this.serviceId, this.severity, this.outageDescription, this.description, this.parentId, newCheckTarget, this.statusProbed);
     }
 
     @Override
@@ -137,10 +217,12 @@ public class Service {
         return "Service{" +
                 "displayName='" + displayName + '\'' +
                 ", serviceId='" + serviceId + '\'' +
-                ", status='" + status + '\'' +
+                ", severity=" + severity +
                 ", outageDescription='" + outageDescription + '\'' +
                 ", description='" + description + '\'' +
                 ", parentId='" + parentId + '\'' +
+                ", checkTarget='" + checkTarget + '\'' +
+                ", statusProbed=" + statusProbed +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,301 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable, versioned snapshot of all services.
+ * Every mutation of the {@link StatusStorage} publishes a new catalog, so readers can work on
+ * a consistent view without locking while writers keep going.
+ * <p>
+ * The catalog also indexes the service hierarchy: the children of every service, and the
+ * rolled-up (worst) severity of every subtree. A mutation only recomputes the rollups along
+ * the ancestor path of the changed service.
+ *
+ * @author SkyKing_PX
+ */
+public final class ServiceCatalog {
+
+    private static final ServiceCatalog EMPTY = of(Map.of());
+
+    private final long version;
+    private final Map<String, Service> services;
+    /** IDs of the services without a parent, in display order */
+    private final List<String> roots;
+    /** IDs of the children of each service, keyed by parent ID, in display order */
+    private final Map<String, List<String>> children;
+    /** Worst severity of each service and all of its descendants */
+    private final Map<String, Severity> rollups;
+    /** Number of services per severity, indexed by ordinal */
+    private final int[] severityCounts;
+
+    private ServiceCatalog(long version, LinkedHashMap<String, Service> services, List<String> roots,
+                           Map<String, List<String>> children, Map<String, Severity> rollups, int[] severityCounts) {
+        this.version = version;
+        this.services = Collections.unmodifiableMap(services);
+        this.roots = roots;
+        this.children = children;
+        this.rollups = rollups;
+        this.severityCounts = severityCounts;
+    }
+
+    /**
+     * Creates the initial catalog and builds its hierarchy index.
+     *
+     * @param services The services keyed by service ID, in display order
+     * @return A catalog with version 0 containing the given services
+     */
+    public static ServiceCatalog of(Map<String, Service> services) {
+        if (services.isEmpty() && EMPTY != null) return EMPTY;
+
+        List<String> roots = new ArrayList<>();
+        Map<String, List<String>> children = new HashMap<>();
+        int[] severityCounts = new int[Severity.values().length];
+        for (Service service : services.values()) {
+            severityCounts[service.getSeverity().ordinal()]++;
+            if (service.hasParent()) {
+                children.computeIfAbsent(service.getParentId(), id -> new ArrayList<>()).add(service.getServiceId());
+            } else {
+                roots.add(service.getServiceId());
+            }
+        }
+        children.replaceAll((id, ids) -> List.copyOf(ids));
+
+        ServiceCatalog catalog = new ServiceCatalog(0, new LinkedHashMap<>(services), List.copyOf(roots),
+                children, new HashMap<>(), severityCounts);
+        Set<String> visiting = new HashSet<>();
+        for (String serviceId : services.keySet()) {
+            catalog.computeRollup(serviceId, visiting);
+        }
+        return catalog;
+    }
+
+    /** @return Version of the catalog, incremented with every mutation */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets a service by its ID.
+     *
+     * @param serviceId The ID of the service
+     * @return The service, or null if no such service exists
+     */
+    public Service get(String serviceId) {
+        return services.get(serviceId);
+    }
+
+    /** @return All services, in the order they were added */
+    public Collection<Service> getServices() {
+        return services.values();
+    }
+
+    public int size() {
+        return services.size();
+    }
+
+    /** @return The services without a parent, in the order they were added */
+    public List<Service> getRoots() {
+        return resolve(roots);
+    }
+
+    /**
+     * Gets the direct children of a service.
+     *
+     * @param serviceId The ID of the parent service
+     * @return The children, in the order they were added
+     */
+    public List<Service> getChildren(String serviceId) {
+        return resolve(children.getOrDefault(serviceId, List.of()));
+    }
+
+    /**
+     * Gets the worst severity of a service and all of its descendants.
+     *
+     * @param serviceId The ID of the service
+     * @return The rolled-up severity, or null if no such service exists
+     */
+    public Severity getRollup(String serviceId) {
+        return rollups.get(serviceId);
+    }
+
+    /** @return The worst severity of all services, or {@link Severity#OPERATIONAL} if there are none */
+    public Severity getWorstSeverity() {
+        for (int ordinal = severityCounts.length - 1; ordinal > 0; ordinal--) {
+            if (severityCounts[ordinal] > 0) return Severity.values()[ordinal];
+        }
+        return Severity.OPERATIONAL;
+    }
+
+    /**
+     * Gets the number of services with a given severity.
+     *
+     * @param severity The severity
+     * @return Number of services currently in that severity
+     */
+    public int getSeverityCount(Severity severity) {
+        return severityCounts[severity.ordinal()];
+    }
+
+    /**
+     * Creates the next version of the catalog with a service added or replaced.
+     * A replaced service keeps its position.
+     *
+     * @param service The service to add or replace
+     * @return The new catalog
+     * @throws IllegalArgumentException If the service would become its own ancestor
+     */
+    public ServiceCatalog withService(Service service) {
+        String serviceId = service.getServiceId();
+        Service previous = services.get(serviceId);
+        String oldParent = previous != null && previous.hasParent() ? previous.getParentId() : null;
+        String newParent = service.hasParent() ? service.getParentId() : null;
+
+        for (String ancestor = newParent; ancestor != null; ancestor = parentOf(ancestor)) {
+            if (ancestor.equals(serviceId)) {
+                throw new IllegalArgumentException("Service `" + serviceId + "` cannot be a descendant of itself");
+            }
+        }
+
+        LinkedHashMap<String, Service> nextServices = new LinkedHashMap<>(services);
+        nextServices.put(serviceId, service);
+
+        int[] nextCounts = severityCounts.clone();
+        if (previous != null) nextCounts[previous.getSeverity().ordinal()]--;
+        nextCounts[service.getSeverity().ordinal()]++;
+
+        List<String> nextRoots = roots;
+        Map<String, List<String>> nextChildren = children;
+        if (previous == null || !Objects.equals(oldParent, newParent)) {
+            nextChildren = new HashMap<>(children);
+            if (previous != null) {
+                if (oldParent == null) nextRoots = without(nextRoots, serviceId);
+                else nextChildren.put(oldParent, without(nextChildren.getOrDefault(oldParent, List.of()), serviceId));
+            }
+            if (newParent == null) nextRoots = with(nextRoots, serviceId);
+            else nextChildren.put(newParent, with(nextChildren.getOrDefault(newParent, List.of()), serviceId));
+        }
+
+        ServiceCatalog next = new ServiceCatalog(version + 1, nextServices, nextRoots, nextChildren,
+                new HashMap<>(rollups), nextCounts);
+        next.propagateRollup(serviceId);
+        if (oldParent != null && !oldParent.equals(newParent)) {
+            next.propagateRollup(oldParent);
+        }
+        return next;
+    }
+
+    /**
+     * Creates the next version of the catalog with a service removed.
+     * Children of the removed service stay attached to its ID and are shown again if it is re-added.
+     *
+     * @param serviceId The ID of the service to remove
+     * @return The new catalog
+     */
+    public ServiceCatalog withoutService(String serviceId) {
+        Service previous = services.get(serviceId);
+        if (previous == null) {
+            return new ServiceCatalog(version + 1, new LinkedHashMap<>(services), roots, children, rollups, severityCounts);
+        }
+
+        LinkedHashMap<String, Service> nextServices = new LinkedHashMap<>(services);
+        nextServices.remove(serviceId);
+
+        int[] nextCounts = severityCounts.clone();
+        nextCounts[previous.getSeverity().ordinal()]--;
+
+        List<String> nextRoots = roots;
+        Map<String, List<String>> nextChildren = children;
+        String parent = previous.hasParent() ? previous.getParentId() : null;
+        if (parent == null) {
+            nextRoots = without(roots, serviceId);
+        } else {
+            nextChildren = new HashMap<>(children);
+            nextChildren.put(parent, without(children.getOrDefault(parent, List.of()), serviceId));
+        }
+
+        Map<String, Severity> nextRollups = new HashMap<>(rollups);
+        nextRollups.remove(serviceId);
+
+        ServiceCatalog next = new ServiceCatalog(version + 1, nextServices, nextRoots, nextChildren, nextRollups, nextCounts);
+        if (parent != null) {
+            next.propagateRollup(parent);
+        }
+        return next;
+    }
+
+    /**
+     * Recomputes the rollup of a service from its own severity and its children's rollups,
+     * then walks up the ancestors until a rollup stays unchanged.
+     * Only called on a catalog that has not been published yet.
+     */
+    private void propagateRollup(String serviceId) {
+        Set<String> visited = new HashSet<>();
+        for (String current = serviceId; current != null && services.containsKey(current) && visited.add(current); current = parentOf(current)) {
+            Severity rollup = services.get(current).getSeverity();
+            for (String child : children.getOrDefault(current, List.of())) {
+                Severity childRollup = rollups.get(child);
+                if (childRollup != null) rollup = rollup.worst(childRollup);
+            }
+
+            if (rollup == rollups.put(current, rollup) && !current.equals(serviceId)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Computes the rollup of a service and its descendants from scratch, depth first.
+     */
+    private Severity computeRollup(String serviceId, Set<String> visiting) {
+        Severity rollup = rollups.get(serviceId);
+        if (rollup != null) return rollup;
+
+        Service service = services.get(serviceId);
+        if (service == null || !visiting.add(serviceId)) return null;
+
+        rollup = service.getSeverity();
+        for (String child : children.getOrDefault(serviceId, List.of())) {
+            Severity childRollup = computeRollup(child, visiting);
+            if (childRollup != null) rollup = rollup.worst(childRollup);
+        }
+        visiting.remove(serviceId);
+        rollups.put(serviceId, rollup);
+        return rollup;
+    }
+
+    private String parentOf(String serviceId) {
+        Service service = services.get(serviceId);
+        return service != null && service.hasParent() ? service.getParentId() : null;
+    }
+
+    private List<Service> resolve(List<String> ids) {
+        List<Service> resolved = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Service service = services.get(id);
+            if (service != null) resolved.add(service);
+        }
+        return resolved;
+    }
+
+    private static List<String> with(List<String> ids, String id) {
+        List<String> next = new ArrayList<>(ids.size() + 1);
+        next.addAll(ids);
+        next.add(id);
+        return List.copyOf(next);
+    }
+
+    private static List<String> without(List<String> ids, String id) {
+        List<String> next = new ArrayList<>(ids);
+        next.remove(id);
+        return List.copyOf(next);
+    }
+}
@@ -0,0 +1,142 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streaming JSON serialization of {@link Service} objects.
+ * Used for snapshots and journal records, so services are written and read
+ * without building an intermediate tree.
+ *
+ * @author SkyKing_PX
+ */
+public final class ServiceCodec {
+
+    private ServiceCodec() {
+    }
+
+    /**
+     * Writes a service as a JSON object.
+     *
+     * @param generator The generator to write to
+     * @param service The service to write
+     */
+    public static void write(JsonGenerator generator, Service service) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("displayName", service.getDisplayName());
+        generator.writeStringField("serviceId", service.getServiceId());
+        generator.writeStringField("status", service.getStatus());
+        generator.writeStringField("severity", service.getSeverity().getKey());
+        generator.writeStringField("outageDescription", service.getOutageDescription());
+        generator.writeStringField("description", service.getDescription());
+        generator.writeStringField("parentId", service.getParentId());
+        if (service.hasCheckTarget()) {
+            generator.writeStringField("checkTarget", service.getCheckTarget());
+        }
+        if (service.isStatusProbed()) {
+            generator.writeBooleanField("statusProbed", true);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes services as a JSON object keyed by service ID.
+     *
+     * @param generator The generator to write to
+     * @param services The services to write
+     */
+    public static void writeAll(JsonGenerator generator, Iterable<Service> services) throws IOException {
+        generator.writeStartObject();
+        for (Service service : services) {
+            generator.writeFieldName(service.getServiceId());
+            write(generator, service);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Reads a service from a JSON object.
+     *
+     * @param parser The parser, positioned on the START_OBJECT token of the service
+     * @return The service
+     * @throws IOException If the JSON is malformed or the service has no ID
+     */
+    public static Service read(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_OBJECT);
+        String displayName = null;
+        String serviceId = null;
+        String status = null;
+        String severity = null;
+        String outageDescription = null;
+        String description = null;
+        String parentId = null;
+        String checkTarget = null;
+        boolean statusProbed = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+
+            String text = value == JsonToken.VALUE_NULL ? null : parser.getText();
+            switch (field) {
+                case "displayName" -> displayName = text;
+                case "serviceId" -> serviceId = text;
+                case "status" -> status = text;
+                case "severity" -> severity = text;
+                case "outageDescription" -> outageDescription = text;
+                case "description" -> description = text;
+                case "parentId" -> parentId = text;
+                case "checkTarget" -> checkTarget = text;
+                case "statusProbed" -> statusProbed = Boolean.parseBoolean(text);
+                default -> {}
+            }
+        }
+        expect(parser, JsonToken.END_OBJECT);
+
+        if (serviceId == null) {
+            throw new IOException("Service has no serviceId at " + parser.currentLocation());
+        }
+        // Services stored before severities were introduced only have the status label
+        Severity parsed = severity != null ? Severity.fromKey(severity) : Severity.fromLabel(status);
+        return new Service(displayName, serviceId, parsed, outageDescription, description, parentId, checkTarget, statusProbed);
+    }
+
+    /**
+     * Reads services from a JSON object keyed by service ID.
+     *
+     * @param parser The parser, positioned on the START_OBJECT token of the services
+     * @return The services keyed by service ID, in the order they were written
+     * @throws IOException If the JSON is malformed or a service cannot be read
+     */
+    public static Map<String, Service> readAll(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_OBJECT);
+        Map<String, Service> services = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.currentName();
+            parser.nextToken();
+            try {
+                Service service = read(parser);
+                services.put(service.getServiceId(), service);
+            } catch (IOException e) {
+                throw new IOException("Service " + key + " could not be read", e);
+            }
+        }
+        expect(parser, JsonToken.END_OBJECT);
+        return services;
+    }
+
+    static void expect(JsonParser parser, JsonToken token) throws IOException {
+        if (parser.currentToken() != token) {
+            throw new IOException("Expected " + token + " but found " + parser.currentToken() + " at " + parser.currentLocation());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+/**
+ * Severity of a service status, ordered from least to most severe.
+ * The ordinal is the rank, so the aggregate status of several services is their maximum.
+ *
+ * @author SkyKing_PX
+ */
+public enum Severity {
+    OPERATIONAL("operational", "🟢", "Operational"),
+    UNKNOWN("unknown", "⚪", "Unknown Status"),
+    MAINTENANCE("maintenance", "🔵", "Maintenance"),
+    DEGRADED("degraded", "🟡", "Degraded Performance"),
+    PARTIAL_OUTAGE("partial_outage", "🟡", "Partial Outage"),
+    MAJOR_OUTAGE("major_outage", "🔴", "Major Outage");
+
+    private static final Severity[] VALUES = values();
+
+    private final String key;
+    private final String emoji;
+    private final String displayName;
+    private final String label;
+
+    Severity(String key, String emoji, String displayName) {
+        this.key = key;
+        this.emoji = emoji;
+        this.displayName = displayName;
+        this.label = emoji + " " + displayName;
+    }
+
+    /** @return Key used in commands and storage, e.g. "major_outage" */
+    public String getKey() {
+        return key;
+    }
+
+    /** @return Emoji representing the severity */
+    public String getEmoji() {
+        return emoji;
+    }
+
+    /** @return Human-readable name, e.g. "Major Outage" */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /** @return Status label shown in embeds, e.g. "🔴 Major Outage" */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the more severe of two severities.
+     *
+     * @param other The severity to compare with
+     * @return This severity or the other one, whichever is worse
+     */
+    public Severity worst(Severity other) {
+        return other.ordinal() > ordinal() ? other : this;
+    }
+
+    /**
+     * Looks up a severity by its key.
+     *
+     * @param key The key, e.g. "major_outage"
+     * @return The severity, or {@link #UNKNOWN} if the key is not known
+     */
+    public static Severity fromKey(String key) {
+        for (Severity severity : VALUES) {
+            if (severity.key.equals(key)) return severity;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Derives the severity from a status label, as stored before severities were introduced.
+     *
+     * @param status The status label, e.g. "🔴 Major Outage"
+     * @return The severity, or {@link #UNKNOWN} if the label is not recognized
+     */
+    public static Severity fromLabel(String status) {
+        if (status == null) return UNKNOWN;
+        if (status.contains("Major Outage")) return MAJOR_OUTAGE;
+        if (status.contains("Partial Outage")) return PARTIAL_OUTAGE;
+        if (status.contains("Degraded Performance")) return DEGRADED;
+        if (status.contains("Maintenance")) return MAINTENANCE;
+        if (status.contains("Operational")) return OPERATIONAL;
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,203 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Crash-safe snapshot file of the service catalog.
+ * Snapshots are written to a temporary file, forced to disk and atomically renamed over the
+ * snapshot, keeping the previous snapshots as numbered backups ({@code status.json.1}, ...).
+ * Each snapshot carries a CRC32C checksum of its services, so a damaged snapshot is detected
+ * on load and the newest intact generation is used instead.
+ *
+ * @author SkyKing_PX
+ */
+public class SnapshotFile {
+
+    private static final int FORMAT = 2;
+
+    private final File file;
+    private final JsonFactory factory;
+    private final int generations;
+
+    /**
+     * Creates a snapshot file.
+     *
+     * @param file The snapshot file
+     * @param factory Factory used to create JSON parsers and generators
+     * @param generations Number of previous snapshots to keep as backups
+     */
+    public SnapshotFile(File file, JsonFactory factory, int generations) {
+        this.file = file;
+        this.factory = factory;
+        this.generations = generations;
+    }
+
+    /**
+     * Loads the newest intact generation of the snapshot.
+     *
+     * @return The services of the snapshot keyed by service ID, or null if no snapshot exists
+     * @throws IOException If snapshots exist but none of them is intact
+     */
+    public Map<String, Service> read() throws IOException {
+        boolean found = false;
+        for (int generation = 0; generation <= generations; generation++) {
+            File candidate = generationFile(generation);
+            if (!candidate.exists()) continue;
+            found = true;
+
+            try {
+                Map<String, Service> services = parse(Files.readAllBytes(candidate.toPath()));
+                if (generation > 0) {
+                    LogUtils.logWarning("Loaded backup snapshot, changes made after it may be lost", candidate.getName());
+                }
+                return services;
+            } catch (IOException | RuntimeException e) {
+                LogUtils.logException("Snapshot is damaged", candidate.getName(), e);
+            }
+        }
+
+        if (found) {
+            throw new IOException("No intact snapshot of " + file.getName() + " found");
+        }
+        return null;
+    }
+
+    /**
+     * Writes a new snapshot and shifts the existing ones into the backup generations.
+     *
+     * @param services The services to store
+     * @throws IOException If the snapshot cannot be written
+     */
+    public void write(Iterable<Service> services) throws IOException {
+        byte[] body = serialize(services);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + 128);
+        out.writeBytes(("{\n  \"format\" : " + FORMAT + ",\n  \"checksum\" : \"" + checksum(body, 0, body.length)
+                + "\",\n  \"services\" : ").getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(body);
+        out.writeBytes("\n}\n".getBytes(StandardCharsets.UTF_8));
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        Files.deleteIfExists(generationFile(generations).toPath());
+        for (int generation = generations - 1; generation >= 0; generation--) {
+            File source = generationFile(generation);
+            if (source.exists()) {
+                Files.move(source.toPath(), generationFile(generation + 1).toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+    }
+
+    /**
+     * Serializes the services, indented to be nested in the snapshot envelope.
+     */
+    private byte[] serialize(Iterable<Service> services) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = factory.createGenerator(out).useDefaultPrettyPrinter()) {
+            ServiceCodec.writeAll(generator, services);
+        }
+
+        // Raw newlines never occur inside JSON strings, so every newline starts a new line of the document
+        byte[] json = out.toByteArray();
+        ByteArrayOutputStream indented = new ByteArrayOutputStream(json.length + json.length / 8);
+        for (byte b : json) {
+            indented.write(b);
+            if (b == '\n') {
+                indented.write(' ');
+                indented.write(' ');
+            }
+        }
+        return indented.toByteArray();
+    }
+
+    private Map<String, Service> parse(byte[] bytes) throws IOException {
+        Map<String, Service> services = null;
+        String checksum = null;
+
+        try (JsonParser parser = factory.createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Snapshot is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if (field.equals("format") && value == JsonToken.VALUE_NUMBER_INT) {
+                    if (parser.getIntValue() != FORMAT) {
+                        throw new IOException("Unsupported snapshot format " + parser.getIntValue());
+                    }
+                } else if (field.equals("checksum") && value == JsonToken.VALUE_STRING) {
+                    checksum = parser.getText();
+                } else if (field.equals("services") && value == JsonToken.START_OBJECT) {
+                    int start = (int) parser.currentTokenLocation().getByteOffset();
+                    parser.skipChildren();
+                    int end = (int) parser.currentTokenLocation().getByteOffset() + 1;
+
+                    String actual = checksum(bytes, start, end - start);
+                    if (checksum == null || !checksum.equals(actual)) {
+                        throw new IOException("Checksum mismatch (expected " + checksum + ", got " + actual + ")");
+                    }
+                    try (JsonParser servicesParser = factory.createParser(bytes, start, end - start)) {
+                        servicesParser.nextToken();
+                        services = ServiceCodec.readAll(servicesParser);
+                    }
+                } else {
+                    // Snapshot written before checksums were introduced: a plain map of services
+                    try (JsonParser legacyParser = factory.createParser(bytes)) {
+                        legacyParser.nextToken();
+                        return ServiceCodec.readAll(legacyParser);
+                    }
+                }
+            }
+        }
+
+        if (services == null) {
+            throw new IOException("Snapshot has no services");
+        }
+        return services;
+    }
+
+    private File generationFile(int generation) {
+        return generation == 0 ? file : new File(file.getPath() + "." + generation);
+    }
+
+    private void syncDirectory() {
+        File directory = file.getAbsoluteFile().getParentFile();
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Not every platform allows syncing a directory; the rename itself is still atomic
+        }
+    }
+
+    private static String checksum(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return String.format("crc32c:%08x", crc.getValue());
+    }
+}
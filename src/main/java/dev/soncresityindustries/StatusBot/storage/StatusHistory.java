@@ -0,0 +1,341 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only history of status transitions, partitioned into one file per day ({@code history/status-2024-01-31.log}).
+ * Each line holds the time, the new severity and the service ID of one transition.
+ * <p>
+ * On top of the files, every service keeps hourly and daily buckets of the time spent up and down,
+ * together with running totals per uptime window, so uptime lookups do not scan the history.
+ * A service counts as down while it has a partial or major outage.
+ *
+ * @author SkyKing_PX
+ */
+public class StatusHistory {
+
+    /** Number of days of history kept on disk and in the daily buckets */
+    public static final int RETENTION_DAYS = 90;
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final int HOURLY_BUCKETS = 7 * 24;
+
+    /**
+     * Windows uptime can be looked up for.
+     */
+    public enum Window {
+        DAY("24h"),
+        WEEK("7d"),
+        QUARTER("90d");
+
+        private final String label;
+
+        Window(String label) {
+            this.label = label;
+        }
+
+        /** @return Short label, e.g. "24h" */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * A status transition, or the removal of a service.
+     *
+     * @param serviceId The ID of the service
+     * @param severity The new severity, or null if the service was removed
+     * @param timeMillis The time of the transition
+     */
+    public record Transition(String serviceId, Severity severity, long timeMillis) {
+    }
+
+    private final File directory;
+    private final Map<String, Timeline> timelines = new HashMap<>();
+
+    /**
+     * Creates a history stored in a directory.
+     *
+     * @param directory The directory holding the daily history files
+     */
+    public StatusHistory(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Rebuilds the uptime buckets from the retained history files and deletes older files.
+     * Services without any recorded transition start their history now.
+     *
+     * @param services The current services
+     * @param nowMillis The current time
+     */
+    public synchronized void load(Collection<Service> services, long nowMillis) throws IOException {
+        Files.createDirectories(directory.toPath());
+        String oldest = fileName(nowMillis - (RETENTION_DAYS - 1) * DAY);
+
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("status-") && name.endsWith(".log"));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                if (file.getName().compareTo(oldest) < 0) {
+                    Files.deleteIfExists(file.toPath());
+                    continue;
+                }
+                replay(file);
+            }
+        }
+
+        Set<String> current = new HashSet<>();
+        List<Transition> started = new ArrayList<>();
+        for (Service service : services) {
+            current.add(service.getServiceId());
+            Timeline timeline = timelines.get(service.getServiceId());
+            if (timeline == null || timeline.severity != service.getSeverity()) {
+                started.add(new Transition(service.getServiceId(), service.getSeverity(), nowMillis));
+            }
+        }
+        recordAll(started);
+        timelines.keySet().retainAll(current);
+    }
+
+    /**
+     * Records a status transition.
+     *
+     * @param serviceId The ID of the service
+     * @param severity The new severity
+     * @param timeMillis The time of the transition
+     */
+    public synchronized void record(String serviceId, Severity severity, long timeMillis) throws IOException {
+        recordAll(List.of(new Transition(serviceId, severity, timeMillis)));
+    }
+
+    /**
+     * Records several transitions in order, opening each daily file once.
+     * Transitions of removed services forget the service, as {@link #forget} does.
+     *
+     * @param transitions The transitions, oldest first
+     */
+    public synchronized void recordAll(List<Transition> transitions) throws IOException {
+        Writer writer = null;
+        String openFile = null;
+        try {
+            for (Transition transition : transitions) {
+                if (transition.severity() == null) {
+                    forget(transition.serviceId());
+                    continue;
+                }
+                transition(transition.serviceId(), transition.severity(), transition.timeMillis());
+
+                String fileName = fileName(transition.timeMillis());
+                if (!fileName.equals(openFile)) {
+                    if (writer != null) writer.close();
+                    writer = Files.newBufferedWriter(new File(directory, fileName).toPath(), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    openFile = fileName;
+                }
+                writer.write(transition.timeMillis() + "\t" + transition.severity().getKey() + "\t" + transition.serviceId() + "\n");
+            }
+        } finally {
+            if (writer != null) writer.close();
+        }
+    }
+
+    /**
+     * Stops tracking a removed service. Its recorded transitions stay on disk until they expire.
+     *
+     * @param serviceId The ID of the service
+     */
+    public synchronized void forget(String serviceId) {
+        timelines.remove(serviceId);
+    }
+
+    /**
+     * Gets the share of time a service was not down within a window.
+     *
+     * @param serviceId The ID of the service
+     * @param window The window to look at
+     * @param nowMillis The current time
+     * @return Uptime between 0 and 1, or null if nothing was recorded for the service
+     */
+    public synchronized Double getUptime(String serviceId, Window window, long nowMillis) {
+        Timeline timeline = timelines.get(serviceId);
+        if (timeline == null) return null;
+
+        timeline.advance(nowMillis);
+        long total = timeline.total[window.ordinal()];
+        if (total == 0) return null;
+        return 1.0 - (double) timeline.down[window.ordinal()] / total;
+    }
+
+    /**
+     * Describes the uptime of a service in all windows, e.g. "99.95% (24h) · 99.90% (7d) · 99.99% (90d)".
+     *
+     * @param serviceId The ID of the service
+     * @param nowMillis The current time
+     * @return The description, or null if nothing was recorded for the service
+     */
+    public synchronized String describeUptime(String serviceId, long nowMillis) {
+        StringBuilder description = new StringBuilder();
+        for (Window window : Window.values()) {
+            Double uptime = getUptime(serviceId, window, nowMillis);
+            if (uptime == null) return null;
+            if (!description.isEmpty()) description.append(" · ");
+            description.append(formatPercent(uptime)).append(" (").append(window.getLabel()).append(")");
+        }
+        return description.toString();
+    }
+
+    /**
+     * Formats an uptime as a percentage with two decimals, never rounding up to 100% while there was downtime.
+     *
+     * @param uptime Uptime between 0 and 1
+     * @return The percentage, e.g. "99.95%"
+     */
+    public static String formatPercent(double uptime) {
+        double percent = Math.floor(uptime * 10000) / 100;
+        return String.format(Locale.ROOT, "%.2f%%", percent);
+    }
+
+    private void replay(File file) {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 3);
+                if (parts.length < 3) continue; // Torn last line after a crash
+                try {
+                    transition(parts[2], Severity.fromKey(parts[1]), Long.parseLong(parts[0]));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        } catch (IOException e) {
+            LogUtils.logException("Error reading status history", file.getName(), e);
+        }
+    }
+
+    private void transition(String serviceId, Severity severity, long timeMillis) {
+        Timeline timeline = timelines.get(serviceId);
+        if (timeline == null) {
+            timelines.put(serviceId, new Timeline(severity, timeMillis));
+            return;
+        }
+        timeline.advance(timeMillis);
+        timeline.severity = severity;
+    }
+
+    private static String fileName(long timeMillis) {
+        return "status-" + LocalDate.ofEpochDay(Math.floorDiv(timeMillis, DAY)) + ".log";
+    }
+
+    private static boolean isDown(Severity severity) {
+        return severity.ordinal() >= Severity.PARTIAL_OUTAGE.ordinal();
+    }
+
+    /**
+     * Time spent up and down by a single service, in hourly and daily buckets.
+     * Totals per {@link Window} are kept up to date as time is added and buckets expire.
+     */
+    private static class Timeline {
+        private final long[] hourTotal = new long[HOURLY_BUCKETS];
+        private final long[] hourDown = new long[HOURLY_BUCKETS];
+        private final long[] dayTotal = new long[RETENTION_DAYS];
+        private final long[] dayDown = new long[RETENTION_DAYS];
+        /** Running totals, indexed by {@link Window#ordinal()} */
+        private final long[] total = new long[Window.values().length];
+        private final long[] down = new long[Window.values().length];
+
+        private Severity severity;
+        private long accountedUntil;
+        private long currentHour;
+        private long currentDay;
+
+        private Timeline(Severity severity, long startMillis) {
+            this.severity = severity;
+            this.accountedUntil = startMillis;
+            this.currentHour = Math.floorDiv(startMillis, HOUR);
+            this.currentDay = Math.floorDiv(startMillis, DAY);
+        }
+
+        /**
+         * Accounts the time up to the given moment to the current severity, hour by hour.
+         */
+        private void advance(long nowMillis) {
+            if (nowMillis - accountedUntil > RETENTION_DAYS * DAY) {
+                // Idle for longer than anything is retained: only the retained part matters
+                accountedUntil = nowMillis - RETENTION_DAYS * DAY;
+            }
+
+            boolean isDown = isDown(severity);
+            while (accountedUntil < nowMillis) {
+                long hour = Math.floorDiv(accountedUntil, HOUR);
+                long end = Math.min(nowMillis, (hour + 1) * HOUR);
+                rollTo(hour, Math.floorDiv(accountedUntil, DAY));
+                add(end - accountedUntil, isDown);
+                accountedUntil = end;
+            }
+        }
+
+        private void add(long millis, boolean isDown) {
+            int hourIndex = (int) Math.floorMod(currentHour, HOURLY_BUCKETS);
+            int dayIndex = (int) Math.floorMod(currentDay, RETENTION_DAYS);
+            hourTotal[hourIndex] += millis;
+            dayTotal[dayIndex] += millis;
+            for (int window = 0; window < total.length; window++) {
+                total[window] += millis;
+            }
+            if (isDown) {
+                hourDown[hourIndex] += millis;
+                dayDown[dayIndex] += millis;
+                for (int window = 0; window < down.length; window++) {
+                    down[window] += millis;
+                }
+            }
+        }
+
+        /**
+         * Moves to a later hour and day, expiring the buckets that fall out of each window.
+         */
+        private void rollTo(long hour, long day) {
+            while (currentHour < hour) {
+                currentHour++;
+                // The bucket 24 hours back leaves the day window, the reused bucket leaves the week window
+                int dayWindowIndex = (int) Math.floorMod(currentHour - 24, HOURLY_BUCKETS);
+                total[Window.DAY.ordinal()] -= hourTotal[dayWindowIndex];
+                down[Window.DAY.ordinal()] -= hourDown[dayWindowIndex];
+
+                int index = (int) Math.floorMod(currentHour, HOURLY_BUCKETS);
+                total[Window.WEEK.ordinal()] -= hourTotal[index];
+                down[Window.WEEK.ordinal()] -= hourDown[index];
+                hourTotal[index] = 0;
+                hourDown[index] = 0;
+            }
+            while (currentDay < day) {
+                currentDay++;
+                int index = (int) Math.floorMod(currentDay, RETENTION_DAYS);
+                total[Window.QUARTER.ordinal()] -= dayTotal[index];
+                down[Window.QUARTER.ordinal()] -= dayDown[index];
+                dayTotal[index] = 0;
+                dayDown[index] = 0;
+            }
+        }
+    }
+}
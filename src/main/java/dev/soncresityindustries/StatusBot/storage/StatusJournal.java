@@ -0,0 +1,316 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import dev.soncresityindustries.StatusBot.util.LogUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only journal of service mutations, stored as JSON lines in numbered segment files
+ * next to the snapshot ({@code status.journal.1}, {@code status.journal.2}, ...).
+ * Records are written by a dedicated thread that syncs everything queued while the previous
+ * batch was written with a single fsync (group commit).
+ *
+ * @author SkyKing_PX
+ */
+public class StatusJournal {
+
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("\\.(\\d+)$");
+
+    private final File directory;
+    private final String baseName;
+    private final JsonFactory factory;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong uncompactedRecords = new AtomicLong();
+    /** Queued to stop the writer thread, completes once the segment is closed */
+    private final Entry closeMarker = new Entry(new byte[0]);
+
+    private FileChannel channel;
+    private long segment;
+    /** Set once {@link #close()} queued the close marker, guarded by this journal */
+    private boolean closed;
+
+    /**
+     * Creates a journal for the given snapshot file.
+     *
+     * @param snapshotFile The snapshot file the journal belongs to
+     * @param factory Factory used to create JSON parsers and generators
+     */
+    public StatusJournal(File snapshotFile, JsonFactory factory) {
+        this.directory = snapshotFile.getAbsoluteFile().getParentFile();
+        this.baseName = snapshotFile.getName().replaceFirst("\\.json$", "") + ".journal";
+        this.factory = factory;
+    }
+
+    /**
+     * Reads all records of the existing segments, oldest first.
+     * A record that was only partially written (e.g. due to a crash) ends the replay of its segment.
+     *
+     * @return The recorded mutations in the order they were written
+     * @throws IOException If a segment cannot be read
+     */
+    public List<Mutation> replay() throws IOException {
+        List<Mutation> records = new ArrayList<>();
+        for (File file : listSegments().values()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    try (JsonParser parser = factory.createParser(line)) {
+                        parser.nextToken();
+                        Mutation mutation = Mutation.read(parser);
+                        if (mutation == null) {
+                            LogUtils.logWarning("Ignoring unknown journal record", line);
+                            continue;
+                        }
+                        records.add(mutation);
+                    } catch (IOException e) {
+                        LogUtils.logWarning("Ignoring incomplete journal record", file.getName());
+                        break;
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Opens a new segment after the existing ones and starts the writer thread.
+     *
+     * @throws IOException If the segment cannot be created
+     */
+    public void start() throws IOException {
+        TreeMap<Long, File> segments = listSegments();
+        segment = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        channel = openSegment(segment);
+
+        Thread writer = new Thread(this::writeLoop, "StatusJournal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a mutation for appending.
+     *
+     * @param mutation The mutation to record
+     * @return Future completing once the record has been synced to disk
+     */
+    public CompletableFuture<Void> append(Mutation mutation) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            mutation.write(generator);
+        }
+
+        Entry entry = new Entry(out.toByteArray());
+        synchronized (this) {
+            if (closed) throw new IOException("Status journal is closed");
+            uncompactedRecords.incrementAndGet();
+            queue.add(entry);
+        }
+        return entry.done.thenApply(segment -> null);
+    }
+
+    /**
+     * Seals the current segment and continues in a new one.
+     * Records queued before this call end up in the sealed segment or an older one.
+     *
+     * @return Future completing with the number of the sealed segment
+     */
+    public synchronized CompletableFuture<Long> rotate() {
+        if (closed) return CompletableFuture.failedFuture(new IOException("Status journal is closed"));
+        Entry entry = new Entry(null);
+        uncompactedRecords.set(0);
+        queue.add(entry);
+        return entry.done;
+    }
+
+    /**
+     * Stops the writer thread once the records queued before this call are written, and closes the current segment.
+     * A segment nothing was written to is deleted, so opening and closing the journal leaves no files behind.
+     * Appending afterwards fails.
+     *
+     * @return Future completing once the segment is closed
+     */
+    public synchronized CompletableFuture<Void> close() {
+        if (!closed) {
+            closed = true;
+            queue.add(closeMarker);
+        }
+        return closeMarker.done.thenApply(segment -> null);
+    }
+
+    /**
+     * Deletes all segments up to and including the given one,
+     * once their records are covered by a snapshot.
+     *
+     * @param lastSegment Number of the newest segment to delete
+     */
+    public void deleteSegmentsUpTo(long lastSegment) throws IOException {
+        for (File file : listSegments().headMap(lastSegment, true).values()) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /** @return Number of records waiting to be written */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** @return Number of records appended since the last rotation */
+    public long getUncompactedRecords() {
+        return uncompactedRecords.get();
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+
+            List<Entry> written = new ArrayList<>();
+            boolean closing = false;
+            long batchStart = -1;
+            try {
+                batchStart = channel.size();
+                for (Entry entry : batch) {
+                    if (entry == closeMarker) {
+                        // Always the last entry, nothing is queued after it
+                        closing = true;
+                        continue;
+                    }
+                    if (entry.record == null) {
+                        channel.force(false);
+                        channel.close();
+                        completeAll(written);
+                        written.clear();
+                        long sealed = segment;
+                        channel = openSegment(++segment);
+                        batchStart = 0;
+                        entry.done.complete(sealed);
+                        continue;
+                    }
+                    ByteBuffer buffer = ByteBuffer.allocate(entry.record.length + 1);
+                    buffer.put(entry.record).put((byte) '\n').flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    written.add(entry);
+                }
+                channel.force(false);
+                completeAll(written);
+            } catch (IOException e) {
+                LogUtils.logException("Error writing status journal", e);
+                for (Entry entry : batch) {
+                    entry.done.completeExceptionally(e);
+                }
+                if (batchStart >= 0) discardFrom(batchStart);
+                if (!closing) reopen();
+            }
+            batch.clear();
+
+            if (closing) {
+                closeSegment();
+                closeMarker.done.complete(segment);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the current segment, deleting it if nothing was written to it.
+     */
+    private void closeSegment() {
+        try {
+            boolean empty = channel.size() == 0;
+            channel.close();
+            if (empty) {
+                Files.deleteIfExists(new File(directory, baseName + "." + segment).toPath());
+            }
+        } catch (IOException e) {
+            LogUtils.logException("Error closing status journal segment", e);
+        }
+    }
+
+    /**
+     * Cuts off the records of a batch that failed, so they are not replayed although they were reported as failed.
+     */
+    private void discardFrom(long position) {
+        try {
+            channel.truncate(position);
+            channel.force(false);
+        } catch (IOException e) {
+            LogUtils.logException("Error discarding failed status journal records", e);
+        }
+    }
+
+    /**
+     * Continues in a fresh segment after a write error, so a damaged segment is not appended to.
+     */
+    private void reopen() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+        try {
+            channel = openSegment(++segment);
+        } catch (IOException e) {
+            LogUtils.logException("Error opening new status journal segment", e);
+        }
+    }
+
+    private void completeAll(List<Entry> entries) {
+        for (Entry entry : entries) {
+            entry.done.complete(segment);
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        File file = new File(directory, baseName + "." + number);
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private TreeMap<Long, File> listSegments() {
+        TreeMap<Long, File> segments = new TreeMap<>();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(baseName + "."));
+        if (files == null) return segments;
+
+        for (File file : files) {
+            Matcher matcher = SEGMENT_PATTERN.matcher(file.getName());
+            if (matcher.find() && file.getName().equals(baseName + "." + matcher.group(1))) {
+                segments.put(Long.parseLong(matcher.group(1)), file);
+            }
+        }
+        return segments;
+    }
+
+    private static class Entry {
+        private final byte[] record;
+        private final CompletableFuture<Long> done = new CompletableFuture<>();
+
+        private Entry(byte[] record) {
+            this.record = record;
+        }
+    }
+}
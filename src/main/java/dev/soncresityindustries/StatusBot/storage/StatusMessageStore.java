@@ -0,0 +1,109 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON-based storage for the status messages posted by the bot.
+ * Remembers which Discord message displays each page of the status channel and a fingerprint
+ * of the embeds last published there, so refreshes can edit messages in place.
+ * Every {@link StatusStorage} owns the store of its status channel.
+ *
+ * @author SkyKing_PX
+ */
+public class StatusMessageStore {
+
+    private final File file;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, TrackedMessage> messages = new LinkedHashMap<>();
+
+    /**
+     * Opens the tracked messages of one status channel.
+     *
+     * @param file The file the tracked messages are kept in, created on the first change
+     */
+    public StatusMessageStore(File file) throws IOException {
+        this.file = file;
+        if (file.exists()) {
+            messages.putAll(mapper.readValue(file, new TypeReference<LinkedHashMap<String, TrackedMessage>>() {}));
+        }
+    }
+
+    /**
+     * Gets the message tracked for a page.
+     *
+     * @param key The page index
+     * @return The tracked message, or null if no message is tracked for the page
+     */
+    public synchronized TrackedMessage get(String key) {
+        return messages.get(key);
+    }
+
+    /**
+     * Gets a copy of all tracked messages, keyed by page index.
+     *
+     * @return Map of page indexes to their tracked messages
+     */
+    public synchronized Map<String, TrackedMessage> getAll() {
+        return new LinkedHashMap<>(messages);
+    }
+
+    public synchronized boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    /**
+     * Tracks the message displaying a page.
+     *
+     * @param key The page index
+     * @param messageId The ID of the Discord message
+     * @param fingerprint Fingerprint of the embeds published in the message
+     */
+    public synchronized void track(String key, String messageId, String fingerprint) throws IOException {
+        messages.put(key, new TrackedMessage(messageId, fingerprint));
+        save();
+    }
+
+    public synchronized void untrack(String key) throws IOException {
+        if (messages.remove(key) != null) {
+            save();
+        }
+    }
+
+    private synchronized void save() throws IOException {
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file, messages);
+    }
+
+    /**
+     * A status message posted by the bot and the fingerprint of its current embeds.
+     */
+    public static class TrackedMessage {
+        private final String messageId;
+        private final String fingerprint;
+
+        @JsonCreator
+        public TrackedMessage(
+                @JsonProperty("messageId") String messageId,
+                @JsonProperty("fingerprint") String fingerprint) {
+            this.messageId = messageId;
+            this.fingerprint = fingerprint;
+        }
+
+        @JsonProperty("messageId")
+        public String getMessageId() {
+            return messageId;
+        }
+
+        @JsonProperty("fingerprint")
+        public String getFingerprint() {
+            return fingerprint;
+        }
+    }
+}
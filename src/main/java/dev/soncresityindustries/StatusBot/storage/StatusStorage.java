@@ -1,95 +1,536 @@
 package dev.soncresityindustries.StatusBot.storage;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import dev.soncresityindustries.StatusBot.StatusUpdateManager;
+import com.fasterxml.jackson.core.JsonFactory;
+import dev.soncresityindustries.StatusBot.Config;
+import dev.soncresityindustries.StatusBot.RefreshScheduler;
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import dev.soncresityindustries.StatusBot.util.LogUtils;
 import net.dv8tion.jda.api.JDA;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * JSON-based storage system for managing service statuses.
- * Thread-safe and persistent.
+ * Mutations are appended to a {@link StatusJournal}, which is periodically compacted
+ * into the {@code status.json} {@link SnapshotFile}. Reads go to an immutable {@link ServiceCatalog}
+ * that writers replace on every mutation, so readers never block. The catalog also maintains the
+ * service hierarchy and the rolled-up severity of every subtree. Thread-safe and persistent.
+ * <p>
+ * A mutation becomes visible to readers only once its journal record is on disk, so the status channel
+ * never shows a change that a crash or a failed write would lose. Writers build on the latest catalog
+ * including mutations still being written, and mutations that fail to be written are dropped from it again.
+ * <p>
+ * The bot keeps one storage per guild, each in its own partition directory and with its own
+ * {@link RefreshScheduler}, opened and closed by {@link GuildTenants}.
  *
  * @author SkyKing_PX
  */
 public class StatusStorage {
 
-    private static StatusStorage instance;
+    /** How long closing waits for the journal to write its queued records */
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
 
-    private final File file = new File("status.json");
-    private final ObjectMapper mapper = new ObjectMapper();
-    private ObjectNode root;
-    private final Map<String, Service> cache = new HashMap<>();
+    private final File file;
+    private final String guildId;
+    private final Supplier<Config.Storage> storageConfig;
+    private final JsonFactory factory = new JsonFactory();
+    private final SnapshotFile snapshot;
+    private final StatusJournal journal;
+    private final StatusHistory history;
+    private final StatusMessageStore messageStore;
+    /** The catalog readers see, containing only mutations that are on disk */
+    private final AtomicReference<ServiceCatalog> catalog = new AtomicReference<>();
+    /** The catalog including mutations still being written, which writers build on; guarded by this storage */
+    private ServiceCatalog tip;
+    /** Mutations queued in the journal but not yet published, oldest first; guarded by this storage */
+    private final Deque<PendingMutation> pending = new ArrayDeque<>();
+    /** Transitions of published mutations not yet written to the history, queued in publish order */
+    private final ConcurrentLinkedQueue<StatusHistory.Transition> historyBacklog = new ConcurrentLinkedQueue<>();
+    /** Held while the history backlog is written, so transitions are written in order */
+    private final Object historyLock = new Object();
+    private final RefreshScheduler refreshScheduler;
 
-    private StatusStorage() throws IOException {
-        if (!file.exists()) {
-            root = mapper.createObjectNode();
-            save();
-        } else {
-            root = (ObjectNode) mapper.readTree(file);
-            root.fields().forEachRemaining(entry -> {
-                try {
-                    Service s = mapper.treeToValue(entry.getValue(), Service.class);
-                    cache.put(entry.getKey(), s);
-                } catch (Exception ignored) {}
-            });
+    private final ExecutorService compactionExecutor;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /**
+     * Opens a storage that belongs to no guild and uses fixed settings instead of the configuration file,
+     * for benchmarks and tests.
+     *
+     * @param file The snapshot file
+     * @param storageConfig The storage settings
+     * @param refreshConfig The refresh settings
+     */
+    StatusStorage(File file, Config.Storage storageConfig, Config.Refresh refreshConfig) throws IOException {
+        this(file, null, () -> storageConfig, () -> refreshConfig);
+    }
+
+    /**
+     * Opens the storage kept in a snapshot file and the journal, history and tracked status messages next to it.
+     * Settings are read from the current configuration, so reloads take effect.
+     *
+     * @param file The snapshot file
+     * @param guildId The guild the storage belongs to, used to find its status channel and to label its metrics
+     */
+    StatusStorage(File file, String guildId) throws IOException {
+        this(file, guildId, StatusStorage::getStorageConfig, RefreshScheduler::getRefreshConfig);
+    }
+
+    private StatusStorage(File file, String guildId, Supplier<Config.Storage> storageConfig, Supplier<Config.Refresh> refreshConfig) throws IOException {
+        this.file = file;
+        this.guildId = guildId;
+        this.storageConfig = storageConfig;
+        File directory = file.getAbsoluteFile().getParentFile();
+        this.snapshot = new SnapshotFile(file, factory, storageConfig.get().getSnapshotGenerations());
+        this.journal = new StatusJournal(file, factory);
+        this.history = new StatusHistory(new File(directory, "history"));
+        this.messageStore = new StatusMessageStore(new File(directory, "status_messages.json"));
+        this.refreshScheduler = new RefreshScheduler(this, refreshConfig);
+        this.compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, guildId != null ? "StatusCompaction-" + guildId : "StatusCompaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Map<String, Service> services = snapshot.read();
+        Map<String, Service> loaded = services != null ? services : new LinkedHashMap<>();
+
+        // Recover mutations made after the snapshot was written
+        List<Mutation> mutations = journal.replay();
+        for (Mutation mutation : mutations) {
+            mutation.applyTo(loaded);
+        }
+        catalog.set(ServiceCatalog.of(loaded));
+        tip = catalog.get();
+        int replayed = mutations.size();
+
+        try {
+            history.load(catalog.get().getServices(), System.currentTimeMillis());
+        } catch (IOException e) {
+            LogUtils.logException("Error loading status history", e);
+        }
+
+        journal.start();
+        registerMetrics();
+        if (replayed > 0 || services == null) {
+            LogUtils.logStorage("Compacting " + replayed + " journal record(s)", file.getName());
+            compact();
         }
     }
 
-    public static synchronized StatusStorage getInstance() {
-        if (instance == null) {
+    public void addService(Service service, JDA jda) throws IOException {
+        awaitWritten(commit(Mutation.put(service)));
+        reloadServices(jda);
+    }
+
+    public void removeService(String serviceId, JDA jda) throws IOException {
+        awaitWritten(commit(Mutation.remove(serviceId)));
+        reloadServices(jda);
+    }
+
+    public void updateService(String serviceId, Severity newSeverity, String newDescription, String newOutageDescription, JDA jda) throws IOException {
+        updateService(serviceId, existing -> existing.withUpdatedStatus(newSeverity, newDescription, newOutageDescription), jda);
+    }
+
+    /**
+     * Changes a service as a single journal record. The change is computed under the storage lock,
+     * so it builds on the latest state, e.g. to keep the parts a command does not set.
+     *
+     * @param serviceId The ID of the service
+     * @param update Computes the new state of the service from its current state
+     * @return Whether the service exists
+     */
+    public boolean updateService(String serviceId, UnaryOperator<Service> update, JDA jda) throws IOException {
+        if (!applyUpdate(serviceId, update)) return false;
+        reloadServices(jda);
+        return true;
+    }
+
+    /**
+     * Updates the status of a service and waits until it is on disk, without refreshing the status channel.
+     *
+     * @return Whether the service exists
+     */
+    boolean applyUpdate(String serviceId, Severity newSeverity, String newDescription, String newOutageDescription) throws IOException {
+        return applyUpdate(serviceId, existing -> existing.withUpdatedStatus(newSeverity, newDescription, newOutageDescription));
+    }
+
+    private boolean applyUpdate(String serviceId, UnaryOperator<Service> update) throws IOException {
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            Service existing = tip.get(serviceId);
+            if (existing == null) return false;
+
+            written = commit(Mutation.put(update.apply(existing)));
+        }
+        awaitWritten(written);
+        return true;
+    }
+
+    /**
+     * Sets a status found by the health checks, unless the service changed since the probe result was judged.
+     * The check and the update happen under the storage lock, so a concurrent update is never overwritten.
+     * Services no longer checked or with a status set by hand are left alone.
+     *
+     * @param serviceId The ID of the service
+     * @param expected The severity the probe result was judged against
+     * @param update Computes the new state of the service from its current state
+     * @return Whether the status was changed
+     */
+    public boolean applyProbeResult(String serviceId, Severity expected, UnaryOperator<Service> update, JDA jda) throws IOException {
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            Service existing = tip.get(serviceId);
+            if (existing == null || !existing.hasCheckTarget() || existing.isManualOverride() || existing.getSeverity() != expected) {
+                return false;
+            }
+            written = commit(Mutation.put(update.apply(existing)));
+        }
+        awaitWritten(written);
+        reloadServices(jda);
+        return true;
+    }
+
+    /**
+     * Applies the changes of a bulk update as one journal record and requests a single refresh.
+     * The changes are applied all together or, if a selector fails, not at all.
+     *
+     * @param update The changes to apply
+     * @return The number of services changed
+     * @throws IllegalArgumentException If a selector is malformed or matches no service
+     */
+    public int applyBulkUpdate(BulkUpdate update, JDA jda) throws IOException {
+        CompletableFuture<Void> written;
+        int changed;
+        synchronized (this) {
+            List<Mutation> mutations = update.resolve(tip);
+            if (mutations.isEmpty()) return 0;
+
+            written = commit(Mutation.batch(mutations));
+            changed = mutations.size();
+        }
+        awaitWritten(written);
+        reloadServices(jda);
+        return changed;
+    }
+
+    /**
+     * Requests a refresh of the status channel.
+     * Refreshes requested in quick succession are coalesced into a single pass by the {@link RefreshScheduler}.
+     */
+    public void reloadServices(JDA jda) throws IOException {
+        refreshScheduler.requestRefresh(jda);
+    }
+
+    /** @return The guild the storage belongs to, or null outside of the bot */
+    public String getGuildId() {
+        return guildId;
+    }
+
+    /** @return The status messages posted for this storage */
+    public StatusMessageStore getMessageStore() {
+        return messageStore;
+    }
+
+    /** @return History of status transitions, used for uptime */
+    public StatusHistory getHistory() {
+        return history;
+    }
+
+    public RefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
+    }
+
+    /**
+     * Gets the current version of the service catalog.
+     * The catalog is immutable, so callers needing a consistent view across several reads should hold on to it.
+     *
+     * @return The current service catalog
+     */
+    public ServiceCatalog getCatalog() {
+        return catalog.get();
+    }
+
+    public Service getService(String serviceId) {
+        return catalog.get().get(serviceId);
+    }
+
+    public Collection<Service> getAllServices() {
+        return catalog.get().getServices();
+    }
+
+    /**
+     * Queues a mutation in the journal and makes it the base of later mutations.
+     * The catalog is built first, so a mutation it rejects is never journaled.
+     * Readers see the mutation once it is on disk, see {@link #settle()}.
+     *
+     * @return Future completing once the mutation is on disk
+     * @throws IllegalArgumentException If the mutation would make a service its own ancestor
+     */
+    private synchronized CompletableFuture<Void> commit(Mutation mutation) throws IOException {
+        ServiceCatalog previous = tip;
+        ServiceCatalog next = mutation.applyTo(previous);
+        CompletableFuture<Void> written = journal.append(mutation);
+        tip = next;
+        pending.add(new PendingMutation(mutation, written, previous, next));
+        // Publishes the mutation even if nobody waits for it any more; its history is then written by the next writer
+        written.whenComplete((v, e) -> settle());
+        return written;
+    }
+
+    /**
+     * Publishes the mutations whose journal records are on disk, in the order they were committed,
+     * and drops those that failed to be written. Mutations committed after a failed one were built on it,
+     * so they are applied again on top of the published catalog.
+     */
+    private synchronized void settle() {
+        boolean failed = false;
+        while (!pending.isEmpty() && pending.peek().written.isDone()) {
+            PendingMutation head = pending.poll();
+            if (head.written.isCompletedExceptionally()) {
+                failed = true;
+                continue;
+            }
+
+            ServiceCatalog published = catalog.get();
+            catalog.set(head.previous == published ? head.next : reapply(head.mutation, published));
+            queueTransitions(published, head.mutation);
+        }
+
+        if (failed) {
+            ServiceCatalog base = catalog.get();
+            for (PendingMutation later : pending) {
+                later.previous = base;
+                later.next = reapply(later.mutation, base);
+                base = later.next;
+            }
+            tip = base;
+        }
+    }
+
+    private static ServiceCatalog reapply(Mutation mutation, ServiceCatalog catalog) {
+        try {
+            return mutation.applyTo(catalog);
+        } catch (IllegalArgumentException e) {
+            LogUtils.logException("Journaled mutation no longer applies after a failed write", e);
+            return catalog;
+        }
+    }
+
+    /**
+     * Queues the status transitions made by a published mutation for {@link #writeHistory()}.
+     */
+    private void queueTransitions(ServiceCatalog previous, Mutation mutation) {
+        List<Mutation> parts = mutation.getBatch() != null ? mutation.getBatch() : List.of(mutation);
+        long now = System.currentTimeMillis();
+        // Later parts of a batch are compared with the severity left by earlier ones
+        Map<String, Severity> changed = new HashMap<>();
+        for (Mutation part : parts) {
+            Service service = part.getService();
+            if (service == null) {
+                historyBacklog.add(new StatusHistory.Transition(part.getRemovedServiceId(), null, now));
+                changed.put(part.getRemovedServiceId(), null);
+                continue;
+            }
+
+            String serviceId = service.getServiceId();
+            Service existing = previous.get(serviceId);
+            Severity before = changed.containsKey(serviceId) ? changed.get(serviceId) : existing != null ? existing.getSeverity() : null;
+            changed.put(serviceId, service.getSeverity());
+            if (before == service.getSeverity()) continue;
+            MetricsRegistry.getInstance().counter("statusbot_status_transitions_total", "Status transitions per new severity",
+                    "severity", service.getSeverity().getKey()).inc();
+            historyBacklog.add(new StatusHistory.Transition(serviceId, service.getSeverity(), now));
+        }
+    }
+
+    /**
+     * Writes the queued transitions to the history with a single write, outside the storage lock.
+     * The history only feeds uptime, so failures are logged and ignored.
+     */
+    private void writeHistory() {
+        if (historyBacklog.isEmpty()) return;
+        synchronized (historyLock) {
+            List<StatusHistory.Transition> transitions = new ArrayList<>();
+            StatusHistory.Transition transition;
+            while ((transition = historyBacklog.poll()) != null) {
+                transitions.add(transition);
+            }
             try {
-                instance = new StatusStorage();
+                history.recordAll(transitions);
             } catch (IOException e) {
-                throw new RuntimeException("Failed to initialize StatusStorage", e);
+                LogUtils.logException("Error recording status history", transitions.size() + " transition(s)", e);
             }
         }
-        return instance;
     }
 
-    public synchronized void addService(Service service, JDA jda) throws IOException {
-        cache.put(service.getServiceId(), service);
-        root.set(service.getServiceId(), mapper.valueToTree(service));
-        save();
-        reloadServices(jda);
+    /**
+     * Waits until a journal record is on disk, then triggers a compaction if enough records piled up.
+     */
+    private void awaitWritten(CompletableFuture<Void> written) throws IOException {
+        try {
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing status journal", e);
+        } catch (ExecutionException e) {
+            settle();
+            writeHistory();
+            throw new IOException("Failed to write status journal", e.getCause());
+        }
+        // The completion callback may not have run yet, but the caller expects to read its change
+        settle();
+        writeHistory();
+
+        if (journal.getUncompactedRecords() >= storageConfig.get().getCompactionThreshold() && compacting.compareAndSet(false, true)) {
+            compactionExecutor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    LogUtils.logException("Error compacting status journal", e);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
     }
 
-    public synchronized void removeService(String serviceId, JDA jda) throws IOException {
-        cache.remove(serviceId);
-        root.remove(serviceId);
-        save();
-        reloadServices(jda);
+    /**
+     * Writes a snapshot of the current state and drops the journal segments it covers.
+     * Only published mutations are written, which include every record of the sealed segments that made it to disk.
+     */
+    private void compact() throws IOException {
+        CompletableFuture<Long> rotated = journal.rotate();
+
+        long sealedSegment;
+        try {
+            sealedSegment = rotated.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rotating status journal", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to rotate status journal", e.getCause());
+        }
+
+        settle();
+        writeHistory();
+        save(catalog.get());
+        journal.deleteSegmentsUpTo(sealedSegment);
     }
 
-    public synchronized void updateService(String serviceId, String newStatus, String newDescription, String newOutageDescription, JDA jda) throws IOException {
-        Service existing = cache.get(serviceId);
-        if (existing != null) {
-            Service updated = existing.withUpdatedStatus(newStatus, newDescription, newOutageDescription);
-            cache.put(serviceId, updated);
-            root.set(serviceId, mapper.valueToTree(updated));
-            save();
-            reloadServices(jda);
+    /**
+     * Checks whether the storage has no work in progress, so closing it loses nothing.
+     *
+     * @return Whether no refresh, journal write or compaction is pending
+     */
+    public boolean isIdle() {
+        return refreshScheduler.isIdle() && journal.getQueueDepth() == 0 && !compacting.get();
+    }
+
+    /**
+     * Checks whether any service of the storage is probed by the health checks.
+     */
+    public boolean hasCheckTargets() {
+        for (Service service : catalog.get().getServices()) {
+            if (service.hasCheckTarget()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stops the journal writer and the background threads, waiting until queued records are written.
+     * The storage must not be used afterwards.
+     */
+    public void close() {
+        writeHistory();
+        CompletableFuture<Void> journalClosed = journal.close();
+        compactionExecutor.shutdown();
+        refreshScheduler.shutdown();
+        try {
+            journalClosed.get(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LogUtils.logWarning("Status journal did not close cleanly", file.getPath());
+        }
+        if (guildId != null) {
+            MetricsRegistry.getInstance().removeLabelled("guild", guildId);
         }
     }
 
-    public synchronized void reloadServices(JDA jda) throws IOException {
-        StatusUpdateManager.updateStatusMessages(jda, this);
+    void save(ServiceCatalog services) throws IOException {
+        long start = System.nanoTime();
+        snapshot.write(services.getServices());
+        MetricsRegistry.getInstance().histogram("statusbot_storage_save_seconds", "Time taken to write a snapshot").observeSince(start);
     }
 
-    public synchronized Service getService(String serviceId) {
-        return cache.get(serviceId);
+    private void registerMetrics() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        for (Severity severity : Severity.values()) {
+            metrics.gauge("statusbot_services", "Number of services per severity",
+                    () -> catalog.get().getSeverityCount(severity), metricLabels("severity", severity.getKey()));
+        }
+        metrics.gauge("statusbot_journal_queue_depth", "Journal records waiting to be written", journal::getQueueDepth, metricLabels());
+        metrics.gauge("statusbot_journal_uncompacted_records", "Journal records not yet covered by a snapshot", journal::getUncompactedRecords, metricLabels());
+    }
+
+    /**
+     * Adds the guild label to the labels of a metric of this storage.
+     *
+     * @param labels Alternating label names and values
+     * @return The labels, followed by the guild if the storage belongs to one
+     */
+    public String[] metricLabels(String... labels) {
+        if (guildId == null) return labels;
+        String[] withGuild = Arrays.copyOf(labels, labels.length + 2);
+        withGuild[labels.length] = "guild";
+        withGuild[labels.length + 1] = guildId;
+        return withGuild;
     }
 
-    public synchronized Collection<Service> getAllServices() {
-        return cache.values();
+    /**
+     * A mutation queued in the journal, with the catalog versions before and after it.
+     */
+    private static class PendingMutation {
+        private final Mutation mutation;
+        private final CompletableFuture<Void> written;
+        private ServiceCatalog previous;
+        private ServiceCatalog next;
+
+        private PendingMutation(Mutation mutation, CompletableFuture<Void> written, ServiceCatalog previous, ServiceCatalog next) {
+            this.mutation = mutation;
+            this.written = written;
+            this.previous = previous;
+            this.next = next;
+        }
     }
 
-    private synchronized void save() throws IOException {
-        mapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
+    private static Config.Storage getStorageConfig() {
+        try {
+            return Config.get().getStorage();
+        } catch (Exception e) {
+            return new Config.Storage();
+        }
     }
 }
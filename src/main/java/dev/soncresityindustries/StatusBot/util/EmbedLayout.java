@@ -0,0 +1,158 @@
+package dev.soncresityindustries.StatusBot.util;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Layout engine packing text into embeds and messages within Discord's size limits.
+ * Text that does not fit is split at line breaks and continued in further fields or embeds,
+ * and embeds are grouped into as few messages as possible.
+ *
+ * @author SkyKing_PX
+ */
+public class EmbedLayout {
+
+    /** Zero-width space, used where Discord requires text but nothing should be shown */
+    private static final String BLANK = "\u200B";
+
+    /**
+     * A titled block of text, laid out as one or more embed fields.
+     *
+     * @param name The field name
+     * @param value The field text, split into several fields if it is too long
+     */
+    public record Block(String name, String value) {
+    }
+
+    /**
+     * Lays out a description followed by blocks into as many embeds as needed.
+     *
+     * @param page Creates the embed for the given page index, with title, color and footer set
+     * @param description Text shown in the description of the first embed, continued in the next ones if too long
+     * @param blocks Blocks shown as fields, in order
+     * @return The embeds, at least one
+     */
+    public static List<MessageEmbed> layout(IntFunction<EmbedBuilder> page, String description, List<Block> blocks) {
+        List<MessageEmbed> embeds = new ArrayList<>();
+        EmbedBuilder current = null;
+
+        for (String chunk : split(description, MessageEmbed.DESCRIPTION_MAX_LENGTH)) {
+            if (current != null) embeds.add(current.build());
+            current = page.apply(embeds.size()).setDescription(chunk);
+        }
+
+        for (Block block : blocks) {
+            List<String> values = split(block.value(), MessageEmbed.VALUE_MAX_LENGTH);
+            for (int i = 0; i < values.size(); i++) {
+                String name = i == 0 ? truncate(block.name(), MessageEmbed.TITLE_MAX_LENGTH) : BLANK;
+                String value = values.get(i).isEmpty() ? BLANK : values.get(i);
+
+                if (current == null || current.getFields().size() >= MessageEmbed.MAX_FIELD_AMOUNT
+                        || current.length() + name.length() + value.length() > MessageEmbed.EMBED_MAX_LENGTH_BOT) {
+                    if (current != null) embeds.add(current.build());
+                    current = page.apply(embeds.size());
+                }
+                current.addField(name, value, false);
+            }
+        }
+
+        if (current == null) current = page.apply(0);
+        embeds.add(current.build());
+        return embeds;
+    }
+
+    /**
+     * Groups embeds into messages, keeping each message within the embed count and total length limits.
+     *
+     * @param embeds The embeds in display order
+     * @return The embeds of each message, in display order
+     */
+    public static List<List<MessageEmbed>> packMessages(List<MessageEmbed> embeds) {
+        List<List<MessageEmbed>> messages = new ArrayList<>();
+        List<MessageEmbed> current = new ArrayList<>();
+        int length = 0;
+
+        for (MessageEmbed embed : embeds) {
+            if (!current.isEmpty() && (current.size() >= Message.MAX_EMBED_COUNT
+                    || length + embed.getLength() > MessageEmbed.EMBED_MAX_LENGTH_BOT)) {
+                messages.add(current);
+                current = new ArrayList<>();
+                length = 0;
+            }
+            current.add(embed);
+            length += embed.getLength();
+        }
+
+        if (!current.isEmpty()) messages.add(current);
+        return messages;
+    }
+
+    /**
+     * Joins entries into pages, starting a new page whenever the next entry would not fit.
+     * Entries longer than a page are split at line breaks.
+     *
+     * @param entries The entries in display order
+     * @param limit Maximum length of a page
+     * @return The pages, at least one
+     */
+    public static List<String> paginate(List<String> entries, int limit) {
+        List<String> pages = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (String entry : entries) {
+            for (String chunk : split(entry, limit)) {
+                if (current.length() > 0 && current.length() + chunk.length() > limit) {
+                    pages.add(current.toString());
+                    current.setLength(0);
+                }
+                current.append(chunk);
+            }
+        }
+
+        if (current.length() > 0 || pages.isEmpty()) pages.add(current.toString());
+        return pages;
+    }
+
+    /**
+     * Splits text into chunks of at most the given length, preferring to break after a newline.
+     *
+     * @param text The text to split, null is treated as empty
+     * @param limit Maximum length of a chunk
+     * @return The chunks, at least one
+     */
+    public static List<String> split(String text, int limit) {
+        if (text == null || text.length() <= limit) return List.of(text == null ? "" : text);
+
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        while (text.length() - start > limit) {
+            int cut = text.lastIndexOf('\n', start + limit - 1) + 1;
+            if (cut <= start) {
+                cut = start + limit;
+                // Never separate the halves of a surrogate pair, e.g. an emoji
+                if (Character.isHighSurrogate(text.charAt(cut - 1))) cut--;
+            }
+            chunks.add(text.substring(start, cut));
+            start = cut;
+        }
+        chunks.add(text.substring(start));
+        return chunks;
+    }
+
+    /**
+     * Shortens text to the given length, marking the cut with an ellipsis.
+     *
+     * @param text The text to shorten
+     * @param limit Maximum length of the result
+     * @return The text, or a blank placeholder if it is empty
+     */
+    public static String truncate(String text, int limit) {
+        if (text == null || text.isEmpty()) return BLANK;
+        return text.length() <= limit ? text : text.substring(0, limit - 1) + "…";
+    }
+}
@@ -6,7 +6,6 @@ import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 
 import java.awt.*;
-import java.io.IOException;
 
 /**
  * Utility class for creating standardized Discord embeds.
@@ -19,87 +18,58 @@ public class EmbedUtils {
     /**
      * Default bot color - Blue
      */
-    public static Color DEFAULT_COLOR = Color.GRAY;
-
-    static {
-        try {
-            DEFAULT_COLOR = Color.decode(Config.get().getEmbeds().getDefaultColor());
-        } catch (IOException e) {
-            LogUtils.logException("Error while getting/decoding default color", e);
-        }
-    }
+    public static volatile Color DEFAULT_COLOR = Color.GRAY;
 
     /**
      * Success color - Green
      */
-    public static Color SUCCESS_COLOR = Color.GRAY;
-    public static Color GREEN = new Color(0, 204, 0);
-
-    static {
-        try {
-            SUCCESS_COLOR = Color.decode(Config.get().getEmbeds().getSuccessColor());
-            GREEN = Color.decode(Config.get().getEmbeds().getSuccessColor());
-        } catch (IOException e) {
-            LogUtils.logException("Error while getting/decoding success color", e);
-        }
-    }
+    public static volatile Color SUCCESS_COLOR = Color.GRAY;
+    public static volatile Color GREEN = new Color(0, 204, 0);
 
     /**
      * Error color - Red
      */
-    public static Color ERROR_COLOR = Color.GRAY;
-    public static Color RED = new Color(204, 0, 0);
-
-    static {
-        try {
-            ERROR_COLOR = Color.decode(Config.get().getEmbeds().getErrorColor());
-            RED = Color.decode(Config.get().getEmbeds().getErrorColor());
-        } catch (IOException e) {
-            LogUtils.logException("Error while getting/decoding error color", e);
-        }
-    }
+    public static volatile Color ERROR_COLOR = Color.GRAY;
+    public static volatile Color RED = new Color(204, 0, 0);
 
     /**
      * Warning color - Orange
      */
-    public static Color WARNING_COLOR = Color.GRAY;
-    public static Color YELLOW = new Color(255, 204, 0);
-
-    static {
-        try {
-            WARNING_COLOR = Color.decode(Config.get().getEmbeds().getWarningColor());
-            YELLOW = Color.decode(Config.get().getEmbeds().getWarningColor());
-        } catch (IOException e) {
-            LogUtils.logException("Error while getting/decoding warning color", e);
-        }
-    }
+    public static volatile Color WARNING_COLOR = Color.GRAY;
+    public static volatile Color YELLOW = new Color(255, 204, 0);
 
     /**
      * Info color - Yellow
      */
-    public static Color INFO_COLOR = Color.GRAY;
-
-    static {
-        try {
-            INFO_COLOR = Color.decode(Config.get().getEmbeds().getInfoColor());
-        } catch (IOException e) {
-            LogUtils.logException("Error while getting/decoding info color", e);
-        }
-    }
+    public static volatile Color INFO_COLOR = Color.GRAY;
 
     /**
      * Standard bot footer text
      */
-    private static String FOOTER_TEXT = "Footer Text not set";
+    private static volatile String FOOTER_TEXT = "Footer Text not set";
 
     static {
-        try {
-            FOOTER_TEXT = Config.get().getEmbeds().getFooterText();
-            /** Replace {Version} placeholder with bot version */
-            FOOTER_TEXT = FOOTER_TEXT.replace("{Version}", Bot.VERSION);
-        } catch (IOException e) {
-            LogUtils.logException("Error while getting footer text", e);
-        }
+        Config.addReloadListener(EmbedUtils::applyConfig);
+    }
+
+    /**
+     * Decodes the embed colors and footer of a configuration, once per load instead of per embed.
+     * The configuration is validated before it is published, so the colors decode.
+     *
+     * @param config The loaded configuration
+     */
+    private static void applyConfig(Config config) {
+        Config.Embeds embeds = config.getEmbeds();
+        DEFAULT_COLOR = Color.decode(embeds.getDefaultColor());
+        SUCCESS_COLOR = Color.decode(embeds.getSuccessColor());
+        GREEN = SUCCESS_COLOR;
+        ERROR_COLOR = Color.decode(embeds.getErrorColor());
+        RED = ERROR_COLOR;
+        WARNING_COLOR = Color.decode(embeds.getWarningColor());
+        YELLOW = WARNING_COLOR;
+        INFO_COLOR = Color.decode(embeds.getInfoColor());
+        // Replace {Version} placeholder with bot version
+        FOOTER_TEXT = embeds.getFooterText() != null ? embeds.getFooterText().replace("{Version}", Bot.VERSION) : "Footer Text not set";
     }
 
     /**
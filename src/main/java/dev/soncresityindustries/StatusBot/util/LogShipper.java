@@ -0,0 +1,236 @@
+package dev.soncresityindustries.StatusBot.util;
+
+import dev.soncresityindustries.StatusBot.Config;
+import dev.soncresityindustries.StatusBot.OutboundScheduler;
+import dev.soncresityindustries.StatusBot.ShardRouter;
+import dev.soncresityindustries.StatusBot.metrics.MetricsRegistry;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ships log embeds to the log channel in batches.
+ * Embeds are collected in a bounded queue and sent on a flush interval, packed up to ten per message.
+ * Only one batch is on its way at a time, so while Discord rate limits the log channel or the channel
+ * cannot be found the backlog stays in the queue; entries arriving while it is full are dropped and
+ * reported in the next batch. Embeds of a message that failed to send go back into the queue.
+ * Batches are sent from the worker of the shard owning the log channel, so while that shard
+ * reconnects the entries wait in the queue and other shards are not held up.
+ *
+ * @author SkyKing_PX
+ */
+public class LogShipper {
+
+    /** How long shutting down waits for the last batch to be sent */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private static LogShipper instance;
+
+    private final BlockingQueue<MessageEmbed> queue;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LogShipper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong shippedEntries = new AtomicLong();
+    private final AtomicLong shippedMessages = new AtomicLong();
+    private final AtomicLong droppedEntries = new AtomicLong();
+    /** Dropped entries not yet mentioned in the log channel */
+    private final AtomicLong unreportedDrops = new AtomicLong();
+
+    private volatile JDA jda;
+    private volatile TextChannel channel;
+    /** Whether the last lookup of the log channel failed, so the warning is only logged once */
+    private boolean channelMissing;
+    private CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+    private boolean shutdown;
+
+    private LogShipper() {
+        Config.Logging config = getLoggingConfig();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+
+        long interval = Math.max(100, config.getFlushIntervalMillis());
+        executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+
+        // The log channel may have changed
+        Config.addReloadListener(reloaded -> invalidateChannel());
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("statusbot_log_queue_depth", "Log embeds waiting to be shipped", queue::size);
+        metrics.counter("statusbot_log_entries_shipped_total", "Log embeds sent to the log channel", shippedEntries::get);
+        metrics.counter("statusbot_log_messages_shipped_total", "Messages sent to the log channel", shippedMessages::get);
+        metrics.counter("statusbot_log_entries_dropped_total", "Log embeds dropped because the log queue was full", droppedEntries::get);
+    }
+
+    public static synchronized LogShipper getInstance() {
+        if (instance == null) {
+            instance = new LogShipper();
+        }
+        return instance;
+    }
+
+    /**
+     * Queues an embed for the log channel.
+     *
+     * @param guild The Discord guild the entry is about, used to reach the log channel
+     * @param embed The embed to log
+     */
+    public void ship(Guild guild, MessageEmbed embed) {
+        this.jda = guild.getJDA();
+        if (!queue.offer(embed)) {
+            droppedEntries.incrementAndGet();
+            unreportedDrops.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops the flush interval and sends everything still queued, waiting briefly for it to arrive.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (shutdown) return;
+            shutdown = true;
+        }
+        executor.shutdownNow();
+
+        // Wait for the batch already on its way, then send the rest regardless of the batch limit
+        try {
+            getInFlight().get(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception ignored) {}
+        CompletableFuture<Void> pending;
+        synchronized (this) {
+            TextChannel target = resolveChannel();
+            if (target == null) {
+                if (!queue.isEmpty()) {
+                    LogUtils.logWarning("Log channel unavailable on shutdown", queue.size() + " entries not shipped");
+                }
+                return;
+            }
+            pending = sendQueued(Integer.MAX_VALUE, target);
+        }
+        try {
+            pending.get(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            LogUtils.logException("Error flushing log channel on shutdown", e);
+        }
+    }
+
+    private synchronized CompletableFuture<Void> getInFlight() {
+        return inFlight;
+    }
+
+    private synchronized void flush() {
+        if (shutdown || !inFlight.isDone()) return;
+        // Without a log channel the entries stay queued until the next flush
+        TextChannel target = resolveChannel();
+        if (target == null) return;
+        // One Discord bucket worth of messages per batch
+        inFlight = ShardRouter.getInstance().submit(target.getJDA(), "log", shard -> sendQueued(5, target));
+    }
+
+    /**
+     * Sends queued embeds, ten per message.
+     *
+     * @param maxMessages Maximum number of messages to send
+     * @param target The log channel
+     * @return Future completing once all messages were sent or failed
+     */
+    private CompletableFuture<Void> sendQueued(int maxMessages, TextChannel target) {
+        long maxEmbeds = (long) maxMessages * Message.MAX_EMBED_COUNT;
+        List<MessageEmbed> embeds = new ArrayList<>();
+        queue.drainTo(embeds, (int) Math.min(Integer.MAX_VALUE, maxEmbeds));
+
+        long drops = unreportedDrops.getAndSet(0);
+        if (drops > 0) {
+            LogUtils.logWarning("Log queue overflowed", drops + " entries dropped");
+            embeds.add(EmbedUtils.createWarning()
+                    .setTitle("Log Entries Dropped")
+                    .setDescription(drops + " log entries were dropped because the log queue was full.")
+                    .build());
+        }
+        if (embeds.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        for (List<MessageEmbed> message : EmbedLayout.packMessages(embeds)) {
+            sends.add(OutboundScheduler.getInstance().submit(OutboundScheduler.Priority.LOG, OutboundScheduler.Route.CREATE_MESSAGE,
+                    target.getId(), null, target.sendMessageEmbeds(message)).whenComplete((msg, e) -> {
+                if (e != null) {
+                    LogUtils.logException("Error sending log embeds", e);
+                    invalidateChannel();
+                    requeue(message);
+                    return;
+                }
+                shippedMessages.incrementAndGet();
+                shippedEntries.addAndGet(message.size());
+            }));
+        }
+        return CompletableFuture.allOf(sends.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Puts the embeds of a failed message back into the queue, to be sent with a later batch.
+     * Embeds that no longer fit are dropped and reported like any other overflow.
+     *
+     * @param embeds The embeds of the failed message
+     */
+    private void requeue(List<MessageEmbed> embeds) {
+        for (MessageEmbed embed : embeds) {
+            if (!queue.offer(embed)) {
+                droppedEntries.incrementAndGet();
+                unreportedDrops.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return The log channel, looked up once and cached until a send fails, or null if it cannot be found
+     */
+    private synchronized TextChannel resolveChannel() {
+        if (channel == null && jda != null) {
+            String channelId = getLoggingConfig().getLogChannelId();
+            // The log channel may be in another guild than the entries, on another shard
+            channel = ShardRouter.findTextChannel(jda, channelId);
+            if (channel == null && !channelMissing) {
+                LogUtils.logWarning("Log channel not found", channelId + ", keeping " + queue.size() + " entries queued");
+            }
+            channelMissing = channel == null;
+        }
+        return channel;
+    }
+
+    /**
+     * Forgets the cached log channel, so the next batch looks it up again.
+     */
+    public void invalidateChannel() {
+        channel = null;
+    }
+
+    private static Config.Logging getLoggingConfig() {
+        try {
+            Config.Logging config = Config.get().getLogging();
+            return config != null ? config : new Config.Logging();
+        } catch (Exception e) {
+            return new Config.Logging();
+        }
+    }
+
+    // --- Metrics ---
+
+    /** @return Number of embeds waiting to be shipped */
+    public int getQueueDepth() { return queue.size(); }
+    /** @return Number of embeds dropped because the queue was full */
+    public long getDroppedEntries() { return droppedEntries.get(); }
+}
@@ -2,12 +2,16 @@ package dev.soncresityindustries.StatusBot.util;
 
 import dev.soncresityindustries.StatusBot.Bot;
 import dev.soncresityindustries.StatusBot.Config;
+import dev.soncresityindustries.StatusBot.OutboundScheduler;
+import dev.soncresityindustries.StatusBot.ShardRouter;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for standardized logging operations.
@@ -21,6 +25,9 @@ public class LogUtils {
      */
     private static final Logger logger = LoggerFactory.getLogger(Bot.class);
 
+    /** How long a fatal error embed may take to send before the bot exits anyway */
+    private static final long FATAL_SEND_TIMEOUT_SECONDS = 5;
+
     /**
      * Logs an exception at ERROR level.
      *
@@ -67,11 +74,12 @@ public class LogUtils {
             }
             String roles = sb.toString();
             MessageEmbed embed = EmbedUtils.createErrorEmbed("Fatal Bot Error", "An error occurred in an undefined Stage: " + exception.getMessage() + "\n\n" + exception.getStackTrace()[0].toString() + "\n\nThe Bot will now Exit with Code 1\n" + roles);
-            jda.getTextChannelById(Config.get().getLogging().getFatalLogChannelId()).sendMessageEmbeds(embed).queue();
+            sendFatalEmbed(jda, Config.get().getLogging().getFatalLogChannelId(), embed);
         } catch (IOException e) {
             LogUtils.logException("Error while sending fatal error embed. Exiting...", e);
         }
-        jda.shutdown();
+        LogShipper.getInstance().shutdown();
+        ShardRouter.shutdown(jda);
         System.exit(1);
     }
 
@@ -92,14 +100,37 @@ public class LogUtils {
             }
             String roles = sb.toString();
             MessageEmbed embed = EmbedUtils.createErrorEmbed("Fatal Bot Error", "An error occurred in Stage" + context + ": " + exception.getMessage() + "\n\n" + exception.getStackTrace()[0].toString() + "\n\nThe Bot will now Exit with Code 1\n" + roles);
-            jda.getTextChannelById(Config.get().getLogging().getFatalLogChannelId()).sendMessageEmbeds(embed).queue();
+            sendFatalEmbed(jda, Config.get().getLogging().getFatalLogChannelId(), embed);
         } catch (IOException e) {
             LogUtils.logException("Error while sending fatal error embed. Exiting...", e);
         }
-        jda.shutdown();
+        LogShipper.getInstance().shutdown();
+        ShardRouter.shutdown(jda);
         System.exit(1);
     }
 
+    /**
+     * Sends a fatal error embed ahead of any other queued request and waits briefly for it,
+     * as the bot exits right afterwards.
+     *
+     * @param jda       JDA instance
+     * @param channelId The ID of the fatal log channel
+     * @param embed     The embed to send
+     */
+    private static void sendFatalEmbed(JDA jda, String channelId, MessageEmbed embed) {
+        TextChannel channel = ShardRouter.findTextChannel(jda, channelId);
+        if (channel == null) {
+            logEmptyException("Fatal log channel " + channelId + " not found");
+            return;
+        }
+        try {
+            OutboundScheduler.getInstance().submit(OutboundScheduler.Priority.FATAL, OutboundScheduler.Route.CREATE_MESSAGE,
+                    channel.getId(), null, channel.sendMessageEmbeds(embed)).get(FATAL_SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logException("Error while sending fatal error embed", e);
+        }
+    }
+
     /**
      * Logs an exception with a descriptive message at ERROR level.
      *
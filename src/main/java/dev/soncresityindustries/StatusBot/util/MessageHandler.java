@@ -1,15 +1,12 @@
 package dev.soncresityindustries.StatusBot.util;
 
-import dev.soncresityindustries.StatusBot.Config;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.User;
-import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.entities.emoji.RichCustomEmoji;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 
-import java.io.IOException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -44,20 +41,13 @@ public class MessageHandler {
 
     /**
      * Logs an embed message to the configured log channel.
+     * The embed is sent with the next batch of the {@link LogShipper}.
      *
      * @param guild The Discord guild where the log channel exists
      * @param embed The embed to log
      */
     public static void logToChannel(Guild guild, MessageEmbed embed) {
-        TextChannel logChannel = null;
-        try {
-            logChannel = guild.getTextChannelById(Config.get().getLogging().getLogChannelId());
-        } catch (IOException e) {
-            LogUtils.logException("Error getting log channel", e);
-        }
-        if (logChannel != null) {
-            logChannel.sendMessageEmbeds(embed).queue();
-        }
+        LogShipper.getInstance().ship(guild, embed);
     }
 
     /**
@@ -0,0 +1,103 @@
+package dev.soncresityindustries.StatusBot.command;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the order in which the {@link CommandDispatcher} runs handlers of the same key and scope.
+ *
+ * @author SkyKing_PX
+ */
+class CommandDispatcherTest {
+
+    private final CommandDispatcher dispatcher = CommandDispatcher.getInstance();
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+
+    @Test
+    void runsHandlersOfTheSameKeyInOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        dispatch("first", CommandDispatcher.Ordering.of("keys", "api"), release);
+        CompletableFuture<Void> second = dispatch("second", CommandDispatcher.Ordering.of("keys", "api"), null);
+
+        assertFalse(second.isDone());
+        release.countDown();
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("first", "second"), ran);
+    }
+
+    @Test
+    void runsOtherKeysOfAScopeConcurrently() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocked = dispatch("api", CommandDispatcher.Ordering.of("concurrent", "api"), release);
+
+        dispatch("db", CommandDispatcher.Ordering.of("concurrent", "db"), null).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("db"), ran);
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void runsAScopeWideHandlerAfterEveryEarlierHandlerOfTheScope() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        dispatch("update", CommandDispatcher.Ordering.of("bulk-after", "api"), release);
+        CompletableFuture<Void> bulk = dispatch("bulk", CommandDispatcher.Ordering.scope("bulk-after"), null);
+        // Another scope is not held up
+        dispatch("other", CommandDispatcher.Ordering.scope("elsewhere"), null).get(5, TimeUnit.SECONDS);
+
+        assertFalse(bulk.isDone());
+        release.countDown();
+        bulk.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("other", "update", "bulk"), ran);
+    }
+
+    @Test
+    void holdsLaterHandlersOfTheScopeBehindAScopeWideHandler() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        dispatch("bulk", CommandDispatcher.Ordering.scope("bulk-before"), release);
+        CompletableFuture<Void> update = dispatch("update", CommandDispatcher.Ordering.of("bulk-before", "api"), null);
+        CompletableFuture<Void> bulk = dispatch("second bulk", CommandDispatcher.Ordering.scope("bulk-before"), null);
+
+        assertFalse(update.isDone());
+        assertFalse(bulk.isDone());
+        release.countDown();
+        bulk.get(5, TimeUnit.SECONDS);
+        assertTrue(update.isDone());
+        assertEquals(List.of("bulk", "update", "second bulk"), ran);
+    }
+
+    @Test
+    void runsUnorderedHandlersRightAway() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> bulk = dispatch("bulk", CommandDispatcher.Ordering.scope("unordered"), release);
+
+        dispatch("list", null, null).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("list"), ran);
+        release.countDown();
+        bulk.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Dispatches a handler recording its name, which waits for a latch first if one is given.
+     * The name is recorded after the latch, so a handler blocked on it has not run yet.
+     */
+    private CompletableFuture<Void> dispatch(String name, CommandDispatcher.Ordering ordering, CountDownLatch release) {
+        return dispatcher.dispatch(name, ordering, () -> {
+            try {
+                if (release != null && !release.await(5, TimeUnit.SECONDS)) throw new IllegalStateException("never released");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            ran.add(name);
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package dev.soncresityindustries.StatusBot.health;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.soncresityindustries.StatusBot.Config;
+import dev.soncresityindustries.StatusBot.storage.Severity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests probing local endpoints with the {@link HealthChecker}.
+ *
+ * @author SkyKing_PX
+ */
+class HealthCheckerTest {
+
+    private static final long TIMEOUT_MILLIS = 1000;
+    private static final long SLOW_MILLIS = 300;
+
+    private HttpServer server;
+    private HealthChecker checker;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ok", exchange -> respond(exchange, 200));
+        server.createContext("/broken", exchange -> respond(exchange, 503));
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(SLOW_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200);
+        });
+        server.start();
+        checker = new HealthChecker(8, 4, TIMEOUT_MILLIS);
+    }
+
+    @AfterEach
+    void stop() {
+        checker.close();
+        server.stop(0);
+    }
+
+    @Test
+    void reportsASuccessfulResponseAsHealthy() {
+        CheckResult result = checker.check(url("/ok"));
+        assertTrue(result.healthy(), result.error());
+        assertNull(result.error());
+    }
+
+    @Test
+    void reportsAnErrorResponseAsFailed() {
+        CheckResult result = checker.check(url("/broken"));
+        assertFalse(result.healthy());
+        assertEquals("HTTP 503", result.error());
+    }
+
+    @Test
+    void classifiesASlowResponseAsDegraded() {
+        Config.HealthChecks config = new Config.HealthChecks();
+        config.setDegradedLatencyMillis(SLOW_MILLIS / 2);
+
+        CheckResult result = checker.check(url("/slow"));
+        assertTrue(result.healthy(), result.error());
+        assertTrue(result.latencyMillis() >= SLOW_MILLIS, "latency " + result.latencyMillis());
+        assertEquals(Severity.DEGRADED, new TransitionFilter(config).classify(result));
+    }
+
+    @Test
+    void timesOutWhenTheServerNeverAnswers() throws IOException {
+        // The kernel completes the handshake for the backlog, but nobody ever reads the request
+        try (ServerSocket silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            long start = System.nanoTime();
+            CheckResult result = checker.check("http://127.0.0.1:" + silent.getLocalPort() + "/");
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertFalse(result.healthy());
+            assertNotNull(result.error());
+            assertTrue(elapsedMillis >= TIMEOUT_MILLIS, "gave up after " + elapsedMillis + "ms");
+            assertTrue(elapsedMillis < TIMEOUT_MILLIS * 5, "gave up after " + elapsedMillis + "ms");
+        }
+    }
+
+    @Test
+    void reportsARefusedConnectionAsFailed() throws IOException {
+        int port = closedPort();
+
+        CheckResult http = checker.check("http://127.0.0.1:" + port + "/");
+        assertFalse(http.healthy());
+        assertNotNull(http.error());
+
+        CheckResult tcp = checker.check("tcp://127.0.0.1:" + port);
+        assertFalse(tcp.healthy());
+        assertTrue(tcp.error().startsWith("ConnectException"), tcp.error());
+    }
+
+    @Test
+    void connectsToAListeningTcpPort() throws IOException {
+        try (ServerSocket listening = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            CheckResult result = checker.check("tcp://127.0.0.1:" + listening.getLocalPort());
+            assertTrue(result.healthy(), result.error());
+        }
+    }
+
+    @Test
+    void rejectsMalformedTargets() {
+        assertThrows(IllegalArgumentException.class, () -> HealthChecker.validate("ftp://example.com"));
+        assertThrows(IllegalArgumentException.class, () -> HealthChecker.validate("tcp://example.com"));
+        HealthChecker.validate("https://example.com/health");
+        HealthChecker.validate("tcp://example.com:5432");
+
+        assertFalse(checker.check("ftp://example.com").healthy());
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, int code) throws IOException {
+        byte[] body = "ok".getBytes();
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dev.soncresityindustries.StatusBot.health;
+
+import dev.soncresityindustries.StatusBot.Config;
+import dev.soncresityindustries.StatusBot.storage.Severity;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests hysteresis and flap damping of the {@link TransitionFilter}.
+ *
+ * @author SkyKing_PX
+ */
+class TransitionFilterTest {
+
+    private static final Severity UP = Severity.OPERATIONAL;
+    private static final Severity DOWN = Severity.MAJOR_OUTAGE;
+
+    @Test
+    void waitsForTheFailureThresholdBeforeReportingAnOutage() {
+        TransitionFilter filter = new TransitionFilter(config(3, 2));
+
+        assertNull(filter.offer("api", UP, DOWN, seconds(0)));
+        assertNull(filter.offer("api", UP, DOWN, seconds(30)));
+        assertEquals(DOWN, filter.offer("api", UP, DOWN, seconds(60)));
+        assertEquals(1, filter.getTransitions());
+    }
+
+    @Test
+    void waitsForTheRecoveryThresholdBeforeReportingARecovery() {
+        TransitionFilter filter = new TransitionFilter(config(3, 2));
+
+        assertNull(filter.offer("api", DOWN, UP, seconds(0)));
+        assertEquals(UP, filter.offer("api", DOWN, UP, seconds(30)));
+    }
+
+    @Test
+    void restartsTheCountWhenAProbeDisagrees() {
+        TransitionFilter filter = new TransitionFilter(config(3, 2));
+
+        assertNull(filter.offer("api", UP, DOWN, seconds(0)));
+        assertNull(filter.offer("api", UP, DOWN, seconds(30)));
+        assertNull(filter.offer("api", UP, UP, seconds(60)));
+        assertNull(filter.offer("api", UP, DOWN, seconds(90)));
+        assertNull(filter.offer("api", UP, DOWN, seconds(120)));
+        assertEquals(DOWN, filter.offer("api", UP, DOWN, seconds(150)));
+    }
+
+    @Test
+    void reportsNothingWhileTheObservedStatusMatchesTheCurrentOne() {
+        TransitionFilter filter = new TransitionFilter(config(1, 1));
+
+        for (int i = 0; i < 5; i++) {
+            assertNull(filter.offer("api", UP, UP, seconds(i * 30L)));
+        }
+        assertEquals(0, filter.getTransitions());
+    }
+
+    @Test
+    void suppressesAFlappingServiceUntilThePenaltyDecays() {
+        // Every flip adds 1000, suppression starts at 3000 and ends below 750, the half-life is 300s
+        TransitionFilter filter = new TransitionFilter(config(1, 1));
+
+        assertEquals(DOWN, filter.offer("api", UP, DOWN, seconds(0)));
+        assertEquals(UP, filter.offer("api", DOWN, UP, seconds(0)));
+        assertEquals(DOWN, filter.offer("api", UP, DOWN, seconds(0)));
+        assertNull(filter.offer("api", DOWN, UP, seconds(0)));
+        assertEquals(1, filter.getSuppressions());
+        assertEquals(1, filter.getSuppressedServices());
+
+        // Still flapping, still held at its current status
+        assertNull(filter.offer("api", DOWN, DOWN, seconds(0)));
+        assertNull(filter.offer("api", DOWN, UP, seconds(0)));
+        assertNull(filter.offer("api", DOWN, UP, seconds(60)));
+        assertEquals(1, filter.getSuppressedServices());
+
+        // After three half-lives the penalty of 5000 has decayed to 625, below the reuse threshold
+        assertEquals(UP, filter.offer("api", DOWN, UP, seconds(900)));
+        assertEquals(0, filter.getSuppressedServices());
+        assertEquals(4, filter.getTransitions());
+    }
+
+    @Test
+    void keepsTheFiltersOfServicesApart() {
+        TransitionFilter filter = new TransitionFilter(config(2, 2));
+
+        assertNull(filter.offer("api", UP, DOWN, seconds(0)));
+        assertNull(filter.offer("db", UP, DOWN, seconds(0)));
+        assertEquals(DOWN, filter.offer("api", UP, DOWN, seconds(30)));
+
+        filter.forget("db");
+        assertNull(filter.offer("db", UP, DOWN, seconds(30)));
+    }
+
+    private static Config.HealthChecks config(int failureThreshold, int recoveryThreshold) {
+        Config.HealthChecks config = new Config.HealthChecks();
+        config.setFailureThreshold(failureThreshold);
+        config.setRecoveryThreshold(recoveryThreshold);
+        config.setFlapPenalty(1000);
+        config.setFlapSuppressThreshold(3000);
+        config.setFlapReuseThreshold(750);
+        config.setFlapHalfLifeSeconds(300);
+        return config;
+    }
+
+    private static long seconds(long seconds) {
+        return TimeUnit.SECONDS.toNanos(seconds);
+    }
+}
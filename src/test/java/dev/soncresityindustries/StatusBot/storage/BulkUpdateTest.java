@@ -0,0 +1,154 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the selectors and JSON format of a {@link BulkUpdate}.
+ *
+ * @author SkyKing_PX
+ */
+class BulkUpdateTest {
+
+    /**
+     * eu
+     * ├── eu-west
+     * │   ├── api (degraded)
+     * │   └── db
+     * └── eu-north
+     * us (degraded)
+     */
+    private final ServiceCatalog catalog = catalog(
+            service("eu", null, Severity.OPERATIONAL),
+            service("eu-west", "eu", Severity.OPERATIONAL),
+            service("api", "eu-west", Severity.DEGRADED),
+            service("db", "eu-west", Severity.OPERATIONAL),
+            service("eu-north", "eu", Severity.OPERATIONAL),
+            service("us", null, Severity.DEGRADED));
+
+    @Test
+    void selectsEveryService() {
+        assertEquals(List.of("eu", "eu-west", "api", "db", "eu-north", "us"), select("all"));
+        assertEquals(6, select(" ALL ").size());
+    }
+
+    @Test
+    void selectsServicesById() {
+        assertEquals(List.of("db", "us"), select("id:db, us"));
+        assertEquals(List.of("api"), select("api"));
+        assertEquals(List.of("api"), select("id:api,,"));
+    }
+
+    @Test
+    void selectsTheDirectChildren() {
+        assertEquals(List.of("eu-west", "eu-north"), select("children:eu"));
+    }
+
+    @Test
+    void selectsAWholeSubtree() {
+        assertEquals(List.of("eu", "eu-west", "eu-north", "api", "db"), select("tree:eu"));
+        assertEquals(List.of("db"), select("tree:db"));
+    }
+
+    @Test
+    void selectsBySeverity() {
+        assertEquals(List.of("api", "us"), select("severity:degraded"));
+        assertEquals(List.of("api", "us"), select("SEVERITY: degraded"));
+    }
+
+    @Test
+    void rejectsMalformedSelectors() {
+        assertThrows(IllegalArgumentException.class, () -> select("id:missing"));
+        assertThrows(IllegalArgumentException.class, () -> select("id:api,missing"));
+        assertThrows(IllegalArgumentException.class, () -> select("children:missing"));
+        assertThrows(IllegalArgumentException.class, () -> select("tree:missing"));
+        assertThrows(IllegalArgumentException.class, () -> select("severity:broken"));
+        assertThrows(IllegalArgumentException.class, () -> select("region:eu"));
+        assertThrows(IllegalArgumentException.class, () -> select("children:"));
+        assertThrows(IllegalArgumentException.class, () -> select(""));
+        assertThrows(IllegalArgumentException.class, () -> select(null));
+    }
+
+    @Test
+    void rejectsSelectorsMatchingNoService() {
+        assertThrows(IllegalArgumentException.class, () -> select("children:api"));
+        assertThrows(IllegalArgumentException.class, () -> select("severity:major_outage"));
+        assertThrows(IllegalArgumentException.class, () -> select("id:,"));
+    }
+
+    @Test
+    void letsALaterChangeOverrideAnEarlierOne() {
+        BulkUpdate update = new BulkUpdate(List.of(
+                new BulkUpdate.Change("tree:eu-west", Severity.MAJOR_OUTAGE, null, "Power loss"),
+                new BulkUpdate.Change("db", Severity.MAINTENANCE, "Failover", null)));
+
+        Map<String, Service> changed = new LinkedHashMap<>();
+        for (Mutation mutation : update.resolve(catalog)) {
+            mutation.applyTo(changed);
+        }
+
+        assertEquals(List.of("eu-west", "api", "db"), List.copyOf(changed.keySet()));
+        assertEquals(Severity.MAJOR_OUTAGE, changed.get("api").getSeverity());
+        assertEquals("Power loss", changed.get("api").getOutageDescription());
+        assertEquals("Description of api", changed.get("api").getDescription());
+        assertEquals(Severity.MAINTENANCE, changed.get("db").getSeverity());
+        assertEquals("Failover", changed.get("db").getDescription());
+        assertEquals("Power loss", changed.get("db").getOutageDescription());
+    }
+
+    @Test
+    void readsChangesFromJson() throws IOException {
+        BulkUpdate update = read("""
+                [
+                  {"selector": "children:eu", "status": "major_outage", "outageDescription": "Power loss", "extra": {"a": [1]}},
+                  {"serviceId": "us", "description": null}
+                ]""");
+
+        assertEquals(List.of(
+                new BulkUpdate.Change("children:eu", Severity.MAJOR_OUTAGE, null, "Power loss"),
+                new BulkUpdate.Change("id:us", null, null, null)), update.getChanges());
+        assertNull(update.getChanges().get(1).severity());
+    }
+
+    @Test
+    void rejectsInvalidJsonChanges() {
+        assertThrows(IOException.class, () -> read("[{\"status\": \"operational\"}]"));
+        assertThrows(IOException.class, () -> read("[{\"selector\": \"all\", \"status\": \"broken\"}]"));
+        assertThrows(IOException.class, () -> read("{\"selector\": \"all\"}"));
+    }
+
+    private List<String> select(String selector) {
+        Set<String> selected = BulkUpdate.select(catalog, selector);
+        return List.copyOf(selected);
+    }
+
+    private static BulkUpdate read(String json) throws IOException {
+        try (JsonParser parser = new JsonFactory().createParser(json)) {
+            parser.nextToken();
+            return BulkUpdate.read(parser);
+        }
+    }
+
+    private static ServiceCatalog catalog(Service... services) {
+        Map<String, Service> byId = new LinkedHashMap<>();
+        for (Service service : services) {
+            byId.put(service.getServiceId(), service);
+        }
+        return ServiceCatalog.of(byId);
+    }
+
+    private static Service service(String serviceId, String parentId, Severity severity) {
+        return new Service(serviceId, serviceId, severity, "", "Description of " + serviceId, parentId);
+    }
+}
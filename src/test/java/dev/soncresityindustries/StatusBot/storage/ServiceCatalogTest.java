@@ -0,0 +1,142 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the hierarchy index and severity rollups of the {@link ServiceCatalog}.
+ *
+ * @author SkyKing_PX
+ */
+class ServiceCatalogTest {
+
+    /**
+     * eu
+     * ├── eu-west
+     * │   ├── api
+     * │   └── db
+     * └── eu-north
+     * us
+     */
+    private static ServiceCatalog regions() {
+        Map<String, Service> services = new LinkedHashMap<>();
+        for (Service service : List.of(
+                service("eu", null, Severity.OPERATIONAL),
+                service("eu-west", "eu", Severity.OPERATIONAL),
+                service("api", "eu-west", Severity.OPERATIONAL),
+                service("db", "eu-west", Severity.DEGRADED),
+                service("eu-north", "eu", Severity.OPERATIONAL),
+                service("us", null, Severity.OPERATIONAL))) {
+            services.put(service.getServiceId(), service);
+        }
+        return ServiceCatalog.of(services);
+    }
+
+    @Test
+    void rollsUpTheWorstSeverityOfEverySubtree() {
+        ServiceCatalog catalog = regions();
+
+        assertEquals(Severity.DEGRADED, catalog.getRollup("db"));
+        assertEquals(Severity.OPERATIONAL, catalog.getRollup("api"));
+        assertEquals(Severity.DEGRADED, catalog.getRollup("eu-west"));
+        assertEquals(Severity.DEGRADED, catalog.getRollup("eu"));
+        assertEquals(Severity.OPERATIONAL, catalog.getRollup("eu-north"));
+        assertEquals(Severity.OPERATIONAL, catalog.getRollup("us"));
+        assertNull(catalog.getRollup("missing"));
+    }
+
+    @Test
+    void indexesRootsAndChildrenInOrder() {
+        ServiceCatalog catalog = regions();
+
+        assertEquals(List.of("eu", "us"), ids(catalog.getRoots()));
+        assertEquals(List.of("eu-west", "eu-north"), ids(catalog.getChildren("eu")));
+        assertEquals(List.of("api", "db"), ids(catalog.getChildren("eu-west")));
+        assertEquals(List.of(), ids(catalog.getChildren("api")));
+    }
+
+    @Test
+    void propagatesAChangeUpToTheRoot() {
+        ServiceCatalog catalog = regions().withService(service("api", "eu-west", Severity.MAJOR_OUTAGE));
+
+        assertEquals(Severity.MAJOR_OUTAGE, catalog.getRollup("eu-west"));
+        assertEquals(Severity.MAJOR_OUTAGE, catalog.getRollup("eu"));
+        assertEquals(Severity.OPERATIONAL, catalog.getRollup("us"));
+
+        ServiceCatalog recovered = catalog.withService(service("api", "eu-west", Severity.OPERATIONAL));
+        assertEquals(Severity.DEGRADED, recovered.getRollup("eu-west"));
+        assertEquals(Severity.DEGRADED, recovered.getRollup("eu"));
+    }
+
+    @Test
+    void leavesEarlierVersionsUntouched() {
+        ServiceCatalog before = regions();
+        ServiceCatalog after = before.withService(service("api", "eu-west", Severity.MAJOR_OUTAGE));
+
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(Severity.OPERATIONAL, before.get("api").getSeverity());
+        assertEquals(Severity.DEGRADED, before.getRollup("eu"));
+    }
+
+    @Test
+    void movesARollupWithAReparentedService() {
+        ServiceCatalog catalog = regions().withService(service("db", "eu-north", Severity.DEGRADED));
+
+        assertEquals(List.of("api"), ids(catalog.getChildren("eu-west")));
+        assertEquals(List.of("db"), ids(catalog.getChildren("eu-north")));
+        assertEquals(Severity.OPERATIONAL, catalog.getRollup("eu-west"));
+        assertEquals(Severity.DEGRADED, catalog.getRollup("eu-north"));
+        assertEquals(Severity.DEGRADED, catalog.getRollup("eu"));
+    }
+
+    @Test
+    void recomputesTheRollupOfTheParentOfARemovedService() {
+        ServiceCatalog catalog = regions().withoutService("db");
+
+        assertNull(catalog.get("db"));
+        assertEquals(List.of("api"), ids(catalog.getChildren("eu-west")));
+        assertEquals(Severity.OPERATIONAL, catalog.getRollup("eu-west"));
+        assertEquals(Severity.OPERATIONAL, catalog.getRollup("eu"));
+    }
+
+    @Test
+    void rejectsACycle() {
+        ServiceCatalog catalog = regions();
+
+        assertThrows(IllegalArgumentException.class, () -> catalog.withService(service("eu", "api", Severity.OPERATIONAL)));
+        assertThrows(IllegalArgumentException.class, () -> catalog.withService(service("eu", "eu", Severity.OPERATIONAL)));
+    }
+
+    @Test
+    void countsServicesPerSeverity() {
+        ServiceCatalog catalog = regions();
+        assertEquals(5, catalog.getSeverityCount(Severity.OPERATIONAL));
+        assertEquals(1, catalog.getSeverityCount(Severity.DEGRADED));
+        assertEquals(Severity.DEGRADED, catalog.getWorstSeverity());
+
+        ServiceCatalog changed = catalog
+                .withService(service("us", null, Severity.MAJOR_OUTAGE))
+                .withoutService("db");
+        assertEquals(4, changed.getSeverityCount(Severity.OPERATIONAL));
+        assertEquals(0, changed.getSeverityCount(Severity.DEGRADED));
+        assertEquals(1, changed.getSeverityCount(Severity.MAJOR_OUTAGE));
+        assertEquals(Severity.MAJOR_OUTAGE, changed.getWorstSeverity());
+
+        assertEquals(Severity.OPERATIONAL, ServiceCatalog.of(Map.of()).getWorstSeverity());
+    }
+
+    private static List<String> ids(List<Service> services) {
+        return services.stream().map(Service::getServiceId).toList();
+    }
+
+    private static Service service(String serviceId, String parentId, Severity severity) {
+        return new Service(serviceId, serviceId, severity, "", "Description of " + serviceId, parentId);
+    }
+}
@@ -0,0 +1,143 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests writing the {@link SnapshotFile} and falling back to backup generations when loading it.
+ *
+ * @author SkyKing_PX
+ */
+class SnapshotFileTest {
+
+    private final JsonFactory factory = new JsonFactory();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsWhatWasWritten() throws IOException {
+        SnapshotFile snapshot = open();
+        snapshot.write(List.of(service("api", Severity.DEGRADED, "first"), service("db", Severity.OPERATIONAL, "first")));
+
+        Map<String, Service> services = snapshot.read();
+        assertEquals(List.of("api", "db"), List.copyOf(services.keySet()));
+        assertEquals(Severity.DEGRADED, services.get("api").getSeverity());
+    }
+
+    @Test
+    void returnsNullWithoutASnapshot() throws IOException {
+        assertNull(open().read());
+    }
+
+    @Test
+    void keepsTheConfiguredNumberOfBackups() throws IOException {
+        SnapshotFile snapshot = open();
+        for (int i = 0; i < 4; i++) {
+            snapshot.write(List.of(service("api", Severity.OPERATIONAL, "write " + i)));
+        }
+
+        assertTrue(generation(0).exists());
+        assertTrue(generation(1).exists());
+        assertTrue(generation(2).exists());
+        assertFalse(generation(3).exists());
+        assertFalse(new File(file().getPath() + ".tmp").exists());
+    }
+
+    @Test
+    void fallsBackToTheBackupWhenTheChecksumDoesNotMatch() throws IOException {
+        SnapshotFile snapshot = open();
+        snapshot.write(List.of(service("api", Severity.OPERATIONAL, "first")));
+        snapshot.write(List.of(service("api", Severity.MAJOR_OUTAGE, "second")));
+
+        // Still valid JSON, but the services no longer match the checksum
+        String damaged = Files.readString(file().toPath()).replace("second", "secomd");
+        Files.writeString(file().toPath(), damaged, StandardCharsets.UTF_8);
+
+        Service api = snapshot.read().get("api");
+        assertEquals("first", api.getDescription());
+        assertEquals(Severity.OPERATIONAL, api.getSeverity());
+    }
+
+    @Test
+    void fallsBackToTheBackupWhenTheSnapshotIsTorn() throws IOException {
+        SnapshotFile snapshot = open();
+        snapshot.write(List.of(service("api", Severity.OPERATIONAL, "first")));
+        snapshot.write(List.of(service("api", Severity.MAJOR_OUTAGE, "second")));
+
+        byte[] bytes = Files.readAllBytes(file().toPath());
+        Files.write(file().toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertEquals("first", snapshot.read().get("api").getDescription());
+    }
+
+    @Test
+    void skipsMissingGenerations() throws IOException {
+        SnapshotFile snapshot = open();
+        snapshot.write(List.of(service("api", Severity.OPERATIONAL, "first")));
+        snapshot.write(List.of(service("api", Severity.OPERATIONAL, "second")));
+        snapshot.write(List.of(service("api", Severity.OPERATIONAL, "third")));
+
+        Files.writeString(file().toPath(), "{", StandardCharsets.UTF_8);
+        Files.delete(generation(1).toPath());
+
+        assertEquals("first", snapshot.read().get("api").getDescription());
+    }
+
+    @Test
+    void failsWhenNoGenerationIsIntact() throws IOException {
+        SnapshotFile snapshot = open();
+        snapshot.write(List.of(service("api", Severity.OPERATIONAL, "first")));
+        snapshot.write(List.of(service("api", Severity.OPERATIONAL, "second")));
+
+        Files.writeString(file().toPath(), "{", StandardCharsets.UTF_8);
+        Files.writeString(generation(1).toPath(), "not json", StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, snapshot::read);
+    }
+
+    @Test
+    void readsSnapshotsWrittenBeforeChecksums() throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(file(), JsonEncoding.UTF8)) {
+            ServiceCodec.writeAll(generator, List.of(service("api", Severity.MAINTENANCE, "legacy")));
+        }
+
+        Service api = open().read().get("api");
+        assertEquals(Severity.MAINTENANCE, api.getSeverity());
+        assertEquals("legacy", api.getDescription());
+    }
+
+    private SnapshotFile open() {
+        return new SnapshotFile(file(), factory, 2);
+    }
+
+    private File file() {
+        return directory.resolve("status.json").toFile();
+    }
+
+    private File generation(int generation) {
+        return generation == 0 ? file() : new File(file().getPath() + "." + generation);
+    }
+
+    private static Service service(String serviceId, Severity severity, String description) {
+        return new Service(serviceId, serviceId, severity, "", description);
+    }
+}
@@ -0,0 +1,152 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests appending to and replaying the {@link StatusJournal}.
+ *
+ * @author SkyKing_PX
+ */
+class StatusJournalTest {
+
+    private final JsonFactory factory = new JsonFactory();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysRecordsInTheOrderTheyWereWritten() throws Exception {
+        StatusJournal journal = open();
+        journal.append(Mutation.put(service("api", Severity.OPERATIONAL))).get();
+        journal.append(Mutation.put(service("db", Severity.OPERATIONAL))).get();
+        journal.append(Mutation.put(service("api", Severity.MAJOR_OUTAGE))).get();
+        journal.append(Mutation.remove("db")).get();
+        journal.close().get();
+
+        Map<String, Service> services = replay();
+        assertEquals(List.of("api"), List.copyOf(services.keySet()));
+        assertEquals(Severity.MAJOR_OUTAGE, services.get("api").getSeverity());
+    }
+
+    @Test
+    void stopsAtATornRecord() throws Exception {
+        StatusJournal journal = open();
+        journal.append(Mutation.put(service("api", Severity.DEGRADED))).get();
+        journal.close().get();
+
+        // A crash in the middle of the next record leaves half a line behind
+        Files.writeString(segment(1), "{\"op\":\"put\",\"service\":{\"serviceId\":\"db\"", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        Map<String, Service> services = replay();
+        assertEquals(List.of("api"), List.copyOf(services.keySet()));
+        assertEquals(Severity.DEGRADED, services.get("api").getSeverity());
+    }
+
+    @Test
+    void skipsUnknownRecords() throws Exception {
+        Files.writeString(segment(1), "{\"op\":\"rename\",\"serviceId\":\"api\"}\n"
+                + "{\"op\":\"put\",\"service\":{\"serviceId\":\"db\",\"severity\":\"operational\"}}\n", StandardCharsets.UTF_8);
+
+        assertEquals(List.of("db"), List.copyOf(replay().keySet()));
+    }
+
+    @Test
+    void replaysABatchAsOneRecord() throws Exception {
+        StatusJournal journal = open();
+        journal.append(Mutation.batch(List.of(
+                Mutation.put(service("api", Severity.MAJOR_OUTAGE)),
+                Mutation.put(service("db", Severity.MAJOR_OUTAGE))))).get();
+        assertEquals(1, journal.getUncompactedRecords());
+        journal.close().get();
+
+        List<Mutation> records = open().replay();
+        assertEquals(1, records.size());
+        assertEquals(2, records.get(0).getBatch().size());
+    }
+
+    @Test
+    void dropsABatchWithAnUnknownPart() throws Exception {
+        Files.writeString(segment(1), "{\"op\":\"batch\",\"mutations\":["
+                + "{\"op\":\"put\",\"service\":{\"serviceId\":\"api\",\"severity\":\"major_outage\"}},"
+                + "{\"op\":\"rename\",\"serviceId\":\"db\"}]}\n", StandardCharsets.UTF_8);
+
+        assertTrue(replay().isEmpty());
+    }
+
+    @Test
+    void continuesAfterTheExistingSegments() throws Exception {
+        StatusJournal first = open();
+        first.append(Mutation.put(service("api", Severity.OPERATIONAL))).get();
+        first.close().get();
+
+        StatusJournal second = open();
+        second.append(Mutation.put(service("db", Severity.OPERATIONAL))).get();
+        second.close().get();
+
+        assertTrue(Files.exists(segment(2)));
+        assertEquals(List.of("api", "db"), List.copyOf(replay().keySet()));
+    }
+
+    @Test
+    void deletesSealedSegments() throws Exception {
+        StatusJournal journal = open();
+        journal.append(Mutation.put(service("api", Severity.OPERATIONAL))).get();
+        long sealed = journal.rotate().get();
+        assertEquals(0, journal.getUncompactedRecords());
+        journal.append(Mutation.put(service("db", Severity.OPERATIONAL))).get();
+
+        journal.deleteSegmentsUpTo(sealed);
+        journal.close().get();
+
+        assertFalse(Files.exists(segment(sealed)));
+        Map<String, Service> services = replay();
+        assertNull(services.get("api"));
+        assertEquals(List.of("db"), List.copyOf(services.keySet()));
+    }
+
+    /**
+     * Opens and starts a journal in the temporary directory.
+     */
+    private StatusJournal open() throws IOException {
+        StatusJournal journal = new StatusJournal(snapshotFile(), factory);
+        journal.start();
+        return journal;
+    }
+
+    private Map<String, Service> replay() throws IOException {
+        Map<String, Service> services = new LinkedHashMap<>();
+        for (Mutation mutation : new StatusJournal(snapshotFile(), factory).replay()) {
+            mutation.applyTo(services);
+        }
+        return services;
+    }
+
+    private File snapshotFile() {
+        return directory.resolve("status.json").toFile();
+    }
+
+    private Path segment(long number) {
+        return directory.resolve("status.journal." + number);
+    }
+
+    private static Service service(String serviceId, Severity severity) {
+        return new Service(serviceId, serviceId, severity, "", "Description of " + serviceId);
+    }
+}
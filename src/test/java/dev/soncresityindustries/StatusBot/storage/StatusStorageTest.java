@@ -0,0 +1,198 @@
+package dev.soncresityindustries.StatusBot.storage;
+
+import dev.soncresityindustries.StatusBot.Config;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that mutations of a {@link StatusStorage} are published once written and survive reopening it.
+ *
+ * @author SkyKing_PX
+ */
+class StatusStorageTest {
+
+    @TempDir
+    Path directory;
+
+    private StatusStorage storage;
+
+    @AfterEach
+    void tearDown() {
+        if (storage != null) storage.close();
+    }
+
+    @Test
+    void publishesWrittenMutations() throws IOException {
+        storage = open();
+        storage.addService(service("api", null), null);
+        long version = storage.getCatalog().getVersion();
+
+        assertTrue(storage.applyUpdate("api", Severity.MAJOR_OUTAGE, "Down", "Power loss"));
+
+        Service api = storage.getService("api");
+        assertEquals(Severity.MAJOR_OUTAGE, api.getSeverity());
+        assertEquals("Power loss", api.getOutageDescription());
+        assertEquals(version + 1, storage.getCatalog().getVersion());
+        assertFalse(storage.applyUpdate("missing", Severity.MAJOR_OUTAGE, "", ""));
+    }
+
+    @Test
+    void changesStatusAndCheckTargetTogether() throws IOException {
+        storage = open();
+        storage.addService(service("api", null), null);
+        long version = storage.getCatalog().getVersion();
+
+        assertTrue(storage.updateService("api", service -> service
+                .withUpdatedStatus(Severity.DEGRADED, service.getDescription(), "Slow")
+                .withCheckTarget("https://api.example.com/health"), null));
+
+        Service api = storage.getService("api");
+        assertEquals(version + 1, storage.getCatalog().getVersion());
+        assertEquals(Severity.DEGRADED, api.getSeverity());
+        assertEquals("https://api.example.com/health", api.getCheckTarget());
+        assertFalse(storage.updateService("missing", service -> service, null));
+    }
+
+    @Test
+    void recoversMutationsFromTheJournal() throws IOException {
+        storage = open();
+        storage.addService(service("dc", null), null);
+        storage.addService(service("api", "dc"), null);
+        storage.applyUpdate("api", Severity.DEGRADED, "Slow", "");
+        storage.removeService("dc", null);
+        storage.close();
+
+        storage = open();
+        assertNull(storage.getService("dc"));
+        assertEquals(Severity.DEGRADED, storage.getService("api").getSeverity());
+        // Opening compacts the replayed records into the snapshot
+        assertTrue(Files.exists(directory.resolve("status.json")));
+    }
+
+    @Test
+    void appliesABulkUpdateAsOneRecord() throws IOException {
+        storage = open();
+        storage.addService(service("dc", null), null);
+        storage.addService(service("api", "dc"), null);
+        storage.addService(service("db", "dc"), null);
+        storage.addService(service("web", null), null);
+        long version = storage.getCatalog().getVersion();
+
+        int changed = storage.applyBulkUpdate(new BulkUpdate(List.of(
+                new BulkUpdate.Change("tree:dc", Severity.MAJOR_OUTAGE, null, "Power loss"))), null);
+
+        assertEquals(3, changed);
+        assertEquals(version + 3, storage.getCatalog().getVersion());
+        assertEquals(Severity.MAJOR_OUTAGE, storage.getCatalog().getRollup("dc"));
+        assertEquals(Severity.OPERATIONAL, storage.getService("web").getSeverity());
+        assertEquals("Description of api", storage.getService("api").getDescription());
+        assertEquals(3, countHistoryLines("\tmajor_outage\t"));
+    }
+
+    @Test
+    void rejectsABulkUpdateWithASelectorMatchingNothing() throws IOException {
+        storage = open();
+        storage.addService(service("api", null), null);
+        long version = storage.getCatalog().getVersion();
+
+        assertThrows(IllegalArgumentException.class, () -> storage.applyBulkUpdate(new BulkUpdate(List.of(
+                new BulkUpdate.Change("api", Severity.MAJOR_OUTAGE, null, null),
+                new BulkUpdate.Change("children:api", Severity.MAJOR_OUTAGE, null, null))), null));
+
+        assertEquals(version, storage.getCatalog().getVersion());
+        assertEquals(Severity.OPERATIONAL, storage.getService("api").getSeverity());
+    }
+
+    @Test
+    void appliesProbeResultsOnlyToTheJudgedStatus() throws IOException {
+        storage = open();
+        storage.addService(checked("api"), null);
+
+        assertTrue(storage.applyProbeResult("api", Severity.OPERATIONAL,
+                service -> service.withProbedStatus(Severity.MAJOR_OUTAGE, "Health check failed"), null));
+        assertTrue(storage.getService("api").isStatusProbed());
+
+        // Judged against a status the service no longer has
+        assertFalse(storage.applyProbeResult("api", Severity.OPERATIONAL,
+                service -> service.withProbedStatus(Severity.DEGRADED, "Health check slow"), null));
+        assertEquals(Severity.MAJOR_OUTAGE, storage.getService("api").getSeverity());
+
+        assertTrue(storage.applyProbeResult("api", Severity.MAJOR_OUTAGE,
+                service -> service.withProbedStatus(Severity.OPERATIONAL, ""), null));
+        assertEquals(Severity.OPERATIONAL, storage.getService("api").getSeverity());
+    }
+
+    @Test
+    void leavesManualStatusesToTheAdministrators() throws IOException {
+        storage = open();
+        storage.addService(checked("api"), null);
+        storage.applyProbeResult("api", Severity.OPERATIONAL,
+                service -> service.withProbedStatus(Severity.DEGRADED, "Health check slow"), null);
+
+        storage.applyUpdate("api", Severity.PARTIAL_OUTAGE, "Description of api", "Declared by hand");
+        Service api = storage.getService("api");
+        assertTrue(api.isManualOverride());
+
+        assertFalse(storage.applyProbeResult("api", Severity.PARTIAL_OUTAGE,
+                service -> service.withProbedStatus(Severity.OPERATIONAL, ""), null));
+        assertEquals(Severity.PARTIAL_OUTAGE, storage.getService("api").getSeverity());
+
+        // Setting it back to operational hands it to the health checks again
+        storage.applyUpdate("api", Severity.OPERATIONAL, "Description of api", "");
+        assertFalse(storage.getService("api").isManualOverride());
+    }
+
+    @Test
+    void keepsTheProbedMarkerAcrossReopening() throws IOException {
+        storage = open();
+        storage.addService(checked("api"), null);
+        storage.applyProbeResult("api", Severity.OPERATIONAL,
+                service -> service.withProbedStatus(Severity.MAJOR_OUTAGE, "Health check failed"), null);
+        storage.close();
+
+        storage = open();
+        assertTrue(storage.getService("api").isStatusProbed());
+        assertFalse(storage.getService("api").isManualOverride());
+    }
+
+    private StatusStorage open() throws IOException {
+        // Refreshes need Discord, so they are requested but never run
+        Config.Refresh refresh = new Config.Refresh();
+        refresh.setDebounceMillis(TimeUnit.HOURS.toMillis(1));
+        refresh.setMaxLatencyMillis(TimeUnit.HOURS.toMillis(1));
+        return new StatusStorage(directory.resolve("status.json").toFile(), new Config.Storage(), refresh);
+    }
+
+    private long countHistoryLines(String part) throws IOException {
+        long count = 0;
+        try (Stream<Path> files = Files.list(directory.resolve("history"))) {
+            for (Path file : files.toList()) {
+                count += Files.readAllLines(file).stream().filter(line -> line.contains(part)).count();
+            }
+        }
+        return count;
+    }
+
+    private static Service checked(String serviceId) {
+        return new Service(serviceId, serviceId, Severity.OPERATIONAL, "", "Description of " + serviceId, null, "tcp://localhost:1");
+    }
+
+    private static Service service(String serviceId, String parentId) {
+        return new Service(serviceId, serviceId, Severity.OPERATIONAL, "", "Description of " + serviceId, parentId);
+    }
+}
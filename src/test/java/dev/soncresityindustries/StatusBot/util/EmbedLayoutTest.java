@@ -0,0 +1,156 @@
+package dev.soncresityindustries.StatusBot.util;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests splitting, paginating and laying out text with the {@link EmbedLayout} within Discord's limits.
+ *
+ * @author SkyKing_PX
+ */
+class EmbedLayoutTest {
+
+    @Test
+    void keepsShortTextInOneChunk() {
+        assertEquals(List.of("short"), EmbedLayout.split("short", 10));
+        assertEquals(List.of(""), EmbedLayout.split(null, 10));
+    }
+
+    @Test
+    void splitsAfterTheLastLineBreakThatFits() {
+        assertEquals(List.of("one\ntwo\n", "three\nfour"), EmbedLayout.split("one\ntwo\nthree\nfour", 10));
+    }
+
+    @Test
+    void cutsLinesLongerThanTheLimit() {
+        assertEquals(List.of("abcd", "efgh", "ij"), EmbedLayout.split("abcdefghij", 4));
+    }
+
+    @Test
+    void neverSplitsASurrogatePair() {
+        // 🔴 is two chars; a cut after "abc" would separate its halves
+        List<String> chunks = EmbedLayout.split("abc🔴def", 4);
+        assertEquals(List.of("abc", "🔴de", "f"), chunks);
+        assertEquals("abc🔴def", String.join("", chunks));
+    }
+
+    @Test
+    void paginatesWholeEntriesWhileTheyFit() {
+        List<String> pages = EmbedLayout.paginate(List.of("aaa\n", "bbb\n", "ccc\n"), 8);
+        assertEquals(List.of("aaa\nbbb\n", "ccc\n"), pages);
+    }
+
+    @Test
+    void splitsEntriesLongerThanAPage() {
+        List<String> pages = EmbedLayout.paginate(List.of("a\n", "0123456789"), 5);
+        assertEquals(List.of("a\n", "01234", "56789"), pages);
+        assertEquals(List.of(""), EmbedLayout.paginate(List.of(), 5));
+    }
+
+    @Test
+    void continuesALongDescriptionInFurtherEmbeds() {
+        String description = line(100).repeat(100);
+        List<Integer> pages = new ArrayList<>();
+        List<MessageEmbed> embeds = EmbedLayout.layout(page -> {
+            pages.add(page);
+            return new EmbedBuilder().setTitle("Status");
+        }, description, List.of());
+
+        assertEquals(3, embeds.size());
+        assertEquals(List.of(0, 1, 2), pages);
+        StringBuilder joined = new StringBuilder();
+        for (MessageEmbed embed : embeds) {
+            assertTrue(embed.getDescription().length() <= MessageEmbed.DESCRIPTION_MAX_LENGTH);
+            joined.append(embed.getDescription());
+        }
+        assertEquals(description, joined.toString());
+    }
+
+    @Test
+    void startsANewEmbedWhenTheFieldsRunOut() {
+        List<EmbedLayout.Block> blocks = new ArrayList<>();
+        for (int i = 0; i < MessageEmbed.MAX_FIELD_AMOUNT + 1; i++) {
+            blocks.add(new EmbedLayout.Block("Service " + i, "Operational"));
+        }
+
+        List<MessageEmbed> embeds = EmbedLayout.layout(page -> new EmbedBuilder(), "", blocks);
+        assertEquals(2, embeds.size());
+        assertEquals(MessageEmbed.MAX_FIELD_AMOUNT, embeds.get(0).getFields().size());
+        assertEquals("Service " + MessageEmbed.MAX_FIELD_AMOUNT, embeds.get(1).getFields().get(0).getName());
+    }
+
+    @Test
+    void splitsALongBlockIntoUnnamedFollowUpFields() {
+        String value = line(100).repeat(25);
+        List<MessageEmbed> embeds = EmbedLayout.layout(page -> new EmbedBuilder(), "", List.of(new EmbedLayout.Block("Incident", value)));
+
+        List<MessageEmbed.Field> fields = embeds.get(0).getFields();
+        assertEquals(3, fields.size());
+        assertEquals("Incident", fields.get(0).getName());
+        assertEquals("\u200B", fields.get(1).getName());
+        StringBuilder joined = new StringBuilder();
+        for (MessageEmbed.Field field : fields) {
+            assertTrue(field.getValue().length() <= MessageEmbed.VALUE_MAX_LENGTH);
+            joined.append(field.getValue());
+        }
+        // Fields drop the line break a chunk ends with
+        assertEquals(value.replace("\n", ""), joined.toString().replace("\n", ""));
+    }
+
+    @Test
+    void keepsEveryEmbedWithinTheTotalLength() {
+        List<EmbedLayout.Block> blocks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            blocks.add(new EmbedLayout.Block("Service " + i, line(500).repeat(2)));
+        }
+
+        List<MessageEmbed> embeds = EmbedLayout.layout(page -> new EmbedBuilder().setTitle("Status"), line(200), blocks);
+        assertTrue(embeds.size() > 1);
+        for (MessageEmbed embed : embeds) {
+            assertTrue(embed.getLength() <= MessageEmbed.EMBED_MAX_LENGTH_BOT, "embed of " + embed.getLength());
+        }
+    }
+
+    @Test
+    void packsEmbedsWithinTheMessageLimits() {
+        List<MessageEmbed> small = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            small.add(new EmbedBuilder().setDescription("entry " + i).build());
+        }
+        List<List<MessageEmbed>> messages = EmbedLayout.packMessages(small);
+        assertEquals(List.of(10, 10, 5), messages.stream().map(List::size).toList());
+
+        List<MessageEmbed> large = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            large.add(new EmbedBuilder().setDescription("x".repeat(MessageEmbed.DESCRIPTION_MAX_LENGTH)).build());
+        }
+        messages = EmbedLayout.packMessages(large);
+        assertEquals(List.of(1, 1, 1), messages.stream().map(List::size).toList());
+        for (List<MessageEmbed> message : messages) {
+            assertTrue(message.size() <= Message.MAX_EMBED_COUNT);
+            assertTrue(message.stream().mapToInt(MessageEmbed::getLength).sum() <= MessageEmbed.EMBED_MAX_LENGTH_BOT);
+        }
+    }
+
+    @Test
+    void truncatesWithAnEllipsis() {
+        assertEquals("abc", EmbedLayout.truncate("abc", 3));
+        assertEquals("ab…", EmbedLayout.truncate("abcd", 3));
+        assertEquals("\u200B", EmbedLayout.truncate("", 3));
+    }
+
+    /**
+     * @return A line of the given length, including its line break
+     */
+    private static String line(int length) {
+        return "x".repeat(length - 1) + "\n";
+    }
+}